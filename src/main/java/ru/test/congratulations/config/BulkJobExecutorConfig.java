@@ -0,0 +1,20 @@
+package ru.test.congratulations.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class BulkJobExecutorConfig {
+
+    /**
+     * Исполнитель фоновых массовых операций: каждая задача получает свой виртуальный поток.
+     * Количество одновременно работающих задач ограничивает BulkJobServiceImpl
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService bulkJobExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("bulk-job-", 0).factory());
+    }
+}
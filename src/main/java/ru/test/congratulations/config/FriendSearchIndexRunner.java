@@ -0,0 +1,108 @@
+package ru.test.congratulations.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Создает индексы поиска друзей, которые Hibernate не умеет описать аннотациями.
+ * <p>
+ * B-tree индексы в порядке сортировки "C" отдают совпадения по началу fio и email уже упорядоченными.
+ * GIN-индекс по триграммам (pg_trgm) находит fio, похожие на запрос, и подстроку в fio, email и description.
+ * Расширение создается, если у пользователя БД есть на это права; иначе его должен установить администратор.
+ * <p>
+ * Индексы строятся с CONCURRENTLY вне транзакции, чтобы не блокировать запись в tbl_friends,
+ * и независимо друг от друга: ошибка одного не мешает создать остальные. Индекс, оставшийся
+ * невалидным после прерванного построения, пересоздается. Без pg_trgm поиск ограничивается
+ * совпадениями по началу fio и email (см. {@link #isTrigramSearchAvailable()})
+ */
+@Component
+public class FriendSearchIndexRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(FriendSearchIndexRunner.class);
+    private static final List<SearchIndex> INDEXES = List.of(
+            new SearchIndex("idx_friends_fio_prefix", "(user_id, (lower(fio) COLLATE \"C\"))", false),
+            new SearchIndex("idx_friends_email_prefix", "(user_id, (lower(email) COLLATE \"C\"))", false),
+            new SearchIndex("idx_friends_search_trgm",
+                    "USING gin (lower(fio) gin_trgm_ops, lower(email) gin_trgm_ops, lower(description) gin_trgm_ops)",
+                    true)
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private volatile boolean trigramSearchAvailable;
+
+    public FriendSearchIndexRunner(JdbcTemplate jdbcTemplate,
+                                   @Value("${friends.search.create-indexes:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        }
+        // Расширение могло быть установлено администратором и при выключенном создании индексов
+        trigramSearchAvailable = isTrigramInstalled();
+        if (!trigramSearchAvailable) {
+            log.warn("Расширение pg_trgm недоступно: поиск друзей ограничен совпадениями по началу fio и email");
+        }
+        if (!enabled) {
+            return;
+        }
+        for (SearchIndex index : INDEXES) {
+            if (!index.trigram() || trigramSearchAvailable) {
+                createIndex(index);
+            }
+        }
+    }
+
+    /**
+     * Установлено ли pg_trgm: без него ступени поиска по похожести и подстроке не выполняются
+     */
+    public boolean isTrigramSearchAvailable() {
+        return trigramSearchAvailable;
+    }
+
+    private void createIndex(SearchIndex index) {
+        Boolean invalid = query("SELECT EXISTS (SELECT 1 FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+                "WHERE c.relname = ? AND NOT i.indisvalid)", index.name());
+        if (Boolean.TRUE.equals(invalid) && !execute("DROP INDEX CONCURRENTLY IF EXISTS " + index.name())) {
+            return;
+        }
+        execute("CREATE INDEX CONCURRENTLY IF NOT EXISTS " + index.name() + " ON tbl_friends " + index.definition());
+    }
+
+    private boolean isTrigramInstalled() {
+        return Boolean.TRUE.equals(query("SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = ?)", "pg_trgm"));
+    }
+
+    private boolean execute(String statement) {
+        try {
+            jdbcTemplate.execute(statement);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Не удалось подготовить поиск друзей ({}): {}", statement, e.getMessage());
+            return false;
+        }
+    }
+
+    private Boolean query(String sql, String parameter) {
+        try {
+            return jdbcTemplate.queryForObject(sql, Boolean.class, parameter);
+        } catch (DataAccessException e) {
+            log.warn("Не удалось проверить поиск друзей ({}): {}", sql, e.getMessage());
+            return null;
+        }
+    }
+
+    private record SearchIndex(String name, String definition, boolean trigram) {
+    }
+}
@@ -0,0 +1,32 @@
+package ru.test.congratulations.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ImageExecutorConfig {
+    /**
+     * Фоновый пул для подготовки уменьшенных копий изображений.
+     * Очередь ограничена, при переполнении постановка задачи завершается {@link java.util.concurrent.RejectedExecutionException}:
+     * масштабирование не должно занимать поток запроса, а недостающие копии заново ставятся в очередь при их запросе.
+     * Пул остается на потоках платформы и в режиме виртуальных потоков: масштабирование нагружает
+     * процессор, и размер пула ограничивает именно эту нагрузку
+     */
+    @Bean
+    public ThreadPoolTaskExecutor imageTaskExecutor(
+            @Value("${image.thumbnail.pool-size:2}") int poolSize,
+            @Value("${image.thumbnail.queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
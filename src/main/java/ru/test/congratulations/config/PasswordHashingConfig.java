@@ -0,0 +1,36 @@
+package ru.test.congratulations.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class PasswordHashingConfig {
+
+    /**
+     * Пул для BCrypt. Хэширование нагружает процессор, поэтому потоков по умолчанию вдвое меньше,
+     * чем ядер, а остальные ядра остаются другим запросам. Очередь ограничена, при переполнении
+     * задача отклоняется. Заполнение очереди и число активных потоков публикуются
+     * в метриках executor.* с тегом name=passwordHashing
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolExecutor passwordHashingExecutor(
+            MeterRegistry meterRegistry,
+            @Value("${security.password.hashing.pool-size:0}") int poolSize,
+            @Value("${security.password.hashing.queue-capacity:200}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "passwordHashing", Tags.empty()).bindTo(meterRegistry);
+        return executor;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.test.congratulations.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import ru.test.congratulations.config.querycount.QueryCountFilter;
+import ru.test.congratulations.config.querycount.StatementCountingDataSource;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class QueryCountConfig {
+
+    /**
+     * Оборачивает DataSource приложения, чтобы считать JDBC-запросы каждого потока
+     */
+    @Bean
+    public static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)) {
+                    return new StatementCountingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Фильтр подсчета запросов стоит первым, чтобы учитывать и запросы фильтров безопасности.
+     * Заголовок X-Query-Count включается в профиле dev, метрика пишется всегда
+     */
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(
+            MeterRegistry meterRegistry,
+            @Value("${query-count.header-enabled:false}") boolean headerEnabled,
+            @Value("${query-count.metrics-enabled:true}") boolean metricsEnabled) {
+        FilterRegistrationBean<QueryCountFilter> registration = new FilterRegistrationBean<>(
+                new QueryCountFilter(meterRegistry, headerEnabled, metricsEnabled));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
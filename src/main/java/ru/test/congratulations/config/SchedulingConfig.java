@@ -0,0 +1,12 @@
+package ru.test.congratulations.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Включает задачи по расписанию (напоминания о днях рождения)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,47 @@
+package ru.test.congratulations.config;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Сдвигает последовательности идентификаторов за максимальный id в таблицах.
+ * Нужен для баз, созданных до перехода с IDENTITY на пуловые последовательности:
+ * иначе новые последовательности начнут выдавать уже занятые идентификаторы.
+ * <p>
+ * Выполняется после создания всех бинов, то есть после обновления схемы Hibernate,
+ * но до запуска веб-сервера, планировщиков и {@link org.springframework.boot.ApplicationRunner}:
+ * к этому моменту никто еще не получил блок идентификаторов из последовательности
+ */
+@Component
+public class SequenceAligner implements SmartInitializingSingleton {
+    private static final int ALLOCATION_SIZE = 50;
+    private static final String[][] SEQUENCES = {
+            {"tbl_user", "tbl_user_seq"},
+            {"tbl_friends", "tbl_friends_seq"},
+            {"tbl_congratulation", "tbl_congratulation_seq"}
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        align();
+    }
+
+    public void align() {
+        for (String[] sequence : SEQUENCES) {
+            String table = sequence[0];
+            String sequenceName = sequence[1];
+            jdbcTemplate.queryForObject(
+                    "SELECT setval('" + sequenceName + "', GREATEST(" +
+                            "(SELECT COALESCE(MAX(id), 0) FROM " + table + ") + " + ALLOCATION_SIZE + ", " +
+                            "(SELECT last_value FROM " + sequenceName + ")))",
+                    Long.class);
+        }
+    }
+}
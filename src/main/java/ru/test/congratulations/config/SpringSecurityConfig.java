@@ -1,24 +1,74 @@
 package ru.test.congratulations.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import ru.test.congratulations.config.password.BoundedPasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
 
 @Configuration
 @EnableWebSecurity
 public class SpringSecurityConfig {
+    private static final String METRICS_ROLE = "METRICS";
 
     public SpringSecurityConfig() {
     }
 
+    /**
+     * Эндпоинты actuator: health открыт для проверок доступности, остальные доступны
+     * только учетной записи сборщика метрик по HTTP Basic. Обычные пользователи приложения
+     * роли METRICS не имеют; без пароля metrics.scrape.password учетная запись не создается
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain actuatorSecurityFilterChain(
+            HttpSecurity security,
+            PasswordEncoder passwordEncoder,
+            @Value("${metrics.scrape.username:prometheus}") String scrapeUsername,
+            @Value("${metrics.scrape.password:}") String scrapePassword) throws Exception {
+        InMemoryUserDetailsManager scrapeUsers = new InMemoryUserDetailsManager();
+        if (!scrapePassword.isBlank()) {
+            scrapeUsers.createUser(org.springframework.security.core.userdetails.User.withUsername(scrapeUsername)
+                    .password(passwordEncoder.encode(scrapePassword))
+                    .roles(METRICS_ROLE)
+                    .build());
+        }
+        DaoAuthenticationProvider scrapeAuthentication = new DaoAuthenticationProvider(scrapeUsers);
+        scrapeAuthentication.setPasswordEncoder(passwordEncoder);
+
+        return security
+                .securityMatcher("/actuator/**")
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                        .anyRequest().hasRole(METRICS_ROLE)
+                )
+                .authenticationManager(new ProviderManager(scrapeAuthentication))
+                .sessionManagement(session -> session
+                        .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                )
+                .httpBasic(Customizer.withDefaults())
+                .build();
+    }
+
     @Bean
+    @Order(2)
     public SecurityFilterChain securityFilterChain(HttpSecurity security) throws Exception {
         return security
                 .sessionManagement(session -> session
@@ -54,8 +104,18 @@ public class SpringSecurityConfig {
                 .build();
     }
 
+    /**
+     * BCrypt с настраиваемой стоимостью на отдельном ограниченном пуле.
+     * Хэши со стоимостью ниже настроенной пересчитываются при успешном входе
+     * (см. UserDetailsServiceImpl.updatePassword)
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Qualifier("passwordHashingExecutor") ExecutorService passwordHashingExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${security.password.bcrypt-strength:10}") int strength,
+            @Value("${security.password.hashing.timeout:10s}") Duration timeout) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), passwordHashingExecutor, timeout,
+                meterRegistry);
     }
 }
\ No newline at end of file
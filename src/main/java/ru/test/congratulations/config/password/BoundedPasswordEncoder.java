@@ -0,0 +1,93 @@
+package ru.test.congratulations.config.password;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+
+/**
+ * Выполняет хэширование и проверку паролей делегата на отдельном ограниченном пуле.
+ * Вызывающий поток ждет результата, но процессор одновременно занимают не больше потоков пула,
+ * поэтому всплеск входов не вытесняет остальные запросы. Если очередь пула заполнена
+ * или результат не получен за timeout, бросается {@link PasswordHashingRejectedException}.
+ * Время с учетом ожидания в очереди пишется в password.hashing с тегом operation
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final ExecutorService executor;
+    private final Duration timeout;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, ExecutorService executor, Duration timeout,
+                                  MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeout = timeout;
+        this.encodeTimer = hashingTimer(meterRegistry, "encode");
+        this.matchesTimer = hashingTimer(meterRegistry, "matches");
+        this.rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Хэширования, отклоненные из-за переполнения очереди или таймаута")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    /**
+     * Только разбирает параметры сохраненного хэша, поэтому выполняется в вызывающем потоке
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    private <T> T execute(Callable<T> task, Timer timer) {
+        long start = System.nanoTime();
+        try {
+            Future<T> future;
+            try {
+                future = executor.submit(task);
+            } catch (RejectedExecutionException e) {
+                rejectedCounter.increment();
+                throw new PasswordHashingRejectedException("Очередь проверки паролей переполнена", e);
+            }
+            try {
+                return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                rejectedCounter.increment();
+                throw new PasswordHashingRejectedException("Проверка пароля не выполнена за " + timeout, e);
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new PasswordHashingRejectedException("Проверка пароля прервана", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static Timer hashingTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("password.hashing")
+                .description("Хэширование и проверка паролей, включая ожидание в очереди")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,18 @@
+package ru.test.congratulations.config.password;
+
+import org.springframework.security.authentication.AuthenticationServiceException;
+
+/**
+ * Пул хэширования паролей перегружен: очередь заполнена или результат не получен вовремя.
+ * При входе это приводит к обычной ошибке аутентификации, при регистрации - к ответу 503
+ */
+public class PasswordHashingRejectedException extends AuthenticationServiceException {
+
+    public PasswordHashingRejectedException(String message) {
+        super(message);
+    }
+
+    public PasswordHashingRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.test.congratulations.config.querycount;
+
+/**
+ * Счетчик JDBC-запросов текущего потока. Увеличивается при каждом создании Statement
+ * на соединениях из DataSource приложения; количество запросов за отрезок работы
+ * считается как разность значений {@link #current()} в его начале и конце
+ */
+public final class JdbcStatementCounter {
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private JdbcStatementCounter() {
+    }
+
+    /**
+     * Количество запросов, выполненных текущим потоком с момента его создания
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+
+    static void increment() {
+        COUNT.get()[0]++;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.test.congratulations.config.querycount;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Считает JDBC-запросы, выполненные при обработке HTTP-запроса.
+ * Количество записывается в метрику http.server.jdbc.statements с тегами uri и method,
+ * а при включенном заголовке еще и возвращается клиенту в X-Query-Count.
+ * Для потоковых ответов заголовок содержит число запросов на момент отправки заголовков
+ */
+public class QueryCountFilter extends OncePerRequestFilter {
+    public static final String HEADER = "X-Query-Count";
+    static final String METRIC = "http.server.jdbc.statements";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean headerEnabled;
+    private final boolean metricsEnabled;
+
+    public QueryCountFilter(MeterRegistry meterRegistry, boolean headerEnabled, boolean metricsEnabled) {
+        this.meterRegistry = meterRegistry;
+        this.headerEnabled = headerEnabled;
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = JdbcStatementCounter.current();
+        HttpServletResponse target = response;
+        if (headerEnabled) {
+            target = new OnCommittedResponseWrapper(response) {
+                @Override
+                protected void onResponseCommitted() {
+                    response.setHeader(HEADER, Long.toString(JdbcStatementCounter.current() - start));
+                }
+            };
+        }
+
+        try {
+            chain.doFilter(request, target);
+        } finally {
+            long statements = JdbcStatementCounter.current() - start;
+            if (headerEnabled && !response.isCommitted()) {
+                response.setHeader(HEADER, Long.toString(statements));
+            }
+            if (metricsEnabled) {
+                record(request, statements);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, long statements) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        DistributionSummary.builder(METRIC)
+                .description("Количество JDBC-запросов на HTTP-запрос")
+                .tag("uri", pattern != null ? pattern.toString() : "UNKNOWN")
+                .tag("method", request.getMethod())
+                .register(meterRegistry)
+                .record(statements);
+    }
+}
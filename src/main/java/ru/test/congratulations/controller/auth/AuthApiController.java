@@ -1,9 +1,14 @@
 package ru.test.congratulations.controller.auth;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import ru.test.congratulations.config.password.PasswordHashingRejectedException;
 import ru.test.congratulations.entity.request.RegistrationRequest;
 import ru.test.congratulations.service.user.UserService;
 
@@ -13,6 +18,8 @@ import java.util.Map;
 @RestController
 @RequestMapping("/api/auth")
 public class AuthApiController {
+    private static final Logger log = LoggerFactory.getLogger(AuthApiController.class);
+
     private final UserService userService;
 
     AuthApiController(UserService userService){
@@ -29,7 +36,7 @@ public class AuthApiController {
     public ResponseEntity<?> registerUser(@Valid @ModelAttribute("user") RegistrationRequest registrationRequest,
                                BindingResult bindingResult) {
 
-        System.err.println("Сервис регистрации был вызван");
+        log.debug("Сервис регистрации был вызван");
         if (bindingResult.hasErrors()) {
             return ResponseEntity.internalServerError().build();
         }
@@ -43,6 +50,9 @@ public class AuthApiController {
 
             return ResponseEntity.ok(response);
 
+        } catch (PasswordHashingRejectedException e) {
+            log.warn("Регистрация отклонена: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
         }
@@ -4,6 +4,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.test.congratulations.service.CongratulationService;
 import ru.test.congratulations.service.FriendService;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.service.user.UserService;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -13,10 +15,15 @@ import java.util.*;
 public class CalendarApiController {
     private final CongratulationService congratulationService;
     private final FriendService friendService;
+    private final CalendarAggregateService calendarAggregateService;
+    private final UserService userService;
 
-    public CalendarApiController(CongratulationService congratulationService, FriendService friendService) {
+    public CalendarApiController(CongratulationService congratulationService, FriendService friendService,
+                                 CalendarAggregateService calendarAggregateService, UserService userService) {
         this.congratulationService = congratulationService;
         this.friendService = friendService;
+        this.calendarAggregateService = calendarAggregateService;
+        this.userService = userService;
     }
 
     @GetMapping("/day-data")
@@ -36,4 +43,18 @@ public class CalendarApiController {
 
         return ResponseEntity.ok(responseData);
     }
-}
\ No newline at end of file
+
+    /**
+     * Пересчитывает агрегаты календаря авторизованного пользователя по исходным данным.
+     * Нужен для восстановления счетчиков, если они разошлись с таблицами друзей и поздравлений
+     */
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuildAggregates() {
+        return userService.getAuthUser()
+                .map(user -> {
+                    calendarAggregateService.rebuild(user.getId());
+                    return ResponseEntity.noContent().<Void>build();
+                })
+                .orElseGet(() -> ResponseEntity.status(401).build());
+    }
+}
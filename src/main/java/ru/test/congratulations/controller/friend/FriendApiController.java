@@ -1,31 +1,44 @@
 package ru.test.congratulations.controller.friend;
 
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
 import ru.test.congratulations.entity.Friend;
 import ru.test.congratulations.entity.request.WriteFriendRequest;
 import ru.test.congratulations.entity.response.FriendResponse;
 import ru.test.congratulations.entity.response.FriendWithCongResponse;
-import ru.test.congratulations.service.CongratulationService;
 import ru.test.congratulations.service.FriendService;
+import ru.test.congratulations.service.exporter.ExportFormat;
+import ru.test.congratulations.service.exporter.FriendExportService;
+import ru.test.congratulations.service.importer.ImportFormat;
+import ru.test.congratulations.service.job.BulkJobService;
+import ru.test.congratulations.service.job.JobStatus;
 
 import java.io.IOException;
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/friends")
 public class FriendApiController {
     private final FriendService friendService;
-    private final CongratulationService congService;
+    private final FriendExportService friendExportService;
+    private final BulkJobService bulkJobService;
 
-    public FriendApiController(FriendService friendService, CongratulationService congService) {
+    public FriendApiController(FriendService friendService, FriendExportService friendExportService,
+                               BulkJobService bulkJobService) {
         this.friendService = friendService;
-        this.congService = congService;
+        this.friendExportService = friendExportService;
+        this.bulkJobService = bulkJobService;
     }
 
     @GetMapping("/{friendId}")
@@ -61,19 +74,75 @@ public class FriendApiController {
                 : ResponseEntity.badRequest().build();
     }
 
+    /**
+     * Массовый импорт друзей из CSV (fio,email,dateOfBirth,description) или vCard.
+     * Импорт выполняется фоновой задачей, как /api/jobs/import: запрос не держит поток и соединение с БД
+     * на время всего файла
+     * @param file файл импорта
+     * @param format csv или vcard; если не указан, определяется по расширению файла
+     * @return состояние задачи и ссылка для опроса прогресса
+     */
+    @PostMapping("/import")
+    public ResponseEntity<?> importFriends(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) throws IOException {
+
+        ImportFormat importFormat;
+        try {
+            importFormat = ImportFormat.resolve(format, file.getOriginalFilename());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+
+        JobStatus job = bulkJobService.submitImport(file, importFormat);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.id()))
+                .body(job);
+    }
+
+    /**
+     * Резервная копия друзей вместе с историей поздравлений в NDJSON (по умолчанию) или CSV.
+     * Ответ пишется потоком по мере чтения из БД; если клиент принимает gzip, поток сжимается
+     * @param format ndjson или csv
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFriends(
+            @RequestParam(required = false) String format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.resolve(format);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody body = friendExportService.exportFriends(exportFormat);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("friends." + exportFormat.getExtension())
+                        .build()
+                        .toString());
+        if (acceptEncoding == null || !acceptEncoding.toLowerCase().contains("gzip")) {
+            return response.body(body);
+        }
+        return response
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .body(outputStream -> {
+                    GZIPOutputStream gzip = new GZIPOutputStream(outputStream, 8192);
+                    body.writeTo(gzip);
+                    gzip.finish();
+                });
+    }
+
     @GetMapping("/by-date")
-    public ResponseEntity<ArrayList<FriendWithCongResponse>> getFriendsByDate(
+    public ResponseEntity<List<FriendWithCongResponse>> getFriendsByDate(
             @RequestParam String date) {
 
         LocalDate targetDate = LocalDate.parse(date);
-        ArrayList<FriendResponse> tempResult = friendService.getByDate(targetDate);
-        ArrayList<FriendWithCongResponse> result = new ArrayList<>();
-        for (FriendResponse friend : tempResult){
-            Boolean cong = congService.getCongratulationByFriendIdAndDate(friend.getId(), targetDate) != null;
-            result.add(convertToFriendWithCongResponse(friend, cong));
-        }
-
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(friendService.getByDateWithCongratulation(targetDate));
     }
 
     @GetMapping("/by-date-range")
@@ -96,6 +165,40 @@ public class FriendApiController {
         return ResponseEntity.ok(result);
     }
 
+    /**
+     * Постраничная выборка друзей по курсору в порядке ближайшего дня рождения.
+     * Для следующей страницы передается nextCursor из предыдущего ответа
+     */
+    @GetMapping("/upcoming/scroll")
+    public ResponseEntity<Map<String, Object>> scrollUpcomingBirthdays(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
+
+        try {
+            return ResponseEntity.ok(friendService.getUpcomingFriends(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Автодополнение: друзья текущего пользователя, у которых fio, email или описание
+     * совпадают с запросом по началу, по подстроке или приблизительно (с опечатками)
+     * @param q строка поиска
+     * @param limit максимальное количество результатов, от 1 до 50
+     */
+    @GetMapping("/search")
+    public ResponseEntity<List<FriendResponse>> searchFriends(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        try {
+            return ResponseEntity.ok(friendService.searchFriends(q, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @PostMapping("/update")
     public ResponseEntity<?> updateFriend(
             @RequestParam("id") Long id,
@@ -124,128 +227,14 @@ public class FriendApiController {
 
 
     /**
-     * Создает 10 уникальных друзей с датой рождения в диапазоне от -10 до +80 дней от текущей даты
+     * Создает 10 уникальных друзей с датой рождения в диапазоне от -375 до -300 дней от текущей даты.
+     * Создание выполняется фоновой задачей, в ответе возвращается ее состояние
      */
     @GetMapping("/bulk-create")
-    public List<Friend> createTenFriends() {
-        List<Friend> createdFriends = new ArrayList<>();
-        Set<String> usedEmails = new HashSet<>();
-        Set<String> usedNames = new HashSet<>();
-
-        LocalDate today = LocalDate.now();
-        LocalDate minDate = today.minusDays(375);
-        LocalDate maxDate = today.minusDays(300);
-
-        while (createdFriends.size() < 10) {
-            WriteFriendRequest request = generateUniqueFriendRequest(
-                    minDate, maxDate, usedEmails, usedNames
-            );
-
-            try {
-                Friend createdFriend = friendService.createFriend(request);
-                if (createdFriend != null) {
-                    createdFriends.add(createdFriend);
-                    usedEmails.add(request.getEmail());
-                    usedNames.add(request.getFIO());
-                }
-            } catch (Exception e) {
-                System.err.println("Ошибка при создании друга: " + e.getMessage());
-            }
-        }
-
-        return createdFriends;
-    }
-
-    /**
-     * Генерирует уникальный запрос на создание друга
-     */
-    private WriteFriendRequest generateUniqueFriendRequest(
-            LocalDate minDate,
-            LocalDate maxDate,
-            Set<String> usedEmails,
-            Set<String> usedNames) {
-
-        String[] firstNames = {"Александр", "Михаил", "Дмитрий", "Андрей", "Сергей",
-                "Иван", "Алексей", "Евгений", "Владимир", "Николай"};
-        String[] lastNames = {"Иванов", "Петров", "Сидоров", "Смирнов", "Кузнецов",
-                "Попов", "Васильев", "Павлов", "Семенов", "Голубев"};
-
-        String name;
-        String email;
-        int attempts = 0;
-
-        do {
-            String firstName = firstNames[ThreadLocalRandom.current().nextInt(firstNames.length)];
-            String lastName = lastNames[ThreadLocalRandom.current().nextInt(lastNames.length)];
-            name = firstName + " " + lastName;
-            email = generateEmail(firstName.toLowerCase(), lastName.toLowerCase());
-            attempts++;
-
-            if (attempts > 50) {
-                String uuid = UUID.randomUUID().toString().substring(0, 8);
-                name = name + " " + uuid;
-                email = uuid + "@example.com";
-                break;
-            }
-        } while (usedNames.contains(name) || usedEmails.contains(email));
-
-        long minEpochDay = minDate.toEpochDay();
-        long maxEpochDay = maxDate.toEpochDay();
-        long randomEpochDay = ThreadLocalRandom.current().nextLong(minEpochDay, maxEpochDay + 1);
-        LocalDate randomDate = LocalDate.ofEpochDay(randomEpochDay);
-
-        String[] descriptions = {
-                "Старый школьный друг",
-                "Коллега по работе",
-                "Знакомый из университета",
-                "Сосед",
-                "Друг по спортивной секции",
-                "Знакомый через общих друзей",
-                null
-        };
-        String description = descriptions[ThreadLocalRandom.current().nextInt(descriptions.length)];
-
-        WriteFriendRequest request = new WriteFriendRequest();
-        request.setFIO(name);
-        request.setEmail(email);
-        request.setDateOfBirth(randomDate);
-        request.setDescription(description);
-
-        return request;
+    public ResponseEntity<JobStatus> createTenFriends() {
+        JobStatus job = bulkJobService.submitSeed(10);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.id()))
+                .body(job);
     }
-
-    /**
-     * Генерирует email на основе имени и фамилии
-     */
-    private String generateEmail(String firstName, String lastName) {
-        String[] domains = {"gmail.com", "yandex.ru", "mail.ru", "outlook.com", "yahoo.com"};
-        String domain = domains[ThreadLocalRandom.current().nextInt(domains.length)];
-
-        int variant = ThreadLocalRandom.current().nextInt(3);
-        return switch (variant) {
-            case 0 -> firstName + "." + lastName + "@" + domain;
-            case 1 -> firstName.charAt(0) + lastName + "@" + domain;
-            case 2 -> firstName + lastName + "@" + domain;
-            default -> firstName + lastName + ThreadLocalRandom.current().nextInt(100) + "@" + domain;
-        };
-    }
-
-
-
-
-
-
-    private FriendWithCongResponse convertToFriendWithCongResponse(FriendResponse tempResult, Boolean cong){
-        return new FriendWithCongResponse(
-                tempResult.getId(),
-                tempResult.getFio(),
-                tempResult.getEmail(),
-                tempResult.getBirthDate(),
-                cong,
-                tempResult.getImageUrl()
-        );
-    }
-
-
 }
-
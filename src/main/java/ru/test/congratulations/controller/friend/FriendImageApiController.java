@@ -1,12 +1,18 @@
 package ru.test.congratulations.controller.friend;
 
-import jakarta.persistence.EntityNotFoundException;
+import org.springframework.core.io.Resource;
+import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import ru.test.congratulations.entity.response.FriendResponse;
 import ru.test.congratulations.service.FriendService;
+import ru.test.congratulations.service.image.FriendImage;
+import ru.test.congratulations.service.image.ImageVariant;
+
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/friends")
@@ -17,36 +23,30 @@ public class FriendImageApiController {
         this.friendService = friendService;
     }
 
+    /**
+     * Отдает изображение друга потоком с диска, не загружая файл в память.
+     * Заголовок Range обрабатывается Spring MVC для тела типа Resource (ответ 206 Partial Content)
+     * @param size размер: 64, 256 или full (по умолчанию)
+     */
     @GetMapping("/{friendId}/image")
-    public ResponseEntity<byte[]> getFriendImage(
-            @PathVariable Long friendId) {
+    public ResponseEntity<Resource> getFriendImage(
+            @PathVariable Long friendId,
+            @RequestParam(defaultValue = "full") String size) {
         try {
-            byte[] imageBytes = friendService.getFriendImage(friendId);
-
-            FriendResponse friend = friendService.getFriendResponse(friendId);
-            String imageUrl = friend.getImageUrl();
-            String contentType = determineContentType(imageUrl);
-
-            System.out.println("Запрошено изображение для друга ID=" + friendId);
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(imageBytes);
-        } catch (EntityNotFoundException e) {
+            FriendImage image = friendService.getFriendImage(friendId, ImageVariant.fromParam(size));
+
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(image.contentType());
+            if (MediaType.APPLICATION_OCTET_STREAM.equals(image.contentType())) {
+                // Неизвестный тип не показывается в браузере, а только скачивается
+                response.header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().build().toString());
+            }
+            return response.body(image.resource());
+        } catch (ResourceNotFoundException e) {
             return ResponseEntity.notFound().build();
-        } catch (Exception e) {
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-
-    private String determineContentType(String imageUrl) {
-        if (imageUrl == null) return "image/jpeg";
-
-        if (imageUrl.toLowerCase().endsWith(".png")) return "image/png";
-        if (imageUrl.toLowerCase().endsWith(".gif")) return "image/gif";
-        if (imageUrl.toLowerCase().endsWith(".bmp")) return "image/bmp";
-        if (imageUrl.toLowerCase().endsWith(".webp")) return "image/webp";
-
-        return "image/jpeg";
-    }
 }
@@ -0,0 +1,120 @@
+package ru.test.congratulations.controller.job;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.test.congratulations.entity.request.BulkFriendRequest;
+import ru.test.congratulations.service.importer.ImportFormat;
+import ru.test.congratulations.service.job.BulkJobService;
+import ru.test.congratulations.service.job.JobStatus;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Массовые операции над друзьями. Каждая операция ставится фоновой задачей,
+ * ответ 202 содержит ее состояние и ссылку для опроса прогресса
+ */
+@RestController
+@RequestMapping("/api/jobs")
+public class JobApiController {
+    private static final long STREAM_TIMEOUT_MILLIS = 30 * 60 * 1000L;
+
+    private final BulkJobService bulkJobService;
+
+    public JobApiController(BulkJobService bulkJobService) {
+        this.bulkJobService = bulkJobService;
+    }
+
+    @PostMapping("/seed")
+    public ResponseEntity<?> seed(@RequestParam(defaultValue = "10") int count) {
+        try {
+            return accepted(bulkJobService.submitSeed(count));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/import")
+    public ResponseEntity<?> importFriends(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) throws IOException {
+
+        ImportFormat importFormat;
+        try {
+            importFormat = ImportFormat.resolve(format, file.getOriginalFilename());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+        return accepted(bulkJobService.submitImport(file, importFormat));
+    }
+
+    @PostMapping("/delete")
+    public ResponseEntity<?> deleteFriends(@RequestBody BulkFriendRequest request) {
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Список друзей не может быть пустым"));
+        }
+        try {
+            return accepted(bulkJobService.submitDelete(request.getIds()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @PostMapping("/update")
+    public ResponseEntity<?> updateFriends(@RequestBody BulkFriendRequest request) {
+        if (request.getIds() == null || request.getIds().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Список друзей не может быть пустым"));
+        }
+        try {
+            return accepted(bulkJobService.submitUpdate(request.getIds(), request.getDescription()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<JobStatus> getStatus(@PathVariable UUID jobId) {
+        return bulkJobService.getStatus(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Поток событий Server-Sent Events с состоянием задачи после каждого пакета.
+     * Поток закрывается, когда задача завершена
+     */
+    @GetMapping(value = "/{jobId}/stream", produces = "text/event-stream")
+    public ResponseEntity<SseEmitter> streamStatus(@PathVariable UUID jobId) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MILLIS);
+        Consumer<JobStatus> listener = status -> {
+            try {
+                emitter.send(SseEmitter.event().name("progress").data(status));
+                if (status.state().isFinished()) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                // клиент отключился, BulkJob отпишет слушателя
+                throw new IllegalStateException(e);
+            }
+        };
+        emitter.onCompletion(() -> bulkJobService.unsubscribe(jobId, listener));
+        emitter.onTimeout(() -> bulkJobService.unsubscribe(jobId, listener));
+
+        if (!bulkJobService.subscribe(jobId, listener)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    private ResponseEntity<JobStatus> accepted(JobStatus job) {
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.id()))
+                .body(job);
+    }
+}
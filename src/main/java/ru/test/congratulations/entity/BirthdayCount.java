@@ -0,0 +1,85 @@
+package ru.test.congratulations.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Агрегат календаря: количество друзей пользователя с днем рождения в указанный день,
+ * родившихся в указанном году. Год нужен, чтобы не показывать друзей в годах до их рождения.
+ * Поддерживается в тех же транзакциях, что и изменения друзей
+ */
+@Entity
+@Table(name = "tbl_birthday_count")
+@IdClass(BirthdayCount.Key.class)
+public class BirthdayCount {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    /** Месяц и день в виде month * 100 + day, как в Friend.birthMonthDay */
+    @Id
+    @Column(name = "month_day")
+    private int monthDay;
+
+    @Id
+    @Column(name = "birth_year")
+    private int birthYear;
+
+    @Column(name = "friend_count", nullable = false)
+    private long friendCount;
+
+    public BirthdayCount() {
+    }
+
+    public BirthdayCount(Long userId, int monthDay, int birthYear, long friendCount) {
+        this.userId = userId;
+        this.monthDay = monthDay;
+        this.birthYear = birthYear;
+        this.friendCount = friendCount;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public int getMonthDay() {
+        return monthDay;
+    }
+
+    public int getBirthYear() {
+        return birthYear;
+    }
+
+    public long getFriendCount() {
+        return friendCount;
+    }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private int monthDay;
+        private int birthYear;
+
+        public Key() {
+        }
+
+        public Key(Long userId, int monthDay, int birthYear) {
+            this.userId = userId;
+            this.monthDay = monthDay;
+            this.birthYear = birthYear;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return monthDay == key.monthDay && birthYear == key.birthYear && Objects.equals(userId, key.userId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, monthDay, birthYear);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package ru.test.congratulations.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Запись о напоминании про день рождения друга в конкретную дату.
+ * Первичный ключ (friend_id, birthday_date) гарантирует, что за один день рождения
+ * напоминание создается один раз, сколько бы узлов и запусков планировщика его ни обработали.
+ * Ссылки на друга и пользователя хранятся без внешних ключей, как в агрегатах календаря,
+ * поэтому удаление друга не требует чистки напоминаний
+ */
+@Entity
+@Table(name = "tbl_birthday_reminder",
+        indexes = {
+                @Index(name = "idx_birthday_reminder_user_date", columnList = "user_id, birthday_date")
+        })
+@IdClass(BirthdayReminder.Key.class)
+public class BirthdayReminder {
+    @Id
+    @Column(name = "friend_id")
+    private Long friendId;
+
+    @Id
+    @Column(name = "birthday_date")
+    private LocalDate birthdayDate;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public BirthdayReminder() {
+    }
+
+    public Long getFriendId() {
+        return friendId;
+    }
+
+    public LocalDate getBirthdayDate() {
+        return birthdayDate;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public static class Key implements Serializable {
+        private Long friendId;
+        private LocalDate birthdayDate;
+
+        public Key() {
+        }
+
+        public Key(Long friendId, LocalDate birthdayDate) {
+            this.friendId = friendId;
+            this.birthdayDate = birthdayDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(friendId, key.friendId) && Objects.equals(birthdayDate, key.birthdayDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(friendId, birthdayDate);
+        }
+    }
+}
@@ -12,7 +12,8 @@ import java.time.LocalDateTime;
         })
 public class Congratulation {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "congratulation_seq")
+    @SequenceGenerator(name = "congratulation_seq", sequenceName = "tbl_congratulation_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "congratulation_date", nullable = false)
@@ -0,0 +1,67 @@
+package ru.test.congratulations.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Агрегат календаря: количество поздравлений пользователя за день.
+ * Поддерживается в той же транзакции, что и создание поздравления
+ */
+@Entity
+@Table(name = "tbl_congratulation_count")
+@IdClass(CongratulationCount.Key.class)
+public class CongratulationCount {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Id
+    @Column(name = "congratulation_date")
+    private LocalDate congratulationDate;
+
+    @Column(name = "congratulation_count", nullable = false)
+    private long congratulationCount;
+
+    public CongratulationCount() {
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public LocalDate getCongratulationDate() {
+        return congratulationDate;
+    }
+
+    public long getCongratulationCount() {
+        return congratulationCount;
+    }
+
+    public static class Key implements Serializable {
+        private Long userId;
+        private LocalDate congratulationDate;
+
+        public Key() {
+        }
+
+        public Key(Long userId, LocalDate congratulationDate) {
+            this.userId = userId;
+            this.congratulationDate = congratulationDate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key key)) return false;
+            return Objects.equals(userId, key.userId) && Objects.equals(congratulationDate, key.congratulationDate);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, congratulationDate);
+        }
+    }
+}
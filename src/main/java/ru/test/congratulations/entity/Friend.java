@@ -9,10 +9,15 @@ import java.time.LocalDateTime;
 @Table(name = "tbl_friends",
         uniqueConstraints = {
                 @UniqueConstraint(columnNames = {"FIO", "user_id"})
+        },
+        indexes = {
+                @Index(name = "idx_friends_user_birth_month_day", columnList = "user_id, birth_month_day, id"),
+                @Index(name = "idx_friends_birth_month_day", columnList = "birth_month_day, id")
         })
 public class Friend {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "friend_seq")
+    @SequenceGenerator(name = "friend_seq", sequenceName = "tbl_friends_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -24,12 +29,22 @@ public class Friend {
     @Column(name = "date_of_birth", nullable = false)
     private LocalDate dateOfBirth;
 
+    /**
+     * Месяц и день рождения в виде month * 100 + day (например, 1231 для 31 декабря).
+     * Нужен для сортировки по ближайшему дню рождения на стороне БД
+     */
+    @Column(name = "birth_month_day")
+    private Integer birthMonthDay;
+
     @Column
     private String description;
 
     @Column(name = "image_name")
     private String imageName;
 
+    @Column(name = "image_content_type")
+    private String imageContentType;
+
     @Column(name = "created_at")
     private final LocalDateTime createdAt;
 
@@ -47,7 +62,7 @@ public class Friend {
         this();
         this.fio = fio;
         this.email = email;
-        this.dateOfBirth = dateOfBirth;
+        setDateOfBirth(dateOfBirth);
         this.description = description;
     }
 
@@ -81,6 +96,13 @@ public class Friend {
 
     public void setDateOfBirth(LocalDate dateOfBirth) {
         this.dateOfBirth = dateOfBirth;
+        this.birthMonthDay = dateOfBirth != null
+                ? dateOfBirth.getMonthValue() * 100 + dateOfBirth.getDayOfMonth()
+                : null;
+    }
+
+    public Integer getBirthMonthDay() {
+        return birthMonthDay;
     }
 
     public String getDescription() {
@@ -99,6 +121,14 @@ public class Friend {
         this.imageName = imageName;
     }
 
+    public String getImageContentType() {
+        return imageContentType;
+    }
+
+    public void setImageContentType(String imageContentType) {
+        this.imageContentType = imageContentType;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
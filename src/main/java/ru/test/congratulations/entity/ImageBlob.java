@@ -0,0 +1,53 @@
+package ru.test.congratulations.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Файл изображения в хранилище с адресацией по содержимому.
+ * Один файл может использоваться несколькими друзьями, refCount хранит число ссылок на него
+ */
+@Entity
+@Table(name = "tbl_image_blob")
+public class ImageBlob {
+    /** SHA-256 содержимого в шестнадцатеричном виде */
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column
+    private long size;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    public ImageBlob() {
+    }
+
+    public String getHash() {
+        return hash;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.test.congratulations.entity;
+
+/**
+ * Вид уведомления в outbox
+ */
+public enum NotificationType {
+    /** Напоминание пользователю о дне рождения друга */
+    BIRTHDAY_REMINDER,
+    /** Поздравление, отправляемое другу на его email */
+    CONGRATULATION
+}
@@ -0,0 +1,112 @@
+package ru.test.congratulations.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Событие для отправки уведомления. Пишется в той же транзакции, что и изменение,
+ * которое его породило; текст уведомления собирается при отправке по userId и friendId.
+ * Идентификатор генерируется БД, потому что записи создаются и из нативных запросов
+ */
+@Entity
+@Table(name = "tbl_outbox",
+        indexes = {
+                @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at, id")
+        })
+public class OutboxMessage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private NotificationType type;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "friend_id")
+    private Long friendId;
+
+    @Column(name = "event_date")
+    private LocalDate eventDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    /** Момент, раньше которого сообщение не берется в отправку: время повтора или окончание аренды */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    public OutboxMessage() {
+    }
+
+    public OutboxMessage(NotificationType type, Long userId, Long friendId, LocalDate eventDate) {
+        this.type = type;
+        this.userId = userId;
+        this.friendId = friendId;
+        this.eventDate = eventDate;
+        this.status = OutboxStatus.PENDING;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = this.createdAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public NotificationType getType() {
+        return type;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getFriendId() {
+        return friendId;
+    }
+
+    public LocalDate getEventDate() {
+        return eventDate;
+    }
+
+    public OutboxStatus getStatus() {
+        return status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getSentAt() {
+        return sentAt;
+    }
+}
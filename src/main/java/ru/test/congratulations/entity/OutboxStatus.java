@@ -0,0 +1,11 @@
+package ru.test.congratulations.entity;
+
+public enum OutboxStatus {
+    /** Ожидает отправки (в том числе повторной) */
+    PENDING,
+    SENT,
+    /** Попытки отправки исчерпаны */
+    FAILED,
+    /** Отправлять некому или нечего: друг удален или у получателя нет email */
+    DISCARDED
+}
@@ -3,21 +3,31 @@ package ru.test.congratulations.entity;
 import jakarta.persistence.*;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import ru.test.congratulations.service.user.UserCacheEvictionListener;
 
 import java.time.LocalDateTime;
 import java.util.*;
 
 @Entity
-@Table(name = "tbl_user")
+@EntityListeners(UserCacheEvictionListener.class)
+@Table(name = "tbl_user",
+        uniqueConstraints = {
+                @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"),
+                @UniqueConstraint(name = User.LOGIN_CONSTRAINT, columnNames = "login")
+        })
 public class User implements UserDetails {
+    public static final String EMAIL_CONSTRAINT = "uk_user_email";
+    public static final String LOGIN_CONSTRAINT = "uk_user_login";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_seq")
+    @SequenceGenerator(name = "user_seq", sequenceName = "tbl_user_seq", allocationSize = 50)
     private Long id;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String login;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false)
     private String email;
 
     @Column(nullable = false)
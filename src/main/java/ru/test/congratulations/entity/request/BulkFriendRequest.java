@@ -0,0 +1,30 @@
+package ru.test.congratulations.entity.request;
+
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class BulkFriendRequest {
+    @NotEmpty(message = "Список друзей не может быть пустым")
+    private List<Long> ids;
+
+    private String description;
+
+    public BulkFriendRequest() {}
+
+    public List<Long> getIds() {
+        return ids;
+    }
+
+    public void setIds(List<Long> ids) {
+        this.ids = ids;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+}
@@ -6,16 +6,25 @@ import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDate;
 
 public class WriteFriendRequest {
-    @NotBlank(message = "Имя обязателен")
-    @Size(min = 4, message = "Имя должно состоять из 4 и более символов")
-    @Pattern(regexp = "^[\\p{IsLatin}\\p{IsCyrillic}]+$", message = "Поле [имя] может содержать только буквы")
+    public static final int FIO_MIN_LENGTH = 4;
+    public static final String FIO_PATTERN = "^[\\p{IsLatin}\\p{IsCyrillic}]+$";
+    public static final String FIO_REQUIRED_MESSAGE = "Имя обязателен";
+    public static final String FIO_LENGTH_MESSAGE = "Имя должно состоять из 4 и более символов";
+    public static final String FIO_PATTERN_MESSAGE = "Поле [имя] может содержать только буквы";
+    public static final String EMAIL_MESSAGE = "Некорректный формат email";
+    public static final String DATE_OF_BIRTH_REQUIRED_MESSAGE = "Дата рождения обязательна";
+    public static final String DATE_OF_BIRTH_FUTURE_MESSAGE = "Дата рождения не может быть в будущем";
+
+    @NotBlank(message = FIO_REQUIRED_MESSAGE)
+    @Size(min = FIO_MIN_LENGTH, message = FIO_LENGTH_MESSAGE)
+    @Pattern(regexp = FIO_PATTERN, message = FIO_PATTERN_MESSAGE)
     private String FIO;
 
-    @Email(message = "Некорректный формат email")
+    @Email(message = EMAIL_MESSAGE)
     private String email;
 
-    @NotNull(message = "Дата рождения обязательна")
-    @PastOrPresent(message = "Дата рождения не может быть в будущем")
+    @NotNull(message = DATE_OF_BIRTH_REQUIRED_MESSAGE)
+    @PastOrPresent(message = DATE_OF_BIRTH_FUTURE_MESSAGE)
     private LocalDate dateOfBirth;
 
     private String description;
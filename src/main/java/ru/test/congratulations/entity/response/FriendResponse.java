@@ -1,5 +1,6 @@
 package ru.test.congratulations.entity.response;
 
+import java.time.LocalDate;
 
 public class FriendResponse {
     private Long id;
@@ -20,6 +21,14 @@ public class FriendResponse {
                 "/api/friends/" + id + "/image" : null;
     }
 
+    /**
+     * Конструктор для проекций JPQL-запросов
+     */
+    public FriendResponse(Long id, String fio, String email, LocalDate birthDate,
+                          String description, String imageFilename) {
+        this(id, fio, email, birthDate.toString(), description, imageFilename);
+    }
+
     public Long getId() {
         return id;
     }
@@ -1,5 +1,6 @@
 package ru.test.congratulations.entity.response;
 
+import java.time.LocalDate;
 
 public class FriendWithCongResponse {
     private Long id;
@@ -19,6 +20,14 @@ public class FriendWithCongResponse {
                 "/api/friends/" + id + "/image" : null;
     }
 
+    /**
+     * Конструктор для проекций JPQL-запросов
+     */
+    public FriendWithCongResponse(Long id, String fio, String email, LocalDate birthDate, Boolean cong,
+                                  String imageFilename) {
+        this(id, fio, email, birthDate.toString(), cong, imageFilename);
+    }
+
     public Long getId() {
         return id;
     }
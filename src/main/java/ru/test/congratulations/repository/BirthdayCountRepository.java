@@ -0,0 +1,107 @@
+package ru.test.congratulations.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+import ru.test.congratulations.entity.BirthdayCount;
+
+import java.util.List;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface BirthdayCountRepository extends CrudRepository<BirthdayCount, BirthdayCount.Key> {
+
+    /**
+     * Атомарно изменяет счетчик на delta, создавая строку при ее отсутствии
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tbl_birthday_count (user_id, month_day, birth_year, friend_count) " +
+            "VALUES (:userId, :monthDay, :birthYear, :delta) " +
+            "ON CONFLICT (user_id, month_day, birth_year) " +
+            "DO UPDATE SET friend_count = tbl_birthday_count.friend_count + EXCLUDED.friend_count",
+            nativeQuery = true)
+    void increment(@Param("userId") Long userId,
+                   @Param("monthDay") int monthDay,
+                   @Param("birthYear") int birthYear,
+                   @Param("delta") long delta);
+
+    @Modifying
+    @Query("DELETE FROM BirthdayCount b WHERE b.userId = :userId AND b.monthDay = :monthDay " +
+            "AND b.birthYear = :birthYear AND b.friendCount <= 0")
+    int deleteIfEmpty(@Param("userId") Long userId,
+                      @Param("monthDay") int monthDay,
+                      @Param("birthYear") int birthYear);
+
+    /**
+     * Строки агрегата с днями в диапазоне [fromMonthDay; toMonthDay]
+     */
+    @Query("SELECT b FROM BirthdayCount b WHERE b.userId = :userId " +
+            "AND b.monthDay BETWEEN :fromMonthDay AND :toMonthDay")
+    List<BirthdayCount> findInRange(@Param("userId") Long userId,
+                                    @Param("fromMonthDay") int fromMonthDay,
+                                    @Param("toMonthDay") int toMonthDay);
+
+    /**
+     * Строки агрегата для диапазона, переходящего через конец года:
+     * дни от fromMonthDay до 31 декабря и от 1 января до toMonthDay одним запросом
+     */
+    @Query("SELECT b FROM BirthdayCount b WHERE b.userId = :userId " +
+            "AND (b.monthDay >= :fromMonthDay OR b.monthDay <= :toMonthDay)")
+    List<BirthdayCount> findInWrappedRange(@Param("userId") Long userId,
+                                           @Param("fromMonthDay") int fromMonthDay,
+                                           @Param("toMonthDay") int toMonthDay);
+
+    /**
+     * Разделяемая блокировка агрегатов календаря пользователя до конца транзакции:
+     * изменения счетчиков не мешают друг другу, но ждут пересчета пользователя и полного пересчета.
+     * Общая блокировка берется раньше блокировки пользователя: LATERAL вычисляется после нее
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock_shared(hashtext('calendar:*')) a, " +
+            "LATERAL (SELECT pg_advisory_xact_lock_shared(hashtext('calendar:' || :userId))) u", nativeQuery = true)
+    int lockUserShared(@Param("userId") Long userId);
+
+    /**
+     * Исключительная блокировка агрегатов календаря пользователя до конца транзакции.
+     * Общая блокировка берется разделяемой: пересчеты разных пользователей идут параллельно, но ждут полного пересчета
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock_shared(hashtext('calendar:*')) a, " +
+            "LATERAL (SELECT pg_advisory_xact_lock(hashtext('calendar:' || :userId))) u", nativeQuery = true)
+    int lockUser(@Param("userId") Long userId);
+
+    /**
+     * Исключительная блокировка агрегатов календаря всех пользователей до конца транзакции
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext('calendar:*'))", nativeQuery = true)
+    int lockAll();
+
+    @Modifying
+    @Query("DELETE FROM BirthdayCount b WHERE b.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO tbl_birthday_count (user_id, month_day, birth_year, friend_count) " +
+            "SELECT f.user_id, " +
+            "EXTRACT(MONTH FROM f.date_of_birth) * 100 + EXTRACT(DAY FROM f.date_of_birth), " +
+            "EXTRACT(YEAR FROM f.date_of_birth), COUNT(*) " +
+            "FROM tbl_friends f WHERE f.user_id = :userId GROUP BY 1, 2, 3 " +
+            "ON CONFLICT (user_id, month_day, birth_year) DO UPDATE SET friend_count = EXCLUDED.friend_count",
+            nativeQuery = true)
+    int rebuildForUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM tbl_birthday_count", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO tbl_birthday_count (user_id, month_day, birth_year, friend_count) " +
+            "SELECT f.user_id, " +
+            "EXTRACT(MONTH FROM f.date_of_birth) * 100 + EXTRACT(DAY FROM f.date_of_birth), " +
+            "EXTRACT(YEAR FROM f.date_of_birth), COUNT(*) " +
+            "FROM tbl_friends f WHERE f.user_id IS NOT NULL GROUP BY 1, 2, 3 " +
+            "ON CONFLICT (user_id, month_day, birth_year) DO UPDATE SET friend_count = EXCLUDED.friend_count",
+            nativeQuery = true)
+    int rebuildAll();
+}
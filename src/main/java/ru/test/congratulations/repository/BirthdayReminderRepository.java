@@ -0,0 +1,50 @@
+package ru.test.congratulations.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+import ru.test.congratulations.entity.BirthdayReminder;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface BirthdayReminderRepository extends CrudRepository<BirthdayReminder, BirthdayReminder.Key> {
+
+    /**
+     * Забирает до limit друзей всех пользователей с днем рождения в один из monthDays,
+     * для которых еще нет напоминания на birthdayDate, и создает им напоминания вместе с
+     * событиями в outbox для отправки тем же оператором, то есть в одной транзакции.
+     * Строки друзей блокируются с SKIP LOCKED: параллельные обработчики на других узлах
+     * пропускают уже взятые пакеты, а не ждут их. Возвращает количество созданных напоминаний,
+     * 0 означает, что необработанных друзей на эту дату не осталось
+     */
+    @Modifying
+    @Query(value = "WITH due AS (" +
+            "SELECT f.id, f.user_id FROM tbl_friends f " +
+            "WHERE f.birth_month_day IN (:monthDays) AND f.user_id IS NOT NULL " +
+            "AND f.date_of_birth <= :birthdayDate " +
+            "AND NOT EXISTS (SELECT 1 FROM tbl_birthday_reminder r " +
+            "WHERE r.friend_id = f.id AND r.birthday_date = :birthdayDate) " +
+            "ORDER BY f.birth_month_day, f.id LIMIT :limit " +
+            "FOR UPDATE OF f SKIP LOCKED), " +
+            "reminded AS (" +
+            "INSERT INTO tbl_birthday_reminder (friend_id, birthday_date, user_id, created_at) " +
+            "SELECT due.id, :birthdayDate, due.user_id, now() FROM due " +
+            "ON CONFLICT (friend_id, birthday_date) DO NOTHING " +
+            "RETURNING friend_id, user_id) " +
+            "INSERT INTO tbl_outbox (type, user_id, friend_id, event_date, " +
+            "status, attempts, next_attempt_at, created_at) " +
+            "SELECT 'BIRTHDAY_REMINDER', reminded.user_id, reminded.friend_id, :birthdayDate, " +
+            "'PENDING', 0, now(), now() FROM reminded",
+            nativeQuery = true)
+    int claimDue(@Param("monthDays") Collection<Integer> monthDays,
+                 @Param("birthdayDate") LocalDate birthdayDate,
+                 @Param("limit") int limit);
+
+    long countByBirthdayDate(LocalDate birthdayDate);
+}
@@ -0,0 +1,63 @@
+package ru.test.congratulations.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+import ru.test.congratulations.entity.CongratulationCount;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface CongratulationCountRepository extends CrudRepository<CongratulationCount, CongratulationCount.Key> {
+
+    /**
+     * Атомарно изменяет счетчик на delta, создавая строку при ее отсутствии
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tbl_congratulation_count (user_id, congratulation_date, congratulation_count) " +
+            "VALUES (:userId, :date, :delta) " +
+            "ON CONFLICT (user_id, congratulation_date) " +
+            "DO UPDATE SET congratulation_count = " +
+            "tbl_congratulation_count.congratulation_count + EXCLUDED.congratulation_count",
+            nativeQuery = true)
+    void increment(@Param("userId") Long userId,
+                   @Param("date") LocalDate date,
+                   @Param("delta") long delta);
+
+    @Query("SELECT c FROM CongratulationCount c WHERE c.userId = :userId " +
+            "AND c.congratulationDate BETWEEN :startDate AND :endDate")
+    List<CongratulationCount> findInRange(@Param("userId") Long userId,
+                                          @Param("startDate") LocalDate startDate,
+                                          @Param("endDate") LocalDate endDate);
+
+    @Modifying
+    @Query("DELETE FROM CongratulationCount c WHERE c.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO tbl_congratulation_count (user_id, congratulation_date, congratulation_count) " +
+            "SELECT c.user_id, c.congratulation_date, COUNT(*) FROM tbl_congratulation c " +
+            "WHERE c.user_id = :userId GROUP BY 1, 2 " +
+            "ON CONFLICT (user_id, congratulation_date) " +
+            "DO UPDATE SET congratulation_count = EXCLUDED.congratulation_count",
+            nativeQuery = true)
+    int rebuildForUser(@Param("userId") Long userId);
+
+    @Modifying
+    @Query(value = "DELETE FROM tbl_congratulation_count", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO tbl_congratulation_count (user_id, congratulation_date, congratulation_count) " +
+            "SELECT c.user_id, c.congratulation_date, COUNT(*) FROM tbl_congratulation c " +
+            "WHERE c.user_id IS NOT NULL GROUP BY 1, 2 " +
+            "ON CONFLICT (user_id, congratulation_date) " +
+            "DO UPDATE SET congratulation_count = EXCLUDED.congratulation_count",
+            nativeQuery = true)
+    int rebuildAll();
+}
@@ -1,18 +1,52 @@
 package ru.test.congratulations.repository;
 
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
 import ru.test.congratulations.entity.Congratulation;
+import ru.test.congratulations.repository.projection.DateCount;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 @RepositoryRestResource(path = "congratulation")
 public interface CongratulationRepository extends CrudRepository<Congratulation, Long> {
 
+    /**
+     * Запись идет только через {@link ru.test.congratulations.service.CongratulationService}:
+     * он обновляет агрегаты календаря
+     */
+    @RestResource(exported = false)
+    @Override
+    <S extends Congratulation> S save(S entity);
+
+    @RestResource(exported = false)
+    @Override
+    void deleteById(Long id);
+
+    @RestResource(exported = false)
+    @Override
+    void delete(Congratulation entity);
+
     Optional<Congratulation> findByCongratulationDateAndFriendId (LocalDate congratulationDate, Long friendId);
 
     long countByCongratulationDateAndUserId(LocalDate congratulationDate, Long userId);
+
+    /**
+     * Возвращает количество поздравлений пользователя по датам в диапазоне одним запросом.
+     * Даты без поздравлений в результат не попадают.
+     */
+    @RestResource(exported = false)
+    @Query("SELECT c.congratulationDate AS date, COUNT(c) AS count FROM Congratulation c " +
+            "WHERE c.user.id = :userId " +
+            "AND c.congratulationDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY c.congratulationDate")
+    List<DateCount> countGroupedByDate(@Param("startDate") LocalDate startDate,
+                                       @Param("endDate") LocalDate endDate,
+                                       @Param("userId") Long userId);
 }
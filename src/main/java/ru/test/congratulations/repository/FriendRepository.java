@@ -1,20 +1,44 @@
 package ru.test.congratulations.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
 import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.entity.response.FriendResponse;
+import ru.test.congratulations.entity.response.FriendWithCongResponse;
+import ru.test.congratulations.repository.projection.FriendBirthday;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 @RepositoryRestResource(path = "friend")
 public interface FriendRepository extends CrudRepository<Friend, Long> {
+
+    /**
+     * Запись идет только через {@link ru.test.congratulations.service.FriendService}:
+     * он обновляет индекс дней рождения и агрегаты календаря
+     */
+    @RestResource(exported = false)
+    @Override
+    <S extends Friend> S save(S entity);
+
+    @RestResource(exported = false)
+    @Override
+    void deleteById(Long id);
+
+    @RestResource(exported = false)
+    @Override
+    void delete(Friend entity);
+
     Optional<Friend> findByEmail(String email);
 
     @Query("SELECT f FROM Friend f WHERE f.user.id = :userId " +
@@ -27,5 +51,153 @@ public interface FriendRepository extends CrudRepository<Friend, Long> {
                                              @Param("year") int year,
                                              @Param("userId") Long userId);
 
+    @RestResource(exported = false)
+    @Query("SELECT f.id AS id, f.dateOfBirth AS dateOfBirth FROM Friend f WHERE f.user.id = :userId")
+    List<FriendBirthday> findBirthdaysByUserId(@Param("userId") Long userId);
+
     List<Friend> findByUserId(Long userId);
+
+    @RestResource(exported = false)
+    @Query("SELECT f.fio FROM Friend f WHERE f.user.id = :userId")
+    List<String> findFioByUserId(@Param("userId") Long userId);
+
+    /**
+     * Возвращает именинников указанного дня вместе с признаком поздравления в этот день одним запросом
+     */
+    @RestResource(exported = false)
+    @Query("SELECT new ru.test.congratulations.entity.response.FriendWithCongResponse(" +
+            "f.id, f.fio, f.email, f.dateOfBirth, " +
+            "CASE WHEN c.id IS NULL THEN false ELSE true END, f.imageName) " +
+            "FROM Friend f LEFT JOIN Congratulation c " +
+            "ON c.friend = f AND c.congratulationDate = :date " +
+            "WHERE f.user.id = :userId " +
+            "AND f.birthMonthDay = :monthDay " +
+            "AND EXTRACT(YEAR FROM f.dateOfBirth) <= :year " +
+            "ORDER BY f.dateOfBirth")
+    List<FriendWithCongResponse> findWithCongratulationByDate(@Param("date") LocalDate date,
+                                                              @Param("monthDay") int monthDay,
+                                                              @Param("year") int year,
+                                                              @Param("userId") Long userId);
+
+    /**
+     * Страница друзей для постраничной выборки по ключу (birthMonthDay, id).
+     * Выбираются друзья с birthMonthDay в полуинтервале [fromMonthDay; toMonthDay),
+     * идущие строго после курсора (afterMonthDay, afterId)
+     */
+    @RestResource(exported = false)
+    @Query("SELECT new ru.test.congratulations.entity.response.FriendResponse(" +
+            "f.id, f.fio, f.email, f.dateOfBirth, f.description, f.imageName) " +
+            "FROM Friend f WHERE f.user.id = :userId " +
+            "AND f.birthMonthDay >= :fromMonthDay AND f.birthMonthDay < :toMonthDay " +
+            "AND (f.birthMonthDay > :afterMonthDay " +
+            "OR (f.birthMonthDay = :afterMonthDay AND f.id > :afterId)) " +
+            "ORDER BY f.birthMonthDay, f.id")
+    List<FriendResponse> findUpcomingPage(@Param("userId") Long userId,
+                                          @Param("fromMonthDay") int fromMonthDay,
+                                          @Param("toMonthDay") int toMonthDay,
+                                          @Param("afterMonthDay") int afterMonthDay,
+                                          @Param("afterId") long afterId,
+                                          Limit limit);
+
+    /**
+     * Возвращает друга сразу в виде ответа API, не загружая сущность в контекст персистентности
+     */
+    @RestResource(exported = false)
+    @Query("SELECT new ru.test.congratulations.entity.response.FriendResponse(" +
+            "f.id, f.fio, f.email, f.dateOfBirth, f.description, f.imageName) " +
+            "FROM Friend f WHERE f.id = :id")
+    Optional<FriendResponse> findResponseById(@Param("id") Long id);
+
+    /**
+     * Возвращает друзей с указанными идентификаторами в виде ответов API одним запросом
+     */
+    @RestResource(exported = false)
+    @Query("SELECT new ru.test.congratulations.entity.response.FriendResponse(" +
+            "f.id, f.fio, f.email, f.dateOfBirth, f.description, f.imageName) " +
+            "FROM Friend f WHERE f.id IN :ids")
+    List<FriendResponse> findResponsesByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Оставляет из переданных идентификаторов только принадлежащие пользователю
+     */
+    @RestResource(exported = false)
+    @Query("SELECT f.id FROM Friend f WHERE f.user.id = :userId AND f.id IN :ids")
+    List<Long> findOwnedIds(@Param("userId") Long userId, @Param("ids") List<Long> ids);
+
+    /**
+     * Заменяет описание у друзей пользователя одним запросом
+     * @return количество измененных записей
+     */
+    @RestResource(exported = false)
+    @Modifying
+    @Query("UPDATE Friend f SET f.description = :description WHERE f.user.id = :userId AND f.id IN :ids")
+    int updateDescription(@Param("userId") Long userId,
+                          @Param("ids") List<Long> ids,
+                          @Param("description") String description);
+
+    /**
+     * Заполняет birthMonthDay у записей, созданных до появления колонки
+     */
+    @RestResource(exported = false)
+    @Modifying
+    @Query("UPDATE Friend f SET f.birthMonthDay = " +
+            "EXTRACT(MONTH FROM f.dateOfBirth) * 100 + EXTRACT(DAY FROM f.dateOfBirth) " +
+            "WHERE f.birthMonthDay IS NULL")
+    int fillMissingBirthMonthDay();
+
+    /**
+     * Первая ступень поиска: друзья, у которых fio или email начинается с запроса.
+     * Сначала совпадения по fio, затем по email, внутри ступени по алфавиту.
+     * Префикс задается диапазоном [prefixFrom; prefixTo) в порядке "C", а не шаблоном LIKE:
+     * диапазон использует idx_friends_fio_prefix и idx_friends_email_prefix и в общем плане подготовленного запроса
+     * @param prefixFrom запрос в нижнем регистре
+     * @param prefixTo запрос с увеличенным на единицу последним символом
+     */
+    @RestResource(exported = false)
+    @Query(value = "SELECT s.* FROM (" +
+            "(SELECT f.*, 1 AS search_tier, lower(f.fio) COLLATE \"C\" AS search_key " +
+            "FROM tbl_friends f WHERE f.user_id = :userId " +
+            "AND lower(f.fio) COLLATE \"C\" >= :prefixFrom AND lower(f.fio) COLLATE \"C\" < :prefixTo " +
+            "ORDER BY lower(f.fio) COLLATE \"C\", f.id LIMIT :limit) " +
+            "UNION ALL " +
+            "(SELECT f.*, 2, lower(f.email) COLLATE \"C\" FROM tbl_friends f WHERE f.user_id = :userId " +
+            "AND lower(f.email) COLLATE \"C\" >= :prefixFrom AND lower(f.email) COLLATE \"C\" < :prefixTo " +
+            "ORDER BY lower(f.email) COLLATE \"C\", f.id LIMIT :limit)" +
+            ") s ORDER BY s.search_tier, s.search_key COLLATE \"C\", s.id LIMIT :limit",
+            nativeQuery = true)
+    List<Friend> searchByPrefix(@Param("userId") Long userId,
+                                @Param("prefixFrom") String prefixFrom,
+                                @Param("prefixTo") String prefixTo,
+                                @Param("limit") int limit);
+
+    /**
+     * Вторая ступень поиска: друзья, в чьем fio есть слово, похожее на запрос с учетом опечаток, ближайшие первыми.
+     * Кандидатов отбирает idx_friends_search_trgm по порогу pg_trgm.word_similarity_threshold.
+     * Короткий запрос с частыми триграммами проходит порог у тысяч строк, поэтому сортируются
+     * только первые 200 кандидатов: ближайшие среди них, а не среди всех, зато время запроса ограничено
+     * @param query запрос в нижнем регистре, не короче трех символов
+     */
+    @RestResource(exported = false)
+    @Query(value = "SELECT k.* FROM (" +
+            "SELECT f.* FROM tbl_friends f WHERE f.user_id = :userId AND :query <% lower(f.fio) LIMIT 200" +
+            ") k ORDER BY :query <<-> lower(k.fio), k.id LIMIT :limit",
+            nativeQuery = true)
+    List<Friend> searchBySimilarity(@Param("userId") Long userId,
+                                    @Param("query") String query,
+                                    @Param("limit") int limit);
+
+    /**
+     * Третья ступень поиска: запрос встречается внутри fio, email или description.
+     * Использует триграммный индекс idx_friends_search_trgm,
+     * поэтому имеет смысл только для запросов не короче трех символов
+     * @param contains шаблон LIKE "%query%" с экранированными спецсимволами
+     */
+    @RestResource(exported = false)
+    @Query(value = "SELECT f.* FROM tbl_friends f WHERE f.user_id = :userId " +
+            "AND (lower(f.fio) LIKE :contains OR lower(f.email) LIKE :contains " +
+            "OR lower(f.description) LIKE :contains) LIMIT :limit",
+            nativeQuery = true)
+    List<Friend> searchByContaining(@Param("userId") Long userId,
+                                    @Param("contains") String contains,
+                                    @Param("limit") int limit);
 }
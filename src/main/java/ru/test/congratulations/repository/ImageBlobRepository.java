@@ -0,0 +1,47 @@
+package ru.test.congratulations.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+import ru.test.congratulations.entity.ImageBlob;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface ImageBlobRepository extends CrudRepository<ImageBlob, String> {
+
+    /**
+     * Блокирует хеш до конца транзакции. Берется перед изменением счетчика и перед удалением файла,
+     * чтобы удаление файла не пересеклось с повторной загрузкой того же содержимого.
+     * Рекомендательная блокировка нужна потому, что записи для нового хеша еще нет
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(hashtext(:hash))", nativeQuery = true)
+    int lock(@Param("hash") String hash);
+
+    /**
+     * Регистрирует новую ссылку на файл: создает запись с refCount = 1
+     * или атомарно увеличивает счетчик существующей
+     */
+    @Modifying
+    @Query(value = "INSERT INTO tbl_image_blob (hash, ref_count, content_type, size, created_at) " +
+            "VALUES (:hash, 1, :contentType, :size, now()) " +
+            "ON CONFLICT (hash) DO UPDATE SET ref_count = tbl_image_blob.ref_count + 1",
+            nativeQuery = true)
+    void acquire(@Param("hash") String hash,
+                 @Param("contentType") String contentType,
+                 @Param("size") long size);
+
+    @Modifying
+    @Query("UPDATE ImageBlob b SET b.refCount = b.refCount - 1 WHERE b.hash = :hash")
+    int release(@Param("hash") String hash);
+
+    /**
+     * Удаляет запись, если на файл больше никто не ссылается
+     * @return 1, если запись удалена
+     */
+    @Modifying
+    @Query("DELETE FROM ImageBlob b WHERE b.hash = :hash AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("hash") String hash);
+}
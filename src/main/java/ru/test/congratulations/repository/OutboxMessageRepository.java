@@ -0,0 +1,61 @@
+package ru.test.congratulations.repository;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.stereotype.Repository;
+import ru.test.congratulations.entity.OutboxMessage;
+import ru.test.congratulations.entity.OutboxStatus;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RepositoryRestResource(exported = false)
+public interface OutboxMessageRepository extends CrudRepository<OutboxMessage, Long> {
+
+    /**
+     * Идентификаторы готовых к отправке сообщений. Строки блокируются с SKIP LOCKED,
+     * поэтому диспетчеры на разных узлах получают непересекающиеся пакеты
+     */
+    @Query(value = "SELECT o.id FROM tbl_outbox o " +
+            "WHERE o.status = 'PENDING' AND o.next_attempt_at <= :now " +
+            "ORDER BY o.next_attempt_at, o.id LIMIT :limit " +
+            "FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    /**
+     * Откладывает сообщения до leaseUntil на время отправки: если узел упадет,
+     * не дождавшись результата, сообщения снова станут доступны после окончания аренды
+     */
+    @Modifying
+    @Query("UPDATE OutboxMessage o SET o.nextAttemptAt = :leaseUntil, o.attempts = o.attempts + 1 " +
+            "WHERE o.id IN :ids")
+    int lease(@Param("ids") Collection<Long> ids, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage o SET o.status = :status, o.sentAt = :sentAt, o.lastError = NULL " +
+            "WHERE o.id IN :ids")
+    int complete(@Param("ids") Collection<Long> ids,
+                 @Param("status") OutboxStatus status,
+                 @Param("sentAt") LocalDateTime sentAt);
+
+    @Modifying
+    @Query("UPDATE OutboxMessage o SET o.status = :status, o.nextAttemptAt = :nextAttemptAt, " +
+            "o.lastError = :error WHERE o.id = :id")
+    int fail(@Param("id") Long id,
+             @Param("status") OutboxStatus status,
+             @Param("nextAttemptAt") LocalDateTime nextAttemptAt,
+             @Param("error") String error);
+
+    @Modifying
+    @Query("DELETE FROM OutboxMessage o WHERE o.status IN :statuses AND o.createdAt < :threshold")
+    int deleteFinishedBefore(@Param("statuses") Collection<OutboxStatus> statuses,
+                             @Param("threshold") LocalDateTime threshold);
+
+    long countByStatus(OutboxStatus status);
+}
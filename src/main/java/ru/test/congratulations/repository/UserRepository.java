@@ -1,10 +1,15 @@
 package ru.test.congratulations.repository;
 
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.stereotype.Repository;
 import ru.test.congratulations.entity.User;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,7 +19,20 @@ public interface UserRepository extends CrudRepository<User, Long> {
 
     Optional<User> findByLogin(String login);
 
+    /**
+     * Пользователи, у которых логин или email совпадает с username.
+     * Один запрос по двум уникальным индексам вместо выбора метода по формату строки
+     */
+    @RestResource(exported = false)
+    @Query("SELECT u FROM User u WHERE u.login = :username OR u.email = :username")
+    List<User> findAllByLoginOrEmail(@Param("username") String username);
+
     boolean existsByEmail(String email);
 
     boolean existsByLogin(String login);
+
+    @RestResource(exported = false)
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id")
+    int updatePassword(@Param("id") Long id, @Param("password") String password);
 }
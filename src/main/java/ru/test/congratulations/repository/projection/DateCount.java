@@ -0,0 +1,12 @@
+package ru.test.congratulations.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Количество записей, сгруппированных по дате
+ */
+public interface DateCount {
+    LocalDate getDate();
+
+    Long getCount();
+}
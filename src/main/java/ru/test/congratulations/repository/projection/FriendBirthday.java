@@ -0,0 +1,12 @@
+package ru.test.congratulations.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * Идентификатор друга и его дата рождения без загрузки всей сущности
+ */
+public interface FriendBirthday {
+    Long getId();
+
+    LocalDate getDateOfBirth();
+}
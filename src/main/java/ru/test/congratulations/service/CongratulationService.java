@@ -14,4 +14,11 @@ public interface CongratulationService {
     Congratulation createFriendCongratulation(@Valid CreateCongratulationRequest request);
 
     Map<String, Long> countByDateRange(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Подсчитывает количество поздравлений авторизованного пользователя в заданный день
+     * @param date дата поздравления
+     * @return количество поздравлений
+     */
+    Long countByDate(LocalDate date);
 }
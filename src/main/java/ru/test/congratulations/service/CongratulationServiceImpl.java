@@ -1,12 +1,17 @@
 package ru.test.congratulations.service;
 
+import io.micrometer.observation.annotation.Observed;
+import jakarta.transaction.Transactional;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.stereotype.Service;
 import ru.test.congratulations.entity.Congratulation;
 import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.entity.NotificationType;
 import ru.test.congratulations.entity.User;
 import ru.test.congratulations.entity.request.CreateCongratulationRequest;
 import ru.test.congratulations.repository.CongratulationRepository;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.service.notification.OutboxService;
 import ru.test.congratulations.service.user.UserService;
 
 import java.time.LocalDate;
@@ -14,21 +19,29 @@ import java.time.format.DateTimeFormatter;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+@Observed(name = "app.service")
 @Service
 public class CongratulationServiceImpl implements CongratulationService {
     private final CongratulationRepository congratulationRepository;
     private final UserService userService;
     private final FriendService friendService;
+    private final CalendarAggregateService calendarAggregateService;
+    private final OutboxService outboxService;
     private final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     public CongratulationServiceImpl(CongratulationRepository congratulationRepository,
-                                     UserService userService, FriendService friendService) {
+                                     UserService userService, FriendService friendService,
+                                     CalendarAggregateService calendarAggregateService,
+                                     OutboxService outboxService) {
         this.congratulationRepository = congratulationRepository;
         this.userService = userService;
         this.friendService = friendService;
+        this.calendarAggregateService = calendarAggregateService;
+        this.outboxService = outboxService;
     }
 
     @Override
+    @Transactional
     public Congratulation createFriendCongratulation(CreateCongratulationRequest request) {
         Friend friend = friendService.getFriend(request.getFriendId());
         if (congratulationRepository.findByCongratulationDateAndFriendId(request.getCongratulationDate(),
@@ -39,7 +52,14 @@ public class CongratulationServiceImpl implements CongratulationService {
         User user = userService.getAuthUser().orElseThrow(() ->
                 new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
         cong.setUser(user);
-        return congratulationRepository.save(cong);
+        Congratulation saved = congratulationRepository.save(cong);
+        calendarAggregateService.onCongratulationCreated(user.getId(), saved.getCongratulationDate());
+        // Письмо другу отправит диспетчер outbox, запрос платит только за вставку события
+        if (friend.getEmail() != null && !friend.getEmail().isBlank()) {
+            outboxService.enqueue(NotificationType.CONGRATULATION, user.getId(), friend.getId(),
+                    saved.getCongratulationDate());
+        }
+        return saved;
     }
 
     @Override
@@ -55,6 +75,7 @@ public class CongratulationServiceImpl implements CongratulationService {
      * @return Map, где ключ - строка с датой в формате "yyyy-MM-dd",
      *         значение - количество встреч в этот день
      */
+    @Override
     public Map<String, Long> countByDateRange(LocalDate startDate, LocalDate endDate) {
         // Валидация входных параметров
         if (startDate == null || endDate == null) {
@@ -65,21 +86,17 @@ public class CongratulationServiceImpl implements CongratulationService {
             throw new IllegalArgumentException("Начальная дата не может быть позже конечной");
         }
 
-        Map<String, Long> result = new LinkedHashMap<>();
-        LocalDate currentDate = startDate;
         User user = userService.getAuthUser().orElseThrow(() ->
                 new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
 
-        // Проходим по всем дням в диапазоне
-        while (!currentDate.isAfter(endDate)) {
-            // Получаем количество встреч на текущую дату
-            long count = congratulationRepository.countByCongratulationDateAndUserId(currentDate, user.getId());
-
-            // Преобразуем дату в строку и добавляем в результат
-            String dateKey = currentDate.format(DATE_FORMATTER);
-            result.put(dateKey, count);
+        // Один запрос к агрегату календаря на весь диапазон
+        Map<LocalDate, Long> counts = calendarAggregateService.countCongratulations(user.getId(), startDate, endDate);
 
-            // Переходим к следующему дню
+        // Дополняем нулями дни без поздравлений
+        Map<String, Long> result = new LinkedHashMap<>();
+        LocalDate currentDate = startDate;
+        while (!currentDate.isAfter(endDate)) {
+            result.put(currentDate.format(DATE_FORMATTER), counts.getOrDefault(currentDate, 0L));
             currentDate = currentDate.plusDays(1);
         }
 
@@ -88,6 +105,12 @@ public class CongratulationServiceImpl implements CongratulationService {
 
     @Override
     public Long countByDate(LocalDate date) {
-        return 0L;
+        if (date == null) {
+            throw new IllegalArgumentException("Дата не может быть null");
+        }
+
+        User user = userService.getAuthUser().orElseThrow(() ->
+                new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
+        return congratulationRepository.countByCongratulationDateAndUserId(date, user.getId());
     }
 }
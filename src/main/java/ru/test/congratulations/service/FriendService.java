@@ -5,10 +5,14 @@ import org.springframework.web.multipart.MultipartFile;
 import ru.test.congratulations.entity.Friend;
 import ru.test.congratulations.entity.request.WriteFriendRequest;
 import ru.test.congratulations.entity.response.FriendResponse;
+import ru.test.congratulations.entity.response.FriendWithCongResponse;
+import ru.test.congratulations.service.image.FriendImage;
+import ru.test.congratulations.service.image.ImageVariant;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 public interface FriendService {
@@ -27,13 +31,44 @@ public interface FriendService {
 
     ArrayList<FriendResponse> getByDate(LocalDate currentDate);
 
+    /**
+     * Возвращает именинников указанного дня с признаком того, поздравлены ли они в этот день
+     * @param date дата дня рождения
+     * @return список друзей с отметкой поздравления
+     */
+    List<FriendWithCongResponse> getByDateWithCongratulation(LocalDate date);
+
     Map<String, Object> getFriendsWithPaginate(int page, int size);
 
+    /**
+     * Возвращает друзей в порядке ближайшего дня рождения с постраничной выборкой по курсору
+     * @param cursor курсор из ответа на предыдущий запрос или null для первой страницы
+     * @param size размер страницы
+     * @return Map с ключами content, nextCursor (null на последней странице) и totalItems
+     */
+    Map<String, Object> getUpcomingFriends(String cursor, int size);
+
+    /**
+     * Ищет друзей текущего пользователя для автодополнения: по префиксу, подстроке
+     * в fio, email и описании, а также по похожести fio с учетом опечаток
+     * @param query строка поиска
+     * @param limit максимальное количество результатов
+     * @return лучшие совпадения, первыми идут совпадения fio по началу
+     */
+    List<FriendResponse> searchFriends(String query, int limit);
+
     void deleteFriend(Long friendId) throws IOException;
 
     Map<String, Long> countByDateRange(LocalDate startDate, LocalDate endDate);
 
-    byte[] getFriendImage(Long friendId) throws IOException;
+    /**
+     * Возвращает изображение друга для потоковой отдачи.
+     * Если уменьшенная копия еще не готова, возвращается оригинал
+     * @param friendId идентификатор друга
+     * @param variant запрошенный размер
+     * @return файл изображения и его MIME-тип
+     */
+    FriendImage getFriendImage(Long friendId, ImageVariant variant) throws IOException;
 
     Friend updateFriend(Long id, WriteFriendRequest request);
 }
@@ -1,46 +1,76 @@
 package ru.test.congratulations.service;
 
-import jakarta.transaction.Transactional;
-import org.springframework.beans.factory.annotation.Value;
+import io.micrometer.observation.annotation.Observed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.rest.webmvc.ResourceNotFoundException;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import jakarta.validation.Valid;
 
-import org.springframework.web.multipart.MultipartFile;
+import ru.test.congratulations.config.FriendSearchIndexRunner;
 import ru.test.congratulations.entity.Friend;
 import ru.test.congratulations.entity.User;
 import ru.test.congratulations.entity.request.WriteFriendRequest;
 import ru.test.congratulations.entity.response.FriendResponse;
+import ru.test.congratulations.entity.response.FriendWithCongResponse;
 import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.service.birthday.BirthdayIndex;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.service.image.FriendImage;
+import ru.test.congratulations.service.image.ImageFormat;
+import ru.test.congratulations.service.image.ImageCache;
+import ru.test.congratulations.service.image.ImageStorageService;
+import ru.test.congratulations.service.image.ImageVariant;
+import ru.test.congratulations.service.image.StoredImage;
+import ru.test.congratulations.service.image.ThumbnailService;
 import ru.test.congratulations.service.user.UserService;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.MonthDay;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 
+@Observed(name = "app.service")
 @Transactional
 @Service
 public class FriendServiceImpl implements FriendService {
+    private static final Logger log = LoggerFactory.getLogger(FriendServiceImpl.class);
 
     private final FriendRepository friendRepository;
     private final UserService userService;
+    private final BirthdayIndex birthdayIndex;
+    private final ImageStorageService imageStorageService;
+    private final ThumbnailService thumbnailService;
+    private final ImageCache imageCache;
+    private final CalendarAggregateService calendarAggregateService;
+    private final FriendSearchIndexRunner friendSearchIndexRunner;
 
     private final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-
-    @Value("${file.upload-dir}")
-    private String uploadDir;
-
-    public FriendServiceImpl(FriendRepository friendRepository, UserService userService) {
+    private static final int MAX_SCROLL_SIZE = 1000;
+    private static final int MAX_SEARCH_LIMIT = 50;
+    private static final int TRIGRAM_MIN_LENGTH = 3;
+
+    public FriendServiceImpl(FriendRepository friendRepository, UserService userService,
+                             BirthdayIndex birthdayIndex, ImageStorageService imageStorageService,
+                             ThumbnailService thumbnailService, ImageCache imageCache,
+                             CalendarAggregateService calendarAggregateService,
+                             FriendSearchIndexRunner friendSearchIndexRunner) {
         this.friendRepository = friendRepository;
         this.userService = userService;
+        this.birthdayIndex = birthdayIndex;
+        this.imageStorageService = imageStorageService;
+        this.thumbnailService = thumbnailService;
+        this.imageCache = imageCache;
+        this.calendarAggregateService = calendarAggregateService;
+        this.friendSearchIndexRunner = friendSearchIndexRunner;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Map<String, Long> countByDateRange(LocalDate startDate, LocalDate endDate) {
         if (startDate == null || endDate == null) {
@@ -51,52 +81,19 @@ public class FriendServiceImpl implements FriendService {
             throw new IllegalArgumentException("Начальная дата не может быть позже конечной");
         }
 
-        Map<String, Long> result = new LinkedHashMap<>();
-        LocalDate currentDate = startDate;
         User user = userService.getAuthUser().orElseThrow(() ->
                 new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
 
-        List<Friend> allFriends = friendRepository.findByUserId(user.getId());
-
-        Map<MonthDay, Map<Integer, Long>> monthDayYearCountMap = new HashMap<>();
-
-        for (Friend friend : allFriends) {
-            LocalDate birthDate = friend.getDateOfBirth();
-            if (birthDate != null) {
-                MonthDay monthDay = MonthDay.from(birthDate);
-                int birthYear = birthDate.getYear();
-
-                Map<Integer, Long> yearCountMap = monthDayYearCountMap.getOrDefault(monthDay, new HashMap<>());
-
-                yearCountMap.put(birthYear, yearCountMap.getOrDefault(birthYear, 0L) + 1);
-
-                monthDayYearCountMap.put(monthDay, yearCountMap);
-            }
-        }
-
-        while (!currentDate.isAfter(endDate)) {
-            MonthDay currentMonthDay = MonthDay.from(currentDate);
-            int currentYear = currentDate.getYear();
-            long count = 0;
-
-            Map<Integer, Long> yearCountMap = monthDayYearCountMap.get(currentMonthDay);
-            if (yearCountMap != null) {
-                for (Map.Entry<Integer, Long> entry : yearCountMap.entrySet()) {
-                    if (entry.getKey() <= currentYear) {
-                        count += entry.getValue();
-                    }
-                }
-            }
-
-            String dateKey = currentDate.format(DATE_FORMATTER);
-            result.put(dateKey, count);
-
-            currentDate = currentDate.plusDays(1);
-        }
+        // Счетчики берутся из агрегата календаря: объем чтения зависит от длины диапазона,
+        // а не от количества друзей
+        Map<String, Long> result = new LinkedHashMap<>();
+        calendarAggregateService.countBirthdays(user.getId(), startDate, endDate)
+                .forEach((date, count) -> result.put(date.format(DATE_FORMATTER), count));
 
         return result;
     }
 
+    @Transactional(readOnly = true)
     @Override
     public Map<String, ArrayList<FriendResponse>> getByDateRange(LocalDate startDate, LocalDate endDate) {
         if (startDate == null || endDate == null) {
@@ -107,87 +104,155 @@ public class FriendServiceImpl implements FriendService {
             throw new IllegalArgumentException("Начальная дата не может быть позже конечной");
         }
 
-        Map<String, ArrayList<FriendResponse>> result = new LinkedHashMap<>();
-        LocalDate currentDate = startDate;
         User user = userService.getAuthUser().orElseThrow(() ->
                 new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
 
+        // Идентификаторы именинников берем из индекса, а из БД одним запросом
+        // загружаем только их
+        Map<LocalDate, long[]> idsByDate = new LinkedHashMap<>();
+        Set<Long> allIds = new HashSet<>();
+        LocalDate currentDate = startDate;
         while (!currentDate.isAfter(endDate)) {
-            int month = currentDate.getMonthValue();
-            int day = currentDate.getDayOfMonth();
-            int year = currentDate.getYear();
-
-            List<Friend> friends = friendRepository.findByDateOfBirthAndUserId(month, day, year, user.getId());
-
-            String dateKey = currentDate.format(DATE_FORMATTER);
-
-            ArrayList<FriendResponse> buffer = new ArrayList<>();
-            for (Friend friend : friends){
-                buffer.add(convertToFriendResponse(friend));
+            long[] ids = birthdayIndex.friendIdsByDate(user.getId(), currentDate);
+            idsByDate.put(currentDate, ids);
+            for (long id : ids) {
+                allIds.add(id);
             }
-            result.put(dateKey, buffer);
-
             currentDate = currentDate.plusDays(1);
         }
 
+        Map<Long, FriendResponse> responses = loadFriendResponses(allIds);
+
+        Map<String, ArrayList<FriendResponse>> result = new LinkedHashMap<>();
+        for (Map.Entry<LocalDate, long[]> entry : idsByDate.entrySet()) {
+            result.put(entry.getKey().format(DATE_FORMATTER), collectResponses(entry.getValue(), responses));
+        }
+
         return result;
     }
 
+    @Transactional(readOnly = true)
     public ArrayList<FriendResponse> getByDate(LocalDate currentDate){
         User user = userService.getAuthUser().orElseThrow(() ->
                 new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
-        int month = currentDate.getMonthValue();
-        int day = currentDate.getDayOfMonth();
-        int year = currentDate.getYear();
 
-        List<Friend> friends = friendRepository.findByDateOfBirthAndUserId(month, day, year, user.getId());
-        ArrayList<FriendResponse> result = new ArrayList<>();
-        for (Friend friend : friends){
-            result.add(convertToFriendResponse(friend));
+        long[] ids = birthdayIndex.friendIdsByDate(user.getId(), currentDate);
+        Set<Long> idSet = new HashSet<>();
+        for (long id : ids) {
+            idSet.add(id);
         }
-        return result;
+        return collectResponses(ids, loadFriendResponses(idSet));
     }
 
-    public Map<String, Object> getFriendsWithPaginate(int page, int size) {
+    @Transactional(readOnly = true)
+    @Override
+    public List<FriendWithCongResponse> getByDateWithCongratulation(LocalDate date) {
         User user = userService.getAuthUser().orElseThrow(() ->
                 new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
-        ArrayList<Friend> allFriends = (ArrayList<Friend>) friendRepository.findByUserId(user.getId());
 
-        allFriends.sort((a, b) -> {
-            LocalDate dateA = a.getDateOfBirth();
-            LocalDate dateB = b.getDateOfBirth();
-            LocalDate now = LocalDate.now();
-
-            LocalDate nextBirthdayA = dateA.withYear(now.getYear());
-            if (nextBirthdayA.isBefore(now)) {
-                nextBirthdayA = nextBirthdayA.plusYears(1);
-            }
-
-            LocalDate nextBirthdayB = dateB.withYear(now.getYear());
-            if (nextBirthdayB.isBefore(now)) {
-                nextBirthdayB = nextBirthdayB.plusYears(1);
-            }
+        return friendRepository.findWithCongratulationByDate(date,
+                date.getMonthValue() * 100 + date.getDayOfMonth(), date.getYear(), user.getId());
+    }
 
-            return nextBirthdayA.compareTo(nextBirthdayB);
-        });
+    @Transactional(readOnly = true)
+    public Map<String, Object> getFriendsWithPaginate(int page, int size) {
+        User user = userService.getAuthUser().orElseThrow(() ->
+                new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
 
+        // Индекс отдает идентификаторы уже в порядке ближайшего дня рождения,
+        // из БД загружается только текущая страница
+        int totalItems = birthdayIndex.size(user.getId());
         int start = (page - 1) * size;
-        int end = Math.min(start + size, allFriends.size());
+        long[] ids = start >= 0 && start < totalItems
+                ? birthdayIndex.upcomingFriendIds(user.getId(), LocalDate.now(), start, size)
+                : new long[0];
 
-        List<FriendResponse> pageContent = new ArrayList<>(List.of());
-        if (start < allFriends.size()) {
-            for (Friend friend : allFriends.subList(start, end)){
-                pageContent.add(convertToFriendResponse(friend));
+        Set<Long> idSet = new HashSet<>();
+        for (long id : ids) {
+            idSet.add(id);
+        }
+        Map<Long, FriendResponse> responses = loadFriendResponses(idSet);
+        List<FriendResponse> pageContent = new ArrayList<>();
+        for (long id : ids) {
+            FriendResponse response = responses.get(id);
+            if (response != null) {
+                pageContent.add(response);
             }
         }
 
-        int totalPages = (int) Math.ceil((double) allFriends.size() / size);
+        int totalPages = (int) Math.ceil((double) totalItems / size);
 
         Map<String, Object> response = new HashMap<>();
         response.put("content", pageContent);
         response.put("totalPages", totalPages);
         response.put("currentPage", page);
-        response.put("totalItems", allFriends.size());
+        response.put("totalItems", totalItems);
+
+        return response;
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public Map<String, Object> getUpcomingFriends(String cursor, int size) {
+        if (size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new IllegalArgumentException("Размер страницы должен быть от 1 до " + MAX_SCROLL_SIZE);
+        }
+
+        User user = userService.getAuthUser().orElseThrow(() ->
+                new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
+
+        // Курсор: "<сегодня>:<birthMonthDay>:<id>" последнего отданного друга.
+        // Сначала идут дни рождения с сегодняшнего дня до конца года, затем с начала года
+        int todayMonthDay;
+        int afterMonthDay = -1;
+        long afterId = 0;
+        if (cursor == null || cursor.isBlank()) {
+            LocalDate today = LocalDate.now();
+            todayMonthDay = today.getMonthValue() * 100 + today.getDayOfMonth();
+        } else {
+            String[] parts = cursor.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+            }
+            try {
+                todayMonthDay = Integer.parseInt(parts[0]);
+                afterMonthDay = Integer.parseInt(parts[1]);
+                afterId = Long.parseLong(parts[2]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+            }
+        }
+
+        // Запрашиваем на одну запись больше, чтобы понять, есть ли следующая страница
+        List<FriendResponse> friends = new ArrayList<>(size + 1);
+        boolean secondSegment = cursor != null && !cursor.isBlank() && afterMonthDay < todayMonthDay;
+        if (secondSegment) {
+            // Курсор уже во втором сегменте (с начала года до сегодняшнего дня)
+            friends.addAll(friendRepository.findUpcomingPage(user.getId(), 0, todayMonthDay,
+                    afterMonthDay, afterId, Limit.of(size + 1)));
+        } else {
+            friends.addAll(friendRepository.findUpcomingPage(user.getId(), todayMonthDay, 1300,
+                    afterMonthDay, afterId, Limit.of(size + 1)));
+            if (friends.size() <= size) {
+                friends.addAll(friendRepository.findUpcomingPage(user.getId(), 0, todayMonthDay,
+                        -1, 0, Limit.of(size + 1 - friends.size())));
+            }
+        }
+
+        String nextCursor = null;
+        if (friends.size() > size) {
+            friends = friends.subList(0, size);
+            FriendResponse last = friends.get(size - 1);
+            // Проекция не содержит birthMonthDay, он однозначно восстанавливается из даты рождения
+            LocalDate lastBirthDate = LocalDate.parse(last.getBirthDate());
+            int lastMonthDay = lastBirthDate.getMonthValue() * 100 + lastBirthDate.getDayOfMonth();
+            nextCursor = todayMonthDay + ":" + lastMonthDay + ":" + last.getId();
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("content", friends);
+        response.put("nextCursor", nextCursor);
+        response.put("totalItems", birthdayIndex.size(user.getId()));
 
         return response;
     }
@@ -207,25 +272,82 @@ public class FriendServiceImpl implements FriendService {
                     request.getDescription()
             );
             if (request.getImage() != null){
-                String imageName = saveImage(request.getImage());
-                friend.setImageName(imageName);
+                StoredImage image = imageStorageService.save(request.getImage());
+                friend.setImageName(image.name());
+                friend.setImageContentType(image.contentType());
+                thumbnailService.scheduleVariants(image.name());
             }
 
             friend.setUser(currentUser);
-            return friendRepository.save(friend);
+            Friend savedFriend = friendRepository.save(friend);
+            calendarAggregateService.onFriendCreated(currentUser.getId(), savedFriend.getDateOfBirth());
+            birthdayIndex.onFriendSaved(currentUser.getId(), savedFriend.getId(), savedFriend.getDateOfBirth());
+            return savedFriend;
         }
         catch (IOException e){
-            System.err.println("Сохранение не удалось");
+            log.error("Сохранение не удалось", e);
             return null;
         }
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public List<FriendResponse> searchFriends(String query, int limit) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new IllegalArgumentException("Количество результатов должно быть от 1 до " + MAX_SEARCH_LIMIT);
+        }
+        String normalized = query == null ? "" : query.strip().toLowerCase(Locale.ROOT);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        User user = userService.getAuthUser().orElseThrow(() ->
+                new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
+
+        Long userId = user.getId();
+        // Ступени идут от точных совпадений к приблизительным; следующая выполняется, только пока мест не хватает
+        Map<Long, Friend> found = new LinkedHashMap<>();
+        addSearchResults(found, friendRepository.searchByPrefix(userId, normalized,
+                prefixUpperBound(normalized), limit), limit);
+        // Для одного-двух символов триграмм нет, поэтому ищем только по началу fio и email.
+        // Без pg_trgm запрос похожих упал бы, а подстрока читала бы всех друзей без индекса
+        if (found.size() < limit && friendSearchIndexRunner.isTrigramSearchAvailable()
+                && normalized.codePointCount(0, normalized.length()) >= TRIGRAM_MIN_LENGTH) {
+            addSearchResults(found, friendRepository.searchBySimilarity(userId, normalized, limit), limit);
+            if (found.size() < limit) {
+                List<Friend> containing = new ArrayList<>(friendRepository.searchByContaining(userId,
+                        "%" + escapeLike(normalized) + "%", limit));
+                containing.sort(Comparator.comparing((Friend f) -> f.getFio().toLowerCase(Locale.ROOT))
+                        .thenComparing(Friend::getId));
+                addSearchResults(found, containing, limit);
+            }
+        }
+
+        List<FriendResponse> result = new ArrayList<>(found.size());
+        for (Friend friend : found.values()) {
+            result.add(convertToFriendResponse(friend));
+        }
+        return result;
+    }
+
+    /**
+     * Дописывает результаты ступени поиска, пропуская уже найденных друзей.
+     * Каждая ступень читает limit строк, поэтому после пропуска повторов их хватает на оставшиеся места
+     */
+    private static void addSearchResults(Map<Long, Friend> found, List<Friend> friends, int limit) {
+        for (Friend friend : friends) {
+            if (found.size() >= limit) {
+                return;
+            }
+            found.putIfAbsent(friend.getId(), friend);
+        }
+    }
+
+    @Transactional(readOnly = true)
     @Override
     public FriendResponse getFriendResponse(Long friendId) {
-        Friend friend = friendRepository.findById(friendId)
+        return friendRepository.findResponseById(friendId)
                 .orElseThrow(() -> new ResourceNotFoundException("Персона не найдена"));
-
-        return convertToFriendResponse(friend);
     }
 
     @Override
@@ -241,12 +363,15 @@ public class FriendServiceImpl implements FriendService {
 
         // Удаляем изображение, если оно есть
         if (friend.getImageName() != null) {
-            deleteImageFile(friend.getImageName());
-            System.out.println("Изображение удалено при удалении друга: " + friend.getImageName());
+            imageStorageService.delete(friend.getImageName());
+            imageCache.invalidate(friend.getImageName());
+            log.info("Изображение удалено при удалении друга: {}", friend.getImageName());
         }
 
         friendRepository.delete(friend);
-        System.out.println("Друг удален: ID=" + friendId + ", FIO=" + friend.getFio());
+        calendarAggregateService.onFriendDeleted(friend.getUser().getId(), friend.getDateOfBirth());
+        birthdayIndex.onFriendDeleted(friend.getUser().getId(), friendId);
+        log.info("Друг удален: ID={}, FIO={}", friendId, friend.getFio());
     }
 
     private FriendResponse convertToFriendResponse(Friend friend) {
@@ -260,21 +385,96 @@ public class FriendServiceImpl implements FriendService {
         );
     }
 
+    /**
+     * Наименьшая строка, которая больше всех строк с этим префиксом в порядке "C":
+     * последний символ увеличивается на единицу
+     */
+    private static String prefixUpperBound(String prefix) {
+        int last = prefix.codePointBefore(prefix.length());
+        return prefix.substring(0, prefix.length() - Character.charCount(last)) + Character.toString(last + 1);
+    }
+
+    /**
+     * Экранирует спецсимволы LIKE, чтобы "%" и "_" в запросе искались буквально
+     */
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Загружает из БД друзей с указанными идентификаторами одним запросом сразу в виде ответов API
+     */
+    private Map<Long, FriendResponse> loadFriendResponses(Set<Long> ids) {
+        Map<Long, FriendResponse> responses = new HashMap<>();
+        if (ids.isEmpty()) {
+            return responses;
+        }
+        for (FriendResponse response : friendRepository.findResponsesByIds(ids)) {
+            responses.put(response.getId(), response);
+        }
+        return responses;
+    }
+
+    /**
+     * Собирает ответы для идентификаторов дня, упорядочивая их по дате рождения
+     */
+    private ArrayList<FriendResponse> collectResponses(long[] ids, Map<Long, FriendResponse> responses) {
+        ArrayList<FriendResponse> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            FriendResponse response = responses.get(id);
+            if (response != null) {
+                result.add(response);
+            }
+        }
+        result.sort(Comparator.comparing(FriendResponse::getBirthDate));
+        return result;
+    }
+
     /*
      * =================================
      * Методы для работы с изображениями
      * =================================
      */
+    @Transactional(readOnly = true)
     @Override
-    public byte[] getFriendImage(Long friendId) throws IOException {
+    public FriendImage getFriendImage(Long friendId, ImageVariant variant) throws IOException {
+        Long userId = userService.getAuthUser().map(User::getId).orElse(null);
         Friend friend = friendRepository.findById(friendId)
+                .filter(f -> f.getUser().getId().equals(userId))
                 .orElseThrow(() -> new ResourceNotFoundException("Друг не найден или не принадлежит вам"));
 
         if (friend.getImageName() == null) {
             throw new ResourceNotFoundException("У друга нет изображения");
         }
 
-        return loadImage(friend.getImageName());
+        String imageName = friend.getImageName();
+        if (variant != ImageVariant.ORIGINAL) {
+            Optional<Resource> cachedVariant = imageCache.get(imageName, variant);
+            if (cachedVariant.isPresent()) {
+                return new FriendImage(cachedVariant.get(), MediaType.IMAGE_JPEG);
+            }
+            Optional<Resource> variantResource = imageStorageService.loadVariant(imageName, variant);
+            if (variantResource.isPresent()) {
+                return new FriendImage(imageCache.put(imageName, variant, variantResource.get()),
+                        MediaType.IMAGE_JPEG);
+            }
+            // Копия могла не попасть в очередь при ее переполнении: ставим повторно и пока отдаем оригинал
+            thumbnailService.scheduleVariants(imageName);
+        }
+
+        String contentType = friend.getImageContentType() != null
+                ? friend.getImageContentType()
+                : imageStorageService.guessContentType(imageName);
+        // Файлы, загруженные до проверки сигнатуры, могли сохранить произвольный тип:
+        // такие отдаются как двоичные данные, а не как изображение
+        MediaType mediaType = ImageFormat.fromContentType(contentType)
+                .map(format -> MediaType.parseMediaType(format.getContentType()))
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        Optional<Resource> cachedOriginal = imageCache.get(imageName, ImageVariant.ORIGINAL);
+        Resource original = cachedOriginal.isPresent()
+                ? cachedOriginal.get()
+                : imageCache.put(imageName, ImageVariant.ORIGINAL, imageStorageService.load(imageName));
+        return new FriendImage(original, mediaType);
     }
 
     @Override
@@ -282,6 +482,7 @@ public class FriendServiceImpl implements FriendService {
         Friend existingFriend = friendRepository.findById(friendId)
                 .orElseThrow(() -> new ResourceNotFoundException("Друг не найден"));
 
+        LocalDate oldDateOfBirth = existingFriend.getDateOfBirth();
         existingFriend.setFio(request.getFIO());
         existingFriend.setEmail(request.getEmail());
         existingFriend.setDateOfBirth(request.getDateOfBirth());
@@ -289,59 +490,27 @@ public class FriendServiceImpl implements FriendService {
 
         try {
             if (request.getImage() != null && !request.getImage().isEmpty()) {
+                // Сначала сохраняем новое изображение: при повторной загрузке того же файла
+                // ссылка на него не должна опускаться до нуля
+                StoredImage newImage = imageStorageService.save(request.getImage());
                 if (existingFriend.getImageName() != null) {
-                    deleteImageFile(existingFriend.getImageName());
+                    imageStorageService.delete(existingFriend.getImageName());
+                    imageCache.invalidate(existingFriend.getImageName());
                 }
 
-                String newImage = saveImage(request.getImage());
-                existingFriend.setImageName(newImage);
+                existingFriend.setImageName(newImage.name());
+                existingFriend.setImageContentType(newImage.contentType());
+                thumbnailService.scheduleVariants(newImage.name());
             }
         }
         catch (IOException e){
-            System.err.println("Обновление изображения произошло с ошибкой");
-        }
-
-        return friendRepository.save(existingFriend);
-    }
-
-    private String saveImage(MultipartFile file) throws IOException {
-        String originalFileName = file.getOriginalFilename();
-        String fileExtension = "";
-
-        if (originalFileName != null && originalFileName.contains(".")) {
-            fileExtension = originalFileName.substring(originalFileName.lastIndexOf("."));
+            log.error("Обновление изображения произошло с ошибкой", e);
         }
 
-        String fileName = UUID.randomUUID().toString() + fileExtension;
-
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
-        Path filePath = uploadPath.resolve(fileName);
-        Files.copy(file.getInputStream(), filePath);
-
-        System.out.println("Файл сохранен: " + fileName +
-                ", размер: " + file.getSize() + " байт" +
-                ", путь: " + filePath.toAbsolutePath());
-
-        return fileName;
-    }
-
-    private byte[] loadImage(String fileName) throws IOException {
-        Path filePath = Paths.get(uploadDir).resolve(fileName);
-        if (!Files.exists(filePath)) {
-            throw new IOException("Файл не найден: " + fileName);
-        }
-        return Files.readAllBytes(filePath);
-    }
-
-    private void deleteImageFile(String fileName) throws IOException {
-        Path filePath = Paths.get(uploadDir).resolve(fileName);
-        if (Files.exists(filePath)) {
-            Files.delete(filePath);
-            System.out.println("Файл удален с диска: " + fileName);
-        }
+        Friend savedFriend = friendRepository.save(existingFriend);
+        calendarAggregateService.onBirthdayChanged(savedFriend.getUser().getId(), oldDateOfBirth,
+                savedFriend.getDateOfBirth());
+        birthdayIndex.onFriendSaved(savedFriend.getUser().getId(), savedFriend.getId(), savedFriend.getDateOfBirth());
+        return savedFriend;
     }
 }
@@ -0,0 +1,33 @@
+package ru.test.congratulations.service.birthday;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.test.congratulations.repository.FriendRepository;
+
+/**
+ * При старте приложения заполняет колонку birth_month_day у друзей,
+ * сохраненных до ее появления
+ */
+@Component
+public class BirthMonthDayBackfill implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(BirthMonthDayBackfill.class);
+
+    private final FriendRepository friendRepository;
+
+    public BirthMonthDayBackfill(FriendRepository friendRepository) {
+        this.friendRepository = friendRepository;
+    }
+
+    @Override
+    @Transactional
+    public void run(ApplicationArguments args) {
+        int updated = friendRepository.fillMissingBirthMonthDay();
+        if (updated > 0) {
+            log.info("Заполнено birth_month_day для друзей: {}", updated);
+        }
+    }
+}
@@ -0,0 +1,488 @@
+package ru.test.congratulations.service.birthday;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.repository.projection.FriendBirthday;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Индекс дней рождения друзей в памяти, разбитый по пользователям.
+ * <p>
+ * Для каждого пользователя хранится 366 корзин по дню года (29 февраля имеет свою корзину),
+ * в каждой корзине - массивы идентификаторов друзей и годов их рождения.
+ * Индекс пользователя строится лениво при первом обращении и вытесняется
+ * по давности использования, когда число пользователей превышает {@code birthday-index.max-users}.
+ * Изменения друзей применяются к индексу после фиксации транзакции.
+ * <p>
+ * Индекс не видит изменений, сделанных на других узлах или в обход {@link ru.test.congratulations.service.FriendService},
+ * поэтому индекс пользователя перестраивается из БД не позже чем через {@code birthday-index.expire-after-write}
+ * после загрузки.
+ */
+@Component
+public class BirthdayIndex {
+    static final int DAYS_IN_YEAR = 366;
+
+    /** Високосный год, по которому вычисляется номер корзины */
+    private static final int INDEX_YEAR = 2000;
+
+    private final FriendRepository friendRepository;
+    private final int maxUsers;
+    private final long expireAfterWriteNanos;
+    private final ReentrantLock usersLock = new ReentrantLock();
+    private final LinkedHashMap<Long, UserBirthdays> users;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public BirthdayIndex(FriendRepository friendRepository,
+                         @Value("${birthday-index.max-users:10000}") int maxUsers,
+                         @Value("${birthday-index.expire-after-write:10m}") Duration expireAfterWrite,
+                         MeterRegistry meterRegistry) {
+        this.friendRepository = friendRepository;
+        this.maxUsers = maxUsers;
+        this.expireAfterWriteNanos = expireAfterWrite.toNanos();
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserBirthdays> eldest) {
+                return size() > BirthdayIndex.this.maxUsers;
+            }
+        };
+
+        this.hits = Counter.builder("birthday.index.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("birthday.index.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("birthday.index.users", this, BirthdayIndex::userCount).register(meterRegistry);
+        Gauge.builder("birthday.index.friends", this, BirthdayIndex::friendCount).register(meterRegistry);
+        Gauge.builder("birthday.index.memory", this, BirthdayIndex::estimatedMemoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает номер корзины (0..365) для месяца и дня даты
+     */
+    static int dayIndex(LocalDate date) {
+        return LocalDate.of(INDEX_YEAR, date.getMonth(), date.getDayOfMonth()).getDayOfYear() - 1;
+    }
+
+    /**
+     * Количество друзей пользователя, у которых в указанную дату день рождения
+     * и которые родились не позже года этой даты
+     */
+    public long countByDate(Long userId, LocalDate date) {
+        return forUser(userId).countByDate(date);
+    }
+
+    /**
+     * Идентификаторы друзей пользователя, у которых в указанную дату день рождения
+     */
+    public long[] friendIdsByDate(Long userId, LocalDate date) {
+        return forUser(userId).friendIdsByDate(date);
+    }
+
+    /**
+     * Идентификаторы друзей в порядке ближайшего дня рождения, начиная с указанной даты
+     *
+     * @param offset сколько друзей пропустить
+     * @param limit  максимальное количество идентификаторов
+     */
+    public long[] upcomingFriendIds(Long userId, LocalDate from, int offset, int limit) {
+        return forUser(userId).upcomingFriendIds(from, offset, limit);
+    }
+
+    /**
+     * Общее количество друзей пользователя в индексе
+     */
+    public int size(Long userId) {
+        return forUser(userId).size();
+    }
+
+    /**
+     * Регистрирует добавление или изменение друга. Применяется после фиксации текущей транзакции
+     */
+    public void onFriendSaved(Long userId, Long friendId, LocalDate dateOfBirth) {
+        afterCommit(() -> {
+            UserBirthdays birthdays = peek(userId);
+            if (birthdays != null) {
+                birthdays.put(friendId, dateOfBirth);
+            }
+        });
+    }
+
+    /**
+     * Регистрирует удаление друга. Применяется после фиксации текущей транзакции
+     */
+    public void onFriendDeleted(Long userId, Long friendId) {
+        afterCommit(() -> {
+            UserBirthdays birthdays = peek(userId);
+            if (birthdays != null) {
+                birthdays.remove(friendId);
+            }
+        });
+    }
+
+    /**
+     * Удаляет индекс пользователя, он будет построен заново при следующем обращении
+     */
+    public void evict(Long userId) {
+        afterCommit(() -> {
+            usersLock.lock();
+            try {
+                users.remove(userId);
+            } finally {
+                usersLock.unlock();
+            }
+        });
+    }
+
+    public int userCount() {
+        return snapshot().size();
+    }
+
+    public long friendCount() {
+        long total = 0;
+        for (UserBirthdays birthdays : snapshot()) {
+            total += birthdays.size();
+        }
+        return total;
+    }
+
+    /**
+     * Приблизительный объем памяти, занимаемый индексом, в байтах
+     */
+    public long estimatedMemoryBytes() {
+        long total = 0;
+        for (UserBirthdays birthdays : snapshot()) {
+            total += birthdays.estimatedMemoryBytes();
+        }
+        return total;
+    }
+
+    private List<UserBirthdays> snapshot() {
+        usersLock.lock();
+        try {
+            return new ArrayList<>(users.values());
+        } finally {
+            usersLock.unlock();
+        }
+    }
+
+    private UserBirthdays peek(Long userId) {
+        usersLock.lock();
+        try {
+            return users.get(userId);
+        } finally {
+            usersLock.unlock();
+        }
+    }
+
+    private UserBirthdays forUser(Long userId) {
+        UserBirthdays birthdays;
+        boolean created = false;
+        usersLock.lock();
+        try {
+            birthdays = users.get(userId);
+            if (birthdays != null && birthdays.isExpired(System.nanoTime(), expireAfterWriteNanos)) {
+                users.remove(userId);
+                birthdays = null;
+            }
+            if (birthdays == null) {
+                birthdays = new UserBirthdays();
+                users.put(userId, birthdays);
+                created = true;
+            }
+        } finally {
+            usersLock.unlock();
+        }
+
+        if (!created) {
+            hits.increment();
+            birthdays.awaitLoaded();
+            return birthdays;
+        }
+
+        misses.increment();
+        try {
+            birthdays.load(friendRepository.findBirthdaysByUserId(userId));
+        } catch (RuntimeException e) {
+            usersLock.lock();
+            try {
+                users.remove(userId, birthdays);
+            } finally {
+                usersLock.unlock();
+            }
+            birthdays.fail(e);
+            throw e;
+        }
+        return birthdays;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Дни рождения друзей одного пользователя.
+     * <p>
+     * Пока индекс загружается из БД, изменения копятся в журнале и применяются поверх загруженных данных,
+     * поэтому правки, зафиксированные во время загрузки, не теряются.
+     */
+    static final class UserBirthdays {
+        private static final long[] NO_IDS = new long[0];
+        private static final short[] NO_YEARS = new short[0];
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final long[][] ids = new long[DAYS_IN_YEAR][];
+        private final short[][] years = new short[DAYS_IN_YEAR][];
+        private final List<Runnable> pending = new ArrayList<>();
+        private final CompletableFuture<Void> ready = new CompletableFuture<>();
+        private boolean loaded;
+        private volatile long loadedAt;
+        private int size;
+
+        UserBirthdays() {
+            Arrays.fill(ids, NO_IDS);
+            Arrays.fill(years, NO_YEARS);
+        }
+
+        void load(List<FriendBirthday> friends) {
+            int[] counts = new int[DAYS_IN_YEAR];
+            for (FriendBirthday friend : friends) {
+                counts[dayIndex(friend.getDateOfBirth())]++;
+            }
+
+            long[][] loadedIds = new long[DAYS_IN_YEAR][];
+            short[][] loadedYears = new short[DAYS_IN_YEAR][];
+            for (int day = 0; day < DAYS_IN_YEAR; day++) {
+                loadedIds[day] = counts[day] == 0 ? NO_IDS : new long[counts[day]];
+                loadedYears[day] = counts[day] == 0 ? NO_YEARS : new short[counts[day]];
+            }
+
+            int[] positions = new int[DAYS_IN_YEAR];
+            for (FriendBirthday friend : friends) {
+                int day = dayIndex(friend.getDateOfBirth());
+                loadedIds[day][positions[day]] = friend.getId();
+                loadedYears[day][positions[day]] = (short) friend.getDateOfBirth().getYear();
+                positions[day]++;
+            }
+
+            lock.lock();
+            try {
+                System.arraycopy(loadedIds, 0, ids, 0, DAYS_IN_YEAR);
+                System.arraycopy(loadedYears, 0, years, 0, DAYS_IN_YEAR);
+                size = friends.size();
+                loaded = true;
+                loadedAt = System.nanoTime();
+                for (Runnable change : pending) {
+                    change.run();
+                }
+                pending.clear();
+            } finally {
+                lock.unlock();
+            }
+            ready.complete(null);
+        }
+
+        /**
+         * Загружен ли индекс раньше, чем {@code expireAfterWriteNanos} назад.
+         * Еще не загруженный индекс не устаревает
+         */
+        boolean isExpired(long now, long expireAfterWriteNanos) {
+            return ready.isDone() && !ready.isCompletedExceptionally() && now - loadedAt >= expireAfterWriteNanos;
+        }
+
+        void fail(RuntimeException e) {
+            ready.completeExceptionally(e);
+        }
+
+        void awaitLoaded() {
+            try {
+                ready.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        void put(Long friendId, LocalDate dateOfBirth) {
+            lock.lock();
+            try {
+                if (!loaded) {
+                    pending.add(() -> applyPut(friendId, dateOfBirth));
+                    return;
+                }
+                applyPut(friendId, dateOfBirth);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void remove(Long friendId) {
+            lock.lock();
+            try {
+                if (!loaded) {
+                    pending.add(() -> applyRemove(friendId));
+                    return;
+                }
+                applyRemove(friendId);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long countByDate(LocalDate date) {
+            lock.lock();
+            try {
+                int day = dayIndex(date);
+                short[] bucketYears = years[day];
+                int year = date.getYear();
+                long count = 0;
+                for (short birthYear : bucketYears) {
+                    if (birthYear <= year) {
+                        count++;
+                    }
+                }
+                return count;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long[] friendIdsByDate(LocalDate date) {
+            lock.lock();
+            try {
+                int day = dayIndex(date);
+                long[] bucketIds = ids[day];
+                short[] bucketYears = years[day];
+                int year = date.getYear();
+                long[] result = new long[bucketIds.length];
+                int count = 0;
+                for (int i = 0; i < bucketIds.length; i++) {
+                    if (bucketYears[i] <= year) {
+                        result[count++] = bucketIds[i];
+                    }
+                }
+                return count == result.length ? result : Arrays.copyOf(result, count);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long[] upcomingFriendIds(LocalDate from, int offset, int limit) {
+            lock.lock();
+            try {
+                int start = dayIndex(from);
+                long[] result = new long[Math.max(0, Math.min(limit, size - offset))];
+                int skipped = 0;
+                int count = 0;
+                for (int i = 0; i < DAYS_IN_YEAR && count < result.length; i++) {
+                    long[] bucketIds = ids[(start + i) % DAYS_IN_YEAR];
+                    if (skipped + bucketIds.length <= offset) {
+                        skipped += bucketIds.length;
+                        continue;
+                    }
+                    for (int j = offset - skipped; j < bucketIds.length && count < result.length; j++) {
+                        result[count++] = bucketIds[j];
+                    }
+                    skipped = offset;
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return size;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long estimatedMemoryBytes() {
+            lock.lock();
+            try {
+                // Два массива ссылок на корзины плюс заголовки массивов корзин и их содержимое
+                long bytes = 2L * (16 + 8L * DAYS_IN_YEAR);
+                for (int day = 0; day < DAYS_IN_YEAR; day++) {
+                    if (ids[day].length > 0) {
+                        bytes += 16 + 8L * ids[day].length;
+                        bytes += 16 + 2L * years[day].length;
+                    }
+                }
+                return bytes;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void applyPut(Long friendId, LocalDate dateOfBirth) {
+            applyRemove(friendId);
+
+            int day = dayIndex(dateOfBirth);
+            int length = ids[day].length;
+            long[] bucketIds = Arrays.copyOf(ids[day], length + 1);
+            short[] bucketYears = Arrays.copyOf(years[day], length + 1);
+            bucketIds[length] = friendId;
+            bucketYears[length] = (short) dateOfBirth.getYear();
+            ids[day] = bucketIds;
+            years[day] = bucketYears;
+            size++;
+        }
+
+        private void applyRemove(Long friendId) {
+            for (int day = 0; day < DAYS_IN_YEAR; day++) {
+                long[] bucketIds = ids[day];
+                for (int i = 0; i < bucketIds.length; i++) {
+                    if (bucketIds[i] == friendId) {
+                        ids[day] = removeAt(bucketIds, i);
+                        years[day] = removeAt(years[day], i);
+                        size--;
+                        return;
+                    }
+                }
+            }
+        }
+
+        private static long[] removeAt(long[] array, int index) {
+            if (array.length == 1) {
+                return NO_IDS;
+            }
+            long[] result = new long[array.length - 1];
+            System.arraycopy(array, 0, result, 0, index);
+            System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+            return result;
+        }
+
+        private static short[] removeAt(short[] array, int index) {
+            if (array.length == 1) {
+                return NO_YEARS;
+            }
+            short[] result = new short[array.length - 1];
+            System.arraycopy(array, 0, result, 0, index);
+            System.arraycopy(array, index + 1, result, index, array.length - index - 1);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.test.congratulations.service.calendar;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Пересчитывает агрегаты календаря при старте приложения, если они еще не заполнены
+ * или если приложение запущено с аргументом {@code --rebuild-calendar-aggregates}
+ * (либо со свойством {@code calendar-aggregate.rebuild-on-startup=true}).
+ * Используется для первичного заполнения и для восстановления после ручных правок в БД
+ */
+@Component
+public class CalendarAggregateRebuildRunner implements ApplicationRunner {
+    static final String REBUILD_OPTION = "rebuild-calendar-aggregates";
+
+    private final CalendarAggregateService calendarAggregateService;
+    private final boolean rebuildOnStartup;
+
+    public CalendarAggregateRebuildRunner(CalendarAggregateService calendarAggregateService,
+                                          @Value("${calendar-aggregate.rebuild-on-startup:false}") boolean rebuildOnStartup) {
+        this.calendarAggregateService = calendarAggregateService;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (rebuildOnStartup || args.containsOption(REBUILD_OPTION) || calendarAggregateService.isEmpty()) {
+            calendarAggregateService.rebuildAll();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.test.congratulations.service.calendar;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Агрегаты календаря: количество дней рождения по дню года и году рождения
+ * и количество поздравлений по датам для каждого пользователя.
+ * Методы on* вызываются внутри транзакции, изменяющей друзей или поздравления,
+ * поэтому агрегат фиксируется или откатывается вместе с ней
+ */
+public interface CalendarAggregateService {
+    void onFriendCreated(Long userId, LocalDate dateOfBirth);
+
+    /**
+     * Учитывает пакет добавленных друзей, группируя их по дню и году рождения
+     */
+    void onFriendsCreated(Long userId, Collection<LocalDate> datesOfBirth);
+
+    void onFriendDeleted(Long userId, LocalDate dateOfBirth);
+
+    /**
+     * Переносит друга в агрегате, если дата рождения изменилась
+     */
+    void onBirthdayChanged(Long userId, LocalDate oldDateOfBirth, LocalDate newDateOfBirth);
+
+    void onCongratulationCreated(Long userId, LocalDate congratulationDate);
+
+    /**
+     * Количество дней рождения по каждой дате диапазона (включительно).
+     * Учитываются друзья, родившиеся не позже года соответствующей даты
+     */
+    Map<LocalDate, Long> countBirthdays(Long userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Количество поздравлений по датам диапазона (включительно). Даты без поздравлений в результат не попадают
+     */
+    Map<LocalDate, Long> countCongratulations(Long userId, LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Пересчитывает агрегаты пользователя по исходным таблицам
+     */
+    void rebuild(Long userId);
+
+    /**
+     * Пересчитывает агрегаты всех пользователей по исходным таблицам
+     */
+    void rebuildAll();
+
+    /**
+     * true, если агрегаты еще ни разу не заполнялись
+     */
+    boolean isEmpty();
+}
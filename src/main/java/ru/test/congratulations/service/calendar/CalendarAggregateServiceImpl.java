@@ -0,0 +1,178 @@
+package ru.test.congratulations.service.calendar;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.test.congratulations.entity.BirthdayCount;
+import ru.test.congratulations.entity.CongratulationCount;
+import ru.test.congratulations.repository.BirthdayCountRepository;
+import ru.test.congratulations.repository.CongratulationCountRepository;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+@Service
+public class CalendarAggregateServiceImpl implements CalendarAggregateService {
+    private static final Logger log = LoggerFactory.getLogger(CalendarAggregateServiceImpl.class);
+
+    private static final int FIRST_MONTH_DAY = 101;
+    private static final int LAST_MONTH_DAY = 1231;
+
+    private final BirthdayCountRepository birthdayCountRepository;
+    private final CongratulationCountRepository congratulationCountRepository;
+
+    public CalendarAggregateServiceImpl(BirthdayCountRepository birthdayCountRepository,
+                                        CongratulationCountRepository congratulationCountRepository) {
+        this.birthdayCountRepository = birthdayCountRepository;
+        this.congratulationCountRepository = congratulationCountRepository;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onFriendCreated(Long userId, LocalDate dateOfBirth) {
+        birthdayCountRepository.lockUserShared(userId);
+        birthdayCountRepository.increment(userId, monthDay(dateOfBirth), dateOfBirth.getYear(), 1);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onFriendsCreated(Long userId, Collection<LocalDate> datesOfBirth) {
+        birthdayCountRepository.lockUserShared(userId);
+        // Друзья одного дня и года рождения учитываются одним запросом
+        Map<BirthdayKey, Long> deltas = new HashMap<>();
+        for (LocalDate date : datesOfBirth) {
+            deltas.merge(new BirthdayKey(monthDay(date), date.getYear()), 1L, Long::sum);
+        }
+        for (Map.Entry<BirthdayKey, Long> entry : deltas.entrySet()) {
+            BirthdayKey key = entry.getKey();
+            birthdayCountRepository.increment(userId, key.monthDay(), key.year(), entry.getValue());
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onFriendDeleted(Long userId, LocalDate dateOfBirth) {
+        birthdayCountRepository.lockUserShared(userId);
+        decrementBirthday(userId, dateOfBirth);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onBirthdayChanged(Long userId, LocalDate oldDateOfBirth, LocalDate newDateOfBirth) {
+        if (Objects.equals(oldDateOfBirth, newDateOfBirth)) {
+            return;
+        }
+        birthdayCountRepository.lockUserShared(userId);
+        if (oldDateOfBirth != null) {
+            decrementBirthday(userId, oldDateOfBirth);
+        }
+        if (newDateOfBirth != null) {
+            birthdayCountRepository.increment(userId, monthDay(newDateOfBirth), newDateOfBirth.getYear(), 1);
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onCongratulationCreated(Long userId, LocalDate congratulationDate) {
+        birthdayCountRepository.lockUserShared(userId);
+        congratulationCountRepository.increment(userId, congratulationDate, 1);
+    }
+
+    @Override
+    public Map<LocalDate, Long> countBirthdays(Long userId, LocalDate startDate, LocalDate endDate) {
+        Map<Integer, List<BirthdayCount>> rowsByMonthDay = new HashMap<>();
+        for (BirthdayCount row : loadBirthdayRows(userId, startDate, endDate)) {
+            rowsByMonthDay.computeIfAbsent(row.getMonthDay(), md -> new ArrayList<>()).add(row);
+        }
+
+        Map<LocalDate, Long> result = new LinkedHashMap<>();
+        LocalDate currentDate = startDate;
+        while (!currentDate.isAfter(endDate)) {
+            long count = 0;
+            for (BirthdayCount row : rowsByMonthDay.getOrDefault(monthDay(currentDate), List.of())) {
+                if (row.getBirthYear() <= currentDate.getYear()) {
+                    count += row.getFriendCount();
+                }
+            }
+            result.put(currentDate, count);
+            currentDate = currentDate.plusDays(1);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<LocalDate, Long> countCongratulations(Long userId, LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, Long> result = new HashMap<>();
+        for (CongratulationCount row : congratulationCountRepository.findInRange(userId, startDate, endDate)) {
+            result.put(row.getCongratulationDate(), row.getCongratulationCount());
+        }
+        return result;
+    }
+
+    /**
+     * Исключительная блокировка пользователя дожидается транзакций, которые уже меняют его счетчики,
+     * и не пускает новые до фиксации пересчета, поэтому пересчет не теряет и не задваивает их изменения
+     */
+    @Override
+    @Transactional
+    public void rebuild(Long userId) {
+        birthdayCountRepository.lockUser(userId);
+        birthdayCountRepository.deleteByUserId(userId);
+        birthdayCountRepository.rebuildForUser(userId);
+        congratulationCountRepository.deleteByUserId(userId);
+        congratulationCountRepository.rebuildForUser(userId);
+    }
+
+    /**
+     * Исключительная общая блокировка дожидается всех транзакций, меняющих счетчики, и не пускает новые
+     * до фиксации пересчета, поэтому пересчет можно выполнять и на работающем приложении
+     */
+    @Override
+    @Transactional
+    public void rebuildAll() {
+        birthdayCountRepository.lockAll();
+        birthdayCountRepository.deleteAllRows();
+        int birthdayRows = birthdayCountRepository.rebuildAll();
+        congratulationCountRepository.deleteAllRows();
+        int congratulationRows = congratulationCountRepository.rebuildAll();
+        log.info("Агрегаты календаря пересчитаны: дни рождения - {} строк, поздравления - {} строк",
+                birthdayRows, congratulationRows);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return birthdayCountRepository.count() == 0 && congratulationCountRepository.count() == 0;
+    }
+
+    /**
+     * Загружает только строки дней, попадающих в диапазон. Если диапазон переходит
+     * через конец года, выполняются два запроса; если он покрывает весь год - один по всему году
+     */
+    private List<BirthdayCount> loadBirthdayRows(Long userId, LocalDate startDate, LocalDate endDate) {
+        int fromMonthDay = monthDay(startDate);
+        int toMonthDay = monthDay(endDate);
+        if (ChronoUnit.DAYS.between(startDate, endDate) >= 365) {
+            return birthdayCountRepository.findInRange(userId, FIRST_MONTH_DAY, LAST_MONTH_DAY);
+        }
+        if (fromMonthDay <= toMonthDay && startDate.getYear() == endDate.getYear()) {
+            return birthdayCountRepository.findInRange(userId, fromMonthDay, toMonthDay);
+        }
+        return birthdayCountRepository.findInWrappedRange(userId, fromMonthDay, toMonthDay);
+    }
+
+    private void decrementBirthday(Long userId, LocalDate dateOfBirth) {
+        int monthDay = monthDay(dateOfBirth);
+        birthdayCountRepository.increment(userId, monthDay, dateOfBirth.getYear(), -1);
+        birthdayCountRepository.deleteIfEmpty(userId, monthDay, dateOfBirth.getYear());
+    }
+
+    private static int monthDay(LocalDate date) {
+        return date.getMonthValue() * 100 + date.getDayOfMonth();
+    }
+
+    private record BirthdayKey(int monthDay, int year) {
+    }
+}
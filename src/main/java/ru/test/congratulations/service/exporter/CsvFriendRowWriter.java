@@ -0,0 +1,76 @@
+package ru.test.congratulations.service.exporter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Пишет CSV с колонками fio, email, dateOfBirth, description, congratulations.
+ * Первые четыре колонки совпадают с форматом импорта, поэтому выгрузку можно загрузить обратно
+ * (CsvFriendRowReader читает и значения с переводами строк в кавычках).
+ * Даты поздравлений перечисляются через ";".
+ * <p>
+ * Значения, которые табличный редактор принял бы за формулу (начинаются с =, +, -, @, табуляции
+ * или возврата каретки), выводятся с апострофом в начале; значения, начинающиеся с апострофа, тоже,
+ * чтобы при импорте апостроф снимался однозначно
+ */
+class CsvFriendRowWriter implements FriendRowWriter {
+    private static final String HEADER = "fio,email,dateOfBirth,description,congratulations";
+    private static final String FORMULA_PREFIXES = "=+-@\t\r'";
+
+    private final BufferedWriter writer;
+
+    CsvFriendRowWriter(OutputStream outputStream) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(ExportRow row) throws IOException {
+        writeValue(row.fio());
+        writer.write(',');
+        writeValue(row.email());
+        writer.write(',');
+        writer.write(row.dateOfBirth().toString());
+        writer.write(',');
+        writeValue(row.description());
+        writer.write(',');
+        List<LocalDate> congratulations = row.congratulations();
+        for (int i = 0; i < congratulations.size(); i++) {
+            if (i > 0) {
+                writer.write(';');
+            }
+            writer.write(congratulations.get(i).toString());
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Значения с запятой, кавычкой или переводом строки берутся в кавычки, кавычки внутри удваиваются
+     */
+    private void writeValue(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
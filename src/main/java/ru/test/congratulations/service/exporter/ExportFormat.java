@@ -0,0 +1,40 @@
+package ru.test.congratulations.service.exporter;
+
+/**
+ * Поддерживаемые форматы выгрузки друзей
+ */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Определяет формат по указанному значению; без значения выгружается NDJSON
+     * @throws IllegalArgumentException если формат не поддерживается
+     */
+    public static ExportFormat resolve(String format) {
+        if (format == null || format.isBlank()) {
+            return NDJSON;
+        }
+        return switch (format.toLowerCase()) {
+            case "ndjson", "jsonl" -> NDJSON;
+            case "csv" -> CSV;
+            default -> throw new IllegalArgumentException("Неподдерживаемый формат выгрузки: " + format);
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package ru.test.congratulations.service.exporter;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Друг вместе с историей поздравлений в том виде, в котором он попадает в выгрузку
+ *
+ * @param fio             имя друга
+ * @param email           электронная почта
+ * @param dateOfBirth     дата рождения
+ * @param description     описание
+ * @param congratulations даты поздравлений по возрастанию
+ */
+public record ExportRow(String fio, String email, LocalDate dateOfBirth, String description,
+                        List<LocalDate> congratulations) {
+}
@@ -0,0 +1,15 @@
+package ru.test.congratulations.service.exporter;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public interface FriendExportService {
+    /**
+     * Готовит выгрузку всех друзей авторизованного пользователя вместе с историей поздравлений.
+     * Пользователь определяется сразу, а строки читаются курсором БД с фиксированным размером выборки
+     * и пишутся в поток ответа по мере чтения, поэтому память не зависит от количества друзей
+     *
+     * @param format формат выгрузки
+     * @return тело ответа, которое пишет выгрузку в переданный поток
+     */
+    StreamingResponseBody exportFriends(ExportFormat format);
+}
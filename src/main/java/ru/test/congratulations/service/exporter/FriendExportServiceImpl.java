@@ -0,0 +1,125 @@
+package ru.test.congratulations.service.exporter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.service.user.UserService;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class FriendExportServiceImpl implements FriendExportService {
+    private static final Logger log = LoggerFactory.getLogger(FriendExportServiceImpl.class);
+
+    // Поздравления друга идут подряд, поэтому в памяти держится только текущий друг
+    private static final String EXPORT_SQL = "SELECT f.id, f.fio, f.email, f.date_of_birth, f.description, " +
+            "c.congratulation_date FROM tbl_friends f " +
+            "LEFT JOIN tbl_congratulation c ON c.friend_id = f.id " +
+            "WHERE f.user_id = ? ORDER BY f.id, c.congratulation_date";
+
+    private final UserService userService;
+    private final JsonMapper jsonMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public FriendExportServiceImpl(UserService userService, JsonMapper jsonMapper, DataSource dataSource,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${friend-export.fetch-size:1000}") int fetchSize) {
+        this.userService = userService;
+        this.jsonMapper = jsonMapper;
+        // Драйвер PostgreSQL читает курсором только внутри транзакции и с заданным размером выборки,
+        // иначе весь результат загружается в память
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody exportFriends(ExportFormat format) {
+        User user = userService.getAuthUser().orElseThrow(() ->
+                new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
+        Long userId = user.getId();
+        return outputStream -> export(userId, format, outputStream);
+    }
+
+    private void export(Long userId, ExportFormat format, OutputStream outputStream) throws IOException {
+        long startNanos = System.nanoTime();
+        try (FriendRowWriter writer = FriendRowWriter.of(format, outputStream, jsonMapper)) {
+            RowCollector collector = new RowCollector(writer);
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.query(EXPORT_SQL, collector::accept, userId);
+                collector.finish();
+            });
+            log.info("Выгрузка {} пользователя {}: {} друзей за {} мс", format, userId, collector.exported,
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Собирает строки одного друга с его поздравлениями и пишет друга, когда начинается следующий
+     */
+    private static final class RowCollector {
+        private final FriendRowWriter writer;
+        private final List<LocalDate> congratulations = new ArrayList<>();
+        private Long friendId;
+        private String fio;
+        private String email;
+        private LocalDate dateOfBirth;
+        private String description;
+        private long exported;
+
+        private RowCollector(FriendRowWriter writer) {
+            this.writer = writer;
+        }
+
+        private void accept(ResultSet rs) throws SQLException {
+            long id = rs.getLong("id");
+            if (friendId == null || friendId != id) {
+                finish();
+                friendId = id;
+                fio = rs.getString("fio");
+                email = rs.getString("email");
+                dateOfBirth = rs.getDate("date_of_birth").toLocalDate();
+                description = rs.getString("description");
+            }
+            Date congratulationDate = rs.getDate("congratulation_date");
+            if (congratulationDate != null) {
+                congratulations.add(congratulationDate.toLocalDate());
+            }
+        }
+
+        private void finish() {
+            if (friendId == null) {
+                return;
+            }
+            try {
+                writer.write(new ExportRow(fio, email, dateOfBirth, description, List.copyOf(congratulations)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            congratulations.clear();
+            friendId = null;
+            exported++;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.test.congratulations.service.exporter;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Потоковая запись друзей в файл выгрузки: строка уходит в поток сразу, в памяти ничего не копится
+ */
+public interface FriendRowWriter extends AutoCloseable {
+    void write(ExportRow row) throws IOException;
+
+    /**
+     * Дописывает буферизованные данные в поток, не закрывая его
+     */
+    @Override
+    void close() throws IOException;
+
+    static FriendRowWriter of(ExportFormat format, OutputStream outputStream, JsonMapper jsonMapper)
+            throws IOException {
+        return switch (format) {
+            case NDJSON -> new NdjsonFriendRowWriter(outputStream, jsonMapper);
+            case CSV -> new CsvFriendRowWriter(outputStream);
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package ru.test.congratulations.service.exporter;
+
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Пишет по одному JSON-объекту на строку:
+ * {"fio":..,"email":..,"dateOfBirth":"yyyy-MM-dd","description":..,"congratulations":["yyyy-MM-dd",..]}
+ */
+class NdjsonFriendRowWriter implements FriendRowWriter {
+    private final JsonGenerator generator;
+
+    NdjsonFriendRowWriter(OutputStream outputStream, JsonMapper jsonMapper) {
+        // Разделитель между объектами пишем сами, поток ответа закрывает контейнер
+        this.generator = jsonMapper.writer()
+                .withRootValueSeparator((String) null)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .createGenerator(outputStream);
+    }
+
+    @Override
+    public void write(ExportRow row) {
+        generator.writeStartObject();
+        generator.writeStringProperty("fio", row.fio());
+        generator.writeStringProperty("email", row.email());
+        generator.writeStringProperty("dateOfBirth", row.dateOfBirth().toString());
+        generator.writeStringProperty("description", row.description());
+        generator.writeName("congratulations");
+        generator.writeStartArray();
+        for (LocalDate date : row.congratulations()) {
+            generator.writeString(date.toString());
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() {
+        generator.close();
+    }
+}
@@ -0,0 +1,13 @@
+package ru.test.congratulations.service.image;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+/**
+ * Изображение друга, готовое к потоковой отдаче клиенту
+ *
+ * @param resource    файл изображения
+ * @param contentType MIME-тип изображения
+ */
+public record FriendImage(Resource resource, MediaType contentType) {
+}
@@ -0,0 +1,99 @@
+package ru.test.congratulations.service.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Кэш содержимого часто запрашиваемых изображений, ограниченный суммарным объемом в байтах.
+ * <p>
+ * Вытеснение выполняет Caffeine (W-TinyLFU). Содержимое хранится в direct-буферах вне кучи,
+ * поэтому не увеличивает нагрузку на сборщик мусора. Файлы больше {@code image.cache.max-entry-bytes}
+ * не кэшируются и отдаются с диска.
+ */
+@Component
+public class ImageCache {
+    private final Cache<String, ByteBuffer> cache;
+    private final long maxEntryBytes;
+
+    public ImageCache(@Value("${image.cache.max-bytes:67108864}") long maxBytes,
+                      @Value("${image.cache.max-entry-bytes:1048576}") long maxEntryBytes,
+                      MeterRegistry meterRegistry) {
+        this.maxEntryBytes = maxEntryBytes;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, ByteBuffer value) -> value.capacity())
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "friendImages");
+        Gauge.builder("image.cache.size", this, ImageCache::usedBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Возвращает изображение из кэша, если оно там есть
+     */
+    public Optional<Resource> get(String name, ImageVariant variant) {
+        ByteBuffer buffer = cache.getIfPresent(key(name, variant));
+        return buffer != null ? Optional.of(new ByteBufferResource(buffer, key(name, variant))) : Optional.empty();
+    }
+
+    /**
+     * Помещает изображение в кэш и возвращает ресурс для отдачи клиенту.
+     * Слишком большие файлы не кэшируются, для них возвращается исходный ресурс
+     */
+    public Resource put(String name, ImageVariant variant, Resource source) throws IOException {
+        long length = source.contentLength();
+        if (length > maxEntryBytes) {
+            return source;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect((int) length);
+        try (InputStream inputStream = source.getInputStream()) {
+            byte[] chunk = new byte[8192];
+            int read;
+            while (buffer.hasRemaining() && (read = inputStream.read(chunk, 0, Math.min(chunk.length, buffer.remaining()))) != -1) {
+                buffer.put(chunk, 0, read);
+            }
+        }
+        buffer.flip();
+        ByteBuffer readOnly = buffer.asReadOnlyBuffer();
+
+        cache.put(key(name, variant), readOnly);
+        return new ByteBufferResource(readOnly, key(name, variant));
+    }
+
+    /**
+     * Удаляет из кэша изображение и все его уменьшенные копии
+     */
+    public void invalidate(String name) {
+        for (ImageVariant variant : ImageVariant.values()) {
+            cache.invalidate(key(name, variant));
+        }
+    }
+
+    /**
+     * Суммарный объем закэшированных изображений в байтах
+     */
+    public long usedBytes() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    private String key(String name, ImageVariant variant) {
+        return name + "#" + variant.name();
+    }
+}
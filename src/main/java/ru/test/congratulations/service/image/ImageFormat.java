@@ -0,0 +1,86 @@
+package ru.test.congratulations.service.image;
+
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Форматы изображений, которые принимаются при загрузке и отдаются клиенту как изображения.
+ * Формат определяется по первым байтам файла, а не по типу, присланному клиентом
+ */
+public enum ImageFormat {
+    JPEG("image/jpeg"),
+    PNG("image/png"),
+    GIF("image/gif"),
+    WEBP("image/webp"),
+    BMP("image/bmp");
+
+    /**
+     * Сколько первых байт файла нужно для определения формата
+     */
+    public static final int HEADER_LENGTH = 12;
+
+    private final String contentType;
+
+    ImageFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Определяет формат по сигнатуре в начале файла
+     * @param header первые байты файла
+     * @param length сколько байт прочитано
+     */
+    public static Optional<ImageFormat> detect(byte[] header, int length) {
+        if (startsWith(header, length, 0xFF, 0xD8, 0xFF)) {
+            return Optional.of(JPEG);
+        }
+        if (startsWith(header, length, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return Optional.of(PNG);
+        }
+        if (startsWith(header, length, 'G', 'I', 'F', '8', '7', 'a')
+                || startsWith(header, length, 'G', 'I', 'F', '8', '9', 'a')) {
+            return Optional.of(GIF);
+        }
+        if (startsWith(header, length, 'R', 'I', 'F', 'F') && length >= 12
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return Optional.of(WEBP);
+        }
+        if (startsWith(header, length, 'B', 'M')) {
+            return Optional.of(BMP);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Находит формат по сохраненному MIME-типу. Типы вне списка (например, image/svg+xml
+     * у файлов, загруженных до проверки сигнатуры) не считаются изображениями
+     */
+    public static Optional<ImageFormat> fromContentType(String contentType) {
+        if (contentType == null) {
+            return Optional.empty();
+        }
+        String normalized = contentType.strip().toLowerCase(Locale.ROOT);
+        for (ImageFormat format : values()) {
+            if (format.contentType.equals(normalized)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean startsWith(byte[] header, int length, int... signature) {
+        if (length < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((header[i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,55 @@
+package ru.test.congratulations.service.image;
+
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public interface ImageStorageService {
+    /**
+     * Сохраняет загруженное изображение на диск.
+     * MIME-тип определяется по сигнатуре файла, тип от клиента не используется
+     * @param file загруженный файл
+     * @return имя файла в хранилище и его MIME-тип
+     * @throws IOException если файл не является изображением поддерживаемого формата
+     */
+    StoredImage save(MultipartFile file) throws IOException;
+
+    /**
+     * Возвращает файл изображения для потоковой отдачи без загрузки в память
+     * @param name имя файла в хранилище
+     * @return ресурс, указывающий на файл
+     */
+    Resource load(String name) throws IOException;
+
+    /**
+     * Возвращает уменьшенную копию изображения, если она уже подготовлена
+     * @param name имя оригинала в хранилище
+     * @param variant размер копии
+     * @return ресурс копии или пустой Optional
+     */
+    Optional<Resource> loadVariant(String name, ImageVariant variant);
+
+    /**
+     * Сохраняет уменьшенную копию изображения в формате JPEG
+     * @param name имя оригинала в хранилище
+     * @param variant размер копии
+     * @param jpegBytes содержимое копии
+     */
+    void saveVariant(String name, ImageVariant variant, byte[] jpegBytes) throws IOException;
+
+    /**
+     * Удаляет изображение и его уменьшенные копии с диска, если они существуют
+     * @param name имя файла в хранилище
+     */
+    void delete(String name) throws IOException;
+
+    /**
+     * Определяет MIME-тип по расширению файла.
+     * Используется для изображений, сохраненных до появления колонки с типом
+     * @param name имя файла в хранилище
+     * @return MIME-тип изображения
+     */
+    String guessContentType(String name);
+}
@@ -0,0 +1,254 @@
+package ru.test.congratulations.service.image;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import ru.test.congratulations.repository.ImageBlobRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+@Service
+public class ImageStorageServiceImpl implements ImageStorageService {
+    private static final Logger log = LoggerFactory.getLogger(ImageStorageServiceImpl.class);
+
+    private static final String TEMP_DIR = "tmp";
+
+    private final ImageBlobRepository imageBlobRepository;
+    /** Отдельная транзакция для проверки ссылок перед удалением файла после фиксации основной */
+    private final TransactionTemplate fileCleanupTransaction;
+
+    /** Байты, прочитанные с диска и записанные на диск, отдельно для оригиналов и уменьшенных копий */
+    private final Counter originalBytesRead;
+    private final Counter originalBytesWritten;
+    private final Counter variantBytesRead;
+    private final Counter variantBytesWritten;
+
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    public ImageStorageServiceImpl(ImageBlobRepository imageBlobRepository, MeterRegistry meterRegistry,
+                                   PlatformTransactionManager transactionManager) {
+        this.imageBlobRepository = imageBlobRepository;
+        this.fileCleanupTransaction = new TransactionTemplate(transactionManager);
+        this.fileCleanupTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.originalBytesRead = ioCounter(meterRegistry, "read", "original");
+        this.originalBytesWritten = ioCounter(meterRegistry, "write", "original");
+        this.variantBytesRead = ioCounter(meterRegistry, "read", "variant");
+        this.variantBytesWritten = ioCounter(meterRegistry, "write", "variant");
+    }
+
+    private static Counter ioCounter(MeterRegistry meterRegistry, String operation, String kind) {
+        return Counter.builder("image.storage.io")
+                .description("Объем файлов изображений, прочитанных и записанных на диск")
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Сохраняет изображение по хешу SHA-256 его содержимого, который вычисляется при записи файла.
+     * Файл кладется в каталог вида ab/cd/ по первым байтам хеша, одинаковые файлы хранятся один раз.
+     * Хеш блокируется до конца транзакции, поэтому параллельное удаление того же файла
+     * либо закончится раньше, либо дождется фиксации и увидит новую ссылку
+     */
+    @Override
+    public StoredImage save(MultipartFile file) throws IOException {
+        Path uploadPath = Paths.get(uploadDir);
+        Path tempDir = uploadPath.resolve(TEMP_DIR);
+        Files.createDirectories(tempDir);
+
+        Path tempPath = Files.createTempFile(tempDir, "upload-", ".tmp");
+        try {
+            MessageDigest digest = newSha256();
+            long size;
+            try (InputStream inputStream = new DigestInputStream(file.getInputStream(), digest)) {
+                size = Files.copy(inputStream, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // Тип от клиента не проверяется: image/svg+xml, отданный с нашего домена, исполнил бы скрипт
+            String contentType = detectFormat(tempPath)
+                    .orElseThrow(() -> new IOException("Неподдерживаемый формат изображения: "
+                            + file.getOriginalFilename()))
+                    .getContentType();
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String name = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+
+            imageBlobRepository.lock(hash);
+            imageBlobRepository.acquire(hash, contentType, size);
+
+            originalBytesWritten.increment(size);
+
+            // Файл записывается всегда: существующий мог удаляться после снятия последней ссылки,
+            // а замена тем же содержимым безопасна для тех, кто его сейчас читает
+            Path filePath = uploadPath.resolve(name);
+            Files.createDirectories(filePath.getParent());
+            Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Файл сохранен: {}, размер: {} байт, тип: {}", name, size, contentType);
+
+            return new StoredImage(name, contentType);
+        } finally {
+            Files.deleteIfExists(tempPath);
+        }
+    }
+
+    private static Optional<ImageFormat> detectFormat(Path path) throws IOException {
+        byte[] header = new byte[ImageFormat.HEADER_LENGTH];
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            int length = inputStream.readNBytes(header, 0, header.length);
+            return ImageFormat.detect(header, length);
+        }
+    }
+
+    @Override
+    public Resource load(String name) throws IOException {
+        Path filePath = Paths.get(uploadDir).resolve(name);
+        if (!Files.exists(filePath)) {
+            throw new IOException("Файл не найден: " + name);
+        }
+        originalBytesRead.increment(Files.size(filePath));
+        return new FileSystemResource(filePath);
+    }
+
+    @Override
+    public Optional<Resource> loadVariant(String name, ImageVariant variant) {
+        if (variant == ImageVariant.ORIGINAL) {
+            return Optional.empty();
+        }
+        Path variantPath = Paths.get(uploadDir).resolve(variantName(name, variant));
+        try {
+            long size = Files.size(variantPath);
+            variantBytesRead.increment(size);
+            return Optional.of(new FileSystemResource(variantPath));
+        } catch (IOException e) {
+            // Копия еще не готова
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void saveVariant(String name, ImageVariant variant, byte[] jpegBytes) throws IOException {
+        Path variantPath = Paths.get(uploadDir).resolve(variantName(name, variant));
+        // Пишем во временный файл и переименовываем, чтобы клиент не получил недописанную копию
+        Path tempPath = variantPath.resolveSibling(variantPath.getFileName() + ".tmp");
+        Files.write(tempPath, jpegBytes);
+        variantBytesWritten.increment(jpegBytes.length);
+        Files.move(tempPath, variantPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Снимает ссылку на изображение. Файл и его копии удаляются после фиксации транзакции,
+     * только если на него больше никто не ссылается. Перед удалением ссылки проверяются заново
+     * в отдельной транзакции под блокировкой хеша: так не удаляется файл, загруженный повторно.
+     * Файлы, сохраненные до перехода на хранение по хешу, удаляются сразу
+     */
+    @Override
+    public void delete(String name) throws IOException {
+        if (!isContentAddressed(name)) {
+            deleteFiles(name);
+            return;
+        }
+
+        String hash = name.substring(name.lastIndexOf('/') + 1);
+        imageBlobRepository.lock(hash);
+        imageBlobRepository.release(hash);
+        if (imageBlobRepository.deleteIfUnreferenced(hash) == 0) {
+            return;
+        }
+
+        Runnable deleteAction = () -> fileCleanupTransaction.executeWithoutResult(status -> {
+            // Файл могли загрузить повторно после фиксации: такая загрузка держит блокировку
+            // до своей фиксации, поэтому здесь ее запись уже видна
+            imageBlobRepository.lock(hash);
+            if (imageBlobRepository.existsById(hash)) {
+                return;
+            }
+            try {
+                deleteFiles(name);
+            } catch (IOException e) {
+                log.warn("Не удалось удалить файл {}: {}", name, e.getMessage());
+            }
+        });
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    deleteAction.run();
+                }
+            });
+        } else {
+            deleteAction.run();
+        }
+    }
+
+    private void deleteFiles(String name) throws IOException {
+        Path uploadPath = Paths.get(uploadDir);
+        Path filePath = uploadPath.resolve(name);
+        if (Files.exists(filePath)) {
+            Files.delete(filePath);
+            log.info("Файл удален с диска: {}", name);
+        }
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (variant != ImageVariant.ORIGINAL) {
+                Files.deleteIfExists(uploadPath.resolve(variantName(name, variant)));
+            }
+        }
+    }
+
+    /**
+     * Имена файлов в хранилище по хешу имеют вид ab/cd/hash, старые файлы лежат в корне каталога
+     */
+    private boolean isContentAddressed(String name) {
+        return name.indexOf('/') >= 0;
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Имя файла уменьшенной копии: имя оригинала без расширения, размер и .jpg
+     */
+    private String variantName(String name, ImageVariant variant) {
+        int dotIndex = name.lastIndexOf('.');
+        String baseName = dotIndex > 0 ? name.substring(0, dotIndex) : name;
+        return baseName + "_" + variant.getSize() + ".jpg";
+    }
+
+    @Override
+    public String guessContentType(String name) {
+        if (name == null) return "image/jpeg";
+
+        String lowerName = name.toLowerCase();
+        if (lowerName.endsWith(".png")) return "image/png";
+        if (lowerName.endsWith(".gif")) return "image/gif";
+        if (lowerName.endsWith(".bmp")) return "image/bmp";
+        if (lowerName.endsWith(".webp")) return "image/webp";
+
+        return "image/jpeg";
+    }
+}
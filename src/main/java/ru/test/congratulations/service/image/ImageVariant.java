@@ -0,0 +1,39 @@
+package ru.test.congratulations.service.image;
+
+/**
+ * Размеры, в которых отдается изображение друга
+ */
+public enum ImageVariant {
+    SMALL(64),
+    MEDIUM(256),
+    ORIGINAL(0);
+
+    private final int size;
+
+    ImageVariant(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Максимальная сторона уменьшенной копии в пикселях, 0 для оригинала
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Определяет вариант по значению параметра запроса: 64, 256 или full
+     * @throws IllegalArgumentException если значение не поддерживается
+     */
+    public static ImageVariant fromParam(String value) {
+        if (value == null || value.isBlank() || "full".equalsIgnoreCase(value) || "original".equalsIgnoreCase(value)) {
+            return ORIGINAL;
+        }
+        for (ImageVariant variant : values()) {
+            if (variant != ORIGINAL && String.valueOf(variant.size).equals(value)) {
+                return variant;
+            }
+        }
+        throw new IllegalArgumentException("Неподдерживаемый размер изображения: " + value);
+    }
+}
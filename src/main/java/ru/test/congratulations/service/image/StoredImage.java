@@ -0,0 +1,10 @@
+package ru.test.congratulations.service.image;
+
+/**
+ * Сохраненное изображение
+ *
+ * @param name        имя файла в хранилище
+ * @param contentType MIME-тип, определенный при загрузке
+ */
+public record StoredImage(String name, String contentType) {
+}
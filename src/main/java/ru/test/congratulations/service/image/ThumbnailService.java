@@ -0,0 +1,12 @@
+package ru.test.congratulations.service.image;
+
+public interface ThumbnailService {
+    /**
+     * Ставит в очередь фонового пула подготовку уменьшенных копий изображения.
+     * Пока копии не готовы, клиенту отдается оригинал. Если копии этого изображения уже в очереди
+     * или очередь заполнена, вызов ничего не делает; отклоненное из-за переполнения изображение
+     * ставится в очередь при следующем вызове
+     * @param name имя оригинала в хранилище
+     */
+    void scheduleVariants(String name);
+}
@@ -0,0 +1,167 @@
+package ru.test.congratulations.service.image;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class ThumbnailServiceImpl implements ThumbnailService {
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailServiceImpl.class);
+
+    private static final float JPEG_QUALITY = 0.85f;
+
+    private final ImageStorageService imageStorageService;
+    private final TaskExecutor imageTaskExecutor;
+    private final long maxPixels;
+    /** Изображения, копии которых уже стоят в очереди: повторные запросы их не добавляют */
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public ThumbnailServiceImpl(ImageStorageService imageStorageService,
+                                @Qualifier("imageTaskExecutor") TaskExecutor imageTaskExecutor,
+                                @Value("${image.thumbnail.max-pixels:25000000}") long maxPixels) {
+        this.imageStorageService = imageStorageService;
+        this.imageTaskExecutor = imageTaskExecutor;
+        this.maxPixels = maxPixels;
+    }
+
+    @Override
+    public void scheduleVariants(String name) {
+        if (!pending.add(name)) {
+            return;
+        }
+        try {
+            imageTaskExecutor.execute(() -> {
+                try {
+                    generateVariants(name);
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Не удалось подготовить уменьшенные копии для {}: {}", name, e.getMessage());
+                } finally {
+                    pending.remove(name);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            // Очередь заполнена: копии будут поставлены повторно при следующем запросе
+            pending.remove(name);
+            log.warn("Очередь подготовки копий изображений заполнена, {} не поставлено в очередь", name);
+        } catch (RuntimeException e) {
+            pending.remove(name);
+            throw e;
+        }
+    }
+
+    private void generateVariants(String name) throws IOException {
+        // Одинаковые изображения хранятся один раз, поэтому копии могут быть уже готовы
+        boolean ready = true;
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (variant != ImageVariant.ORIGINAL && imageStorageService.loadVariant(name, variant).isEmpty()) {
+                ready = false;
+            }
+        }
+        if (ready) {
+            return;
+        }
+
+        BufferedImage original;
+        try (InputStream inputStream = imageStorageService.load(name).getInputStream()) {
+            original = readLimited(name, inputStream);
+        }
+        if (original == null) {
+            return;
+        }
+
+        for (ImageVariant variant : ImageVariant.values()) {
+            if (variant == ImageVariant.ORIGINAL) {
+                continue;
+            }
+            imageStorageService.saveVariant(name, variant, toJpeg(scale(original, variant.getSize())));
+        }
+    }
+
+    /**
+     * Декодирует изображение, если его размер в пикселях не превышает image.thumbnail.max-pixels.
+     * Размеры читаются из заголовка до декодирования: небольшой файл с огромными размерами
+     * иначе занял бы всю память пула
+     * @return изображение или null, если формат не поддерживается ImageIO (например, webp)
+     * или изображение слишком большое - тогда отдается оригинал
+     */
+    private BufferedImage readLimited(String name, InputStream inputStream) throws IOException {
+        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInputStream != null
+                    ? ImageIO.getImageReaders(imageInputStream)
+                    : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    log.warn("Изображение {} слишком большое для уменьшенных копий: {} пикселей", name, pixels);
+                    return null;
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Уменьшает изображение так, чтобы большая сторона не превышала maxSize. Увеличение не выполняется
+     */
+    private BufferedImage scale(BufferedImage source, int maxSize) {
+        double ratio = Math.min(1.0, (double) maxSize / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // JPEG не поддерживает прозрачность, поэтому подкладываем белый фон
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] toJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = ImageIO.createImageOutputStream(outputStream)) {
+            writer.setOutput(imageOutputStream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+}
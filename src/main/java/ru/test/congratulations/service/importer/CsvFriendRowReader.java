@@ -0,0 +1,93 @@
+package ru.test.congratulations.service.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Читает CSV с колонками fio, email, dateOfBirth, description.
+ * Строка заголовка пропускается, если первая колонка называется fio.
+ * Поддерживаются значения в двойных кавычках, в том числе с запятыми, экранированными кавычками
+ * и переводами строк; номер записи - номер строки файла, с которой она начинается.
+ * Апостроф, которым выгрузка защищает значения от разбора как формулы, снимается
+ */
+class CsvFriendRowReader implements FriendRowReader {
+    private static final String FORMULA_PREFIXES = "=+-@\t\r'";
+
+    private final BufferedReader reader;
+    private int lineNumber;
+
+    CsvFriendRowReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            int rowNumber = lineNumber;
+            List<String> columns = new ArrayList<>(4);
+            StringBuilder current = new StringBuilder();
+            boolean quoted = parseLine(line, columns, current, false);
+            // Значение в кавычках продолжается на следующих строках; незакрытая кавычка в конце файла
+            // завершает значение, как и раньше
+            while (quoted && (line = reader.readLine()) != null) {
+                lineNumber++;
+                current.append('\n');
+                quoted = parseLine(line, columns, current, true);
+            }
+            columns.add(current.toString());
+            if (rowNumber == 1 && "fio".equalsIgnoreCase(columns.get(0).replace("\uFEFF", "").trim())) {
+                continue;
+            }
+            return new ImportRow(rowNumber, column(columns, 0), column(columns, 1),
+                    column(columns, 2), column(columns, 3));
+        }
+        return null;
+    }
+
+    private static String column(List<String> columns, int index) {
+        if (index >= columns.size()) {
+            return null;
+        }
+        String value = columns.get(index).trim();
+        if (value.length() > 1 && value.charAt(0) == '\'' && FORMULA_PREFIXES.indexOf(value.charAt(1)) >= 0) {
+            value = value.substring(1);
+        }
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Разбирает строку файла, дописывая завершенные значения в columns, а текущее - в current
+     * @param quoted строка начинается внутри значения в кавычках
+     * @return осталось ли значение в кавычках незакрытым в конце строки
+     */
+    static boolean parseLine(String line, List<String> columns, StringBuilder current, boolean quoted) {
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        return quoted;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.test.congratulations.service.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface FriendImportService {
+    /**
+     * Импортирует друзей авторизованного пользователя из CSV или vCard.
+     * Файл читается потоково, строки проверяются по правилам WriteFriendRequest
+     * и сохраняются пакетами, каждый пакет - в отдельной транзакции.
+     * Строки пакета, который не удалось сохранить, считаются отклоненными, импорт продолжается
+     *
+     * @param inputStream содержимое файла в кодировке UTF-8
+     * @param format формат файла
+     * @return количество добавленных и отклоненных строк, ошибки по строкам и скорость импорта
+     */
+    default ImportResult importFriends(InputStream inputStream, ImportFormat format) throws IOException {
+        return importFriends(inputStream, format, ImportProgressListener.NONE);
+    }
+
+    /**
+     * То же, что {@link #importFriends(InputStream, ImportFormat)}, но сообщает о прогрессе после каждого пакета
+     */
+    ImportResult importFriends(InputStream inputStream, ImportFormat format, ImportProgressListener progress)
+            throws IOException;
+}
@@ -0,0 +1,208 @@
+package ru.test.congratulations.service.importer;
+
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.entity.request.WriteFriendRequest;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.service.birthday.BirthdayIndex;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.service.user.UserService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+@Service
+public class FriendImportServiceImpl implements FriendImportService {
+    private static final Logger log = LoggerFactory.getLogger(FriendImportServiceImpl.class);
+
+    private static final Pattern FIO_PATTERN = Pattern.compile(WriteFriendRequest.FIO_PATTERN);
+    private static final Pattern EMAIL_PATTERN = Pattern.compile("^[^@\\s]+@[^@\\s]+$");
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+            DateTimeFormatter.ISO_LOCAL_DATE,
+            DateTimeFormatter.ofPattern("dd.MM.yyyy"),
+            DateTimeFormatter.BASIC_ISO_DATE
+    );
+
+    private final FriendRepository friendRepository;
+    private final UserService userService;
+    private final BirthdayIndex birthdayIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final CalendarAggregateService calendarAggregateService;
+
+    @Value("${friend-import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${friend-import.max-reported-errors:1000}")
+    private int maxReportedErrors;
+
+    public FriendImportServiceImpl(FriendRepository friendRepository, UserService userService,
+                                   BirthdayIndex birthdayIndex, TransactionTemplate transactionTemplate,
+                                   EntityManager entityManager, CalendarAggregateService calendarAggregateService) {
+        this.friendRepository = friendRepository;
+        this.userService = userService;
+        this.birthdayIndex = birthdayIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.calendarAggregateService = calendarAggregateService;
+    }
+
+    @Override
+    public ImportResult importFriends(InputStream inputStream, ImportFormat format, ImportProgressListener progress)
+            throws IOException {
+        User user = userService.getAuthUser().orElseThrow(() ->
+                new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
+        long startNanos = System.nanoTime();
+
+        // Имена уникальны в пределах пользователя, поэтому дубликаты отсеиваем заранее,
+        // чтобы одна повторяющаяся строка не откатывала весь пакет
+        Set<String> knownNames = new HashSet<>(friendRepository.findFioByUserId(user.getId()));
+
+        List<ImportResult.RowError> errors = new ArrayList<>();
+        long imported = 0;
+        long failed = 0;
+        long reportedFailed = 0;
+        List<Friend> batch = new ArrayList<>(batchSize);
+        List<Integer> batchRows = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            FriendRowReader rowReader = FriendRowReader.of(format, reader);
+            ImportRow row;
+            while ((row = rowReader.next()) != null) {
+                Friend friend;
+                try {
+                    friend = toFriend(row);
+                } catch (IllegalArgumentException e) {
+                    failed++;
+                    addError(errors, row.rowNumber(), e.getMessage());
+                    continue;
+                }
+                if (!knownNames.add(friend.getFio())) {
+                    failed++;
+                    addError(errors, row.rowNumber(), "Друг с именем " + friend.getFio() + " уже существует");
+                    continue;
+                }
+
+                friend.setUser(user);
+                batch.add(friend);
+                batchRows.add(row.rowNumber());
+                if (batch.size() >= batchSize) {
+                    int size = batch.size();
+                    int saved = saveBatch(user.getId(), batch, batchRows, errors);
+                    imported += saved;
+                    failed += size - saved;
+                    progress.onBatch(saved, failed - reportedFailed);
+                    reportedFailed = failed;
+                }
+            }
+        }
+        int size = batch.size();
+        int saved = batch.isEmpty() ? 0 : saveBatch(user.getId(), batch, batchRows, errors);
+        imported += saved;
+        failed += size - saved;
+        progress.onBatch(saved, failed - reportedFailed);
+
+        long durationNanos = System.nanoTime() - startNanos;
+        long processed = imported + failed;
+        double rowsPerSecond = durationNanos > 0 ? processed * 1_000_000_000.0 / durationNanos : processed;
+        return new ImportResult(imported, failed, errors, durationNanos / 1_000_000, rowsPerSecond);
+    }
+
+    /**
+     * Сохраняет пакет в отдельной транзакции. Hibernate отправляет вставки JDBC-пакетами,
+     * агрегат календаря обновляется в той же транзакции,
+     * после сохранения контекст персистентности очищается, чтобы память не росла с размером файла.
+     * Индекс дней рождения сбрасывается после фиксации каждого пакета, поэтому ошибка в следующих
+     * пакетах не оставляет его без уже сохраненных друзей
+     * @return количество сохраненных друзей; если пакет не сохранен, ошибка записывается
+     * на его первую строку, а импорт продолжается со следующего пакета
+     */
+    private int saveBatch(Long userId, List<Friend> batch, List<Integer> batchRows,
+                          List<ImportResult.RowError> errors) {
+        int size = batch.size();
+        List<LocalDate> datesOfBirth = batch.stream().map(Friend::getDateOfBirth).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                friendRepository.saveAll(batch);
+                calendarAggregateService.onFriendsCreated(userId, datesOfBirth);
+                birthdayIndex.evict(userId);
+                entityManager.flush();
+                entityManager.clear();
+            });
+            return size;
+        } catch (RuntimeException e) {
+            String reason = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("Пакет импорта (строки {}-{}) не сохранен: {}", batchRows.getFirst(), batchRows.getLast(), reason);
+            addError(errors, batchRows.getFirst(), "Строки " + batchRows.getFirst() + "-" + batchRows.getLast()
+                    + " не сохранены: " + reason);
+            return 0;
+        } finally {
+            batch.clear();
+            batchRows.clear();
+        }
+    }
+
+    /**
+     * Проверяет строку по тем же правилам, что и WriteFriendRequest
+     */
+    private Friend toFriend(ImportRow row) {
+        String fio = row.fio();
+        if (fio == null || fio.isBlank()) {
+            throw new IllegalArgumentException(WriteFriendRequest.FIO_REQUIRED_MESSAGE);
+        }
+        if (fio.length() < WriteFriendRequest.FIO_MIN_LENGTH) {
+            throw new IllegalArgumentException(WriteFriendRequest.FIO_LENGTH_MESSAGE);
+        }
+        if (!FIO_PATTERN.matcher(fio).matches()) {
+            throw new IllegalArgumentException(WriteFriendRequest.FIO_PATTERN_MESSAGE);
+        }
+
+        String email = row.email();
+        if (email != null && !EMAIL_PATTERN.matcher(email).matches()) {
+            throw new IllegalArgumentException(WriteFriendRequest.EMAIL_MESSAGE);
+        }
+
+        if (row.dateOfBirth() == null) {
+            throw new IllegalArgumentException(WriteFriendRequest.DATE_OF_BIRTH_REQUIRED_MESSAGE);
+        }
+        LocalDate dateOfBirth = parseDate(row.dateOfBirth());
+        if (dateOfBirth.isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException(WriteFriendRequest.DATE_OF_BIRTH_FUTURE_MESSAGE);
+        }
+
+        return new Friend(fio, email, dateOfBirth, row.description());
+    }
+
+    private LocalDate parseDate(String value) {
+        for (DateTimeFormatter formatter : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(value, formatter);
+            } catch (DateTimeParseException ignored) {
+                // пробуем следующий формат
+            }
+        }
+        throw new IllegalArgumentException("Некорректная дата рождения: " + value);
+    }
+
+    private void addError(List<ImportResult.RowError> errors, int row, String message) {
+        if (errors.size() < maxReportedErrors) {
+            errors.add(new ImportResult.RowError(row, message));
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.test.congratulations.service.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Потоковое чтение записей о друзьях из файла импорта: в памяти находится только текущая запись
+ */
+public interface FriendRowReader {
+    /**
+     * @return следующая запись или null, если файл закончился
+     */
+    ImportRow next() throws IOException;
+
+    static FriendRowReader of(ImportFormat format, BufferedReader reader) {
+        return switch (format) {
+            case CSV -> new CsvFriendRowReader(reader);
+            case VCARD -> new VCardFriendRowReader(reader);
+        };
+    }
+}
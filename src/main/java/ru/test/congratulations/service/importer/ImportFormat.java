@@ -0,0 +1,29 @@
+package ru.test.congratulations.service.importer;
+
+/**
+ * Поддерживаемые форматы файла импорта друзей
+ */
+public enum ImportFormat {
+    CSV,
+    VCARD;
+
+    /**
+     * Определяет формат по явно указанному значению или по расширению файла
+     * @throws IllegalArgumentException если формат определить не удалось
+     */
+    public static ImportFormat resolve(String format, String fileName) {
+        if (format != null && !format.isBlank()) {
+            return switch (format.toLowerCase()) {
+                case "csv" -> CSV;
+                case "vcard", "vcf" -> VCARD;
+                default -> throw new IllegalArgumentException("Неподдерживаемый формат импорта: " + format);
+            };
+        }
+        if (fileName != null) {
+            String lowerName = fileName.toLowerCase();
+            if (lowerName.endsWith(".csv")) return CSV;
+            if (lowerName.endsWith(".vcf") || lowerName.endsWith(".vcard")) return VCARD;
+        }
+        throw new IllegalArgumentException("Не удалось определить формат файла импорта");
+    }
+}
@@ -0,0 +1,15 @@
+package ru.test.congratulations.service.importer;
+
+/**
+ * Получает прирост счетчиков после каждого сохраненного пакета импорта
+ */
+@FunctionalInterface
+public interface ImportProgressListener {
+    ImportProgressListener NONE = (imported, failed) -> { };
+
+    /**
+     * @param imported сколько строк добавлено с прошлого вызова
+     * @param failed   сколько строк отклонено с прошлого вызова
+     */
+    void onBatch(long imported, long failed);
+}
@@ -0,0 +1,25 @@
+package ru.test.congratulations.service.importer;
+
+import java.util.List;
+
+/**
+ * Итог импорта друзей
+ *
+ * @param imported      количество добавленных друзей
+ * @param failed        количество отклоненных строк
+ * @param errors        ошибки по строкам (не более ограничения, заданного при импорте)
+ * @param durationMillis длительность импорта в миллисекундах
+ * @param rowsPerSecond скорость обработки строк
+ */
+public record ImportResult(long imported, long failed, List<RowError> errors,
+                           long durationMillis, double rowsPerSecond) {
+
+    /**
+     * Ошибка в конкретной строке файла
+     *
+     * @param row     номер записи в файле
+     * @param message текст ошибки
+     */
+    public record RowError(int row, String message) {
+    }
+}
@@ -0,0 +1,13 @@
+package ru.test.congratulations.service.importer;
+
+/**
+ * Строка файла импорта до валидации
+ *
+ * @param rowNumber   номер записи в файле, начиная с 1
+ * @param fio         имя друга
+ * @param email       электронная почта
+ * @param dateOfBirth дата рождения в исходном виде
+ * @param description описание
+ */
+public record ImportRow(int rowNumber, String fio, String email, String dateOfBirth, String description) {
+}
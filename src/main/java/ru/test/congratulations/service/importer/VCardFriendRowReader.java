@@ -0,0 +1,78 @@
+package ru.test.congratulations.service.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Читает контакты vCard (версии 2.1-4.0): FN, EMAIL, BDAY и NOTE.
+ * Свернутые строки (продолжение с пробела или табуляции) разворачиваются
+ */
+class VCardFriendRowReader implements FriendRowReader {
+    private final BufferedReader reader;
+    private String lookahead;
+    private int cardNumber;
+
+    VCardFriendRowReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ImportRow next() throws IOException {
+        String line;
+        boolean inCard = false;
+        String fio = null;
+        String email = null;
+        String birthday = null;
+        String note = null;
+
+        while ((line = readUnfoldedLine()) != null) {
+            int colonIndex = line.indexOf(':');
+            if (colonIndex < 0) {
+                continue;
+            }
+            String property = line.substring(0, colonIndex);
+            String value = unescape(line.substring(colonIndex + 1).trim());
+            // Отбрасываем параметры (EMAIL;TYPE=work) и группы (item1.EMAIL)
+            String name = property.split(";", 2)[0];
+            name = name.substring(name.lastIndexOf('.') + 1).toUpperCase();
+
+            if ("BEGIN".equals(name) && "VCARD".equalsIgnoreCase(value)) {
+                inCard = true;
+                cardNumber++;
+                fio = email = birthday = note = null;
+            } else if (inCard && "END".equals(name)) {
+                return new ImportRow(cardNumber, fio, email, birthday, note);
+            } else if (inCard) {
+                switch (name) {
+                    case "FN" -> fio = value;
+                    case "EMAIL" -> email = email == null ? value : email;
+                    case "BDAY" -> birthday = value;
+                    case "NOTE" -> note = value;
+                    default -> {
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private String readUnfoldedLine() throws IOException {
+        String line = lookahead != null ? lookahead : reader.readLine();
+        lookahead = null;
+        if (line == null) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(line);
+        String next;
+        while ((next = reader.readLine()) != null && (next.startsWith(" ") || next.startsWith("\t"))) {
+            builder.append(next, 1, next.length());
+        }
+        lookahead = next;
+        return builder.toString();
+    }
+
+    private static String unescape(String value) {
+        return value.replace("\\n", "\n").replace("\\N", "\n")
+                .replace("\\,", ",").replace("\\;", ";").replace("\\\\", "\\");
+    }
+}
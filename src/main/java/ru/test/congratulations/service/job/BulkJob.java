@@ -0,0 +1,102 @@
+package ru.test.congratulations.service.job;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Фоновая задача и ее прогресс. Подписчики получают снимок состояния после каждого пакета
+ */
+class BulkJob {
+    private final UUID id = UUID.randomUUID();
+    private final JobType type;
+    private final Long ownerId;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final List<Consumer<JobStatus>> listeners = new CopyOnWriteArrayList<>();
+
+    private volatile long total;
+    private volatile JobState state = JobState.QUEUED;
+    private volatile String error;
+    private volatile Instant finishedAt;
+
+    BulkJob(JobType type, Long ownerId, long total) {
+        this.type = type;
+        this.ownerId = ownerId;
+        this.total = total;
+    }
+
+    UUID getId() {
+        return id;
+    }
+
+    Long getOwnerId() {
+        return ownerId;
+    }
+
+    JobState getState() {
+        return state;
+    }
+
+    Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    void start() {
+        state = JobState.RUNNING;
+        publish();
+    }
+
+    void setTotal(long total) {
+        this.total = total;
+    }
+
+    void advance(long processedCount, long failedCount) {
+        processed.addAndGet(processedCount);
+        failed.addAndGet(failedCount);
+        publish();
+    }
+
+    void recordError(String message) {
+        this.error = message;
+    }
+
+    void finish(JobState finalState) {
+        finishedAt = Instant.now();
+        state = finalState;
+        publish();
+        listeners.clear();
+    }
+
+    void subscribe(Consumer<JobStatus> listener) {
+        listeners.add(listener);
+        try {
+            listener.accept(snapshot());
+        } catch (RuntimeException e) {
+            listeners.remove(listener);
+        }
+    }
+
+    void unsubscribe(Consumer<JobStatus> listener) {
+        listeners.remove(listener);
+    }
+
+    JobStatus snapshot() {
+        return new JobStatus(id, type, state, total, processed.get(), failed.get(), error, createdAt, finishedAt);
+    }
+
+    private void publish() {
+        JobStatus status = snapshot();
+        for (Consumer<JobStatus> listener : listeners) {
+            try {
+                listener.accept(status);
+            } catch (RuntimeException e) {
+                listeners.remove(listener);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.test.congratulations.service.job;
+
+import org.springframework.web.multipart.MultipartFile;
+import ru.test.congratulations.service.importer.ImportFormat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Выполняет массовые операции над друзьями в фоне.
+ * Методы submit* сразу возвращают состояние поставленной задачи, сама работа идет
+ * на виртуальных потоках пакетами, каждый пакет - в отдельной транзакции
+ */
+public interface BulkJobService {
+    /**
+     * Создает указанное количество тестовых друзей авторизованному пользователю
+     */
+    JobStatus submitSeed(int count);
+
+    /**
+     * Импортирует друзей из файла. Файл копируется во временный каталог до возврата из метода
+     */
+    JobStatus submitImport(MultipartFile file, ImportFormat format) throws IOException;
+
+    /**
+     * Удаляет друзей авторизованного пользователя. Чужие идентификаторы пропускаются
+     */
+    JobStatus submitDelete(List<Long> friendIds);
+
+    /**
+     * Заменяет описание у друзей авторизованного пользователя. Чужие идентификаторы пропускаются
+     */
+    JobStatus submitUpdate(List<Long> friendIds, String description);
+
+    /**
+     * Возвращает состояние задачи, если она принадлежит авторизованному пользователю
+     */
+    Optional<JobStatus> getStatus(UUID jobId);
+
+    /**
+     * Подписывает на изменения состояния задачи авторизованного пользователя
+     * @return false, если задача не найдена
+     */
+    boolean subscribe(UUID jobId, Consumer<JobStatus> listener);
+
+    void unsubscribe(UUID jobId, Consumer<JobStatus> listener);
+}
@@ -0,0 +1,284 @@
+package ru.test.congratulations.service.job;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.entity.request.WriteFriendRequest;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.service.FriendService;
+import ru.test.congratulations.service.importer.FriendImportService;
+import ru.test.congratulations.service.importer.ImportFormat;
+import ru.test.congratulations.service.importer.ImportResult;
+import ru.test.congratulations.service.user.UserService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+@Service
+public class BulkJobServiceImpl implements BulkJobService {
+    private static final Logger log = LoggerFactory.getLogger(BulkJobServiceImpl.class);
+
+    private final FriendService friendService;
+    private final FriendImportService friendImportService;
+    private final FriendRepository friendRepository;
+    private final UserService userService;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final FriendSeedGenerator seedGenerator = new FriendSeedGenerator();
+    private final Map<UUID, BulkJob> jobs = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final int chunkSize;
+    private final int maxItems;
+    private final Duration retention;
+
+    public BulkJobServiceImpl(FriendService friendService, FriendImportService friendImportService,
+                              FriendRepository friendRepository, UserService userService,
+                              TransactionTemplate transactionTemplate,
+                              @Qualifier("bulkJobExecutor") ExecutorService executor,
+                              @Value("${bulk-jobs.max-concurrent:4}") int maxConcurrent,
+                              @Value("${bulk-jobs.chunk-size:500}") int chunkSize,
+                              @Value("${bulk-jobs.max-items:100000}") int maxItems,
+                              @Value("${bulk-jobs.retention-minutes:60}") long retentionMinutes) {
+        this.friendService = friendService;
+        this.friendImportService = friendImportService;
+        this.friendRepository = friendRepository;
+        this.userService = userService;
+        this.transactionTemplate = transactionTemplate;
+        this.executor = executor;
+        this.permits = new Semaphore(maxConcurrent);
+        this.chunkSize = chunkSize;
+        this.maxItems = maxItems;
+        this.retention = Duration.ofMinutes(retentionMinutes);
+    }
+
+    @Override
+    public JobStatus submitSeed(int count) {
+        checkSize(count);
+        User user = currentUser();
+        BulkJob job = new BulkJob(JobType.SEED, user.getId(), count);
+        return submit(job, () -> {
+            // Тестовые друзья рождены от 375 до 300 дней назад
+            LocalDate now = LocalDate.now();
+            LocalDate minDate = now.minusDays(375);
+            LocalDate maxDate = now.minusDays(300);
+            Set<String> usedNames = new HashSet<>(friendRepository.findFioByUserId(user.getId()));
+            Set<String> usedEmails = new HashSet<>();
+
+            int remaining = count;
+            while (remaining > 0) {
+                int size = Math.min(chunkSize, remaining);
+                List<WriteFriendRequest> chunk = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    WriteFriendRequest request = seedGenerator.generateUniqueFriendRequest(
+                            minDate, maxDate, usedEmails, usedNames);
+                    usedNames.add(request.getFIO());
+                    usedEmails.add(request.getEmail());
+                    chunk.add(request);
+                }
+                runChunk(job, chunk.size(), () -> {
+                    long created = 0;
+                    for (WriteFriendRequest request : chunk) {
+                        Friend friend = friendService.createFriend(request);
+                        if (friend != null) {
+                            created++;
+                        }
+                    }
+                    return created;
+                });
+                remaining -= size;
+            }
+        });
+    }
+
+    @Override
+    public JobStatus submitImport(MultipartFile file, ImportFormat format) throws IOException {
+        User user = currentUser();
+        // Загруженный файл живет только в рамках запроса, поэтому задача читает свою копию
+        Path tempFile = Files.createTempFile("friend-import-", "." + format.name().toLowerCase());
+        try (InputStream inputStream = file.getInputStream()) {
+            Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+
+        BulkJob job = new BulkJob(JobType.IMPORT, user.getId(), -1);
+        return submit(job, () -> {
+            try (InputStream inputStream = Files.newInputStream(tempFile)) {
+                ImportResult result = friendImportService.importFriends(inputStream, format, job::advance);
+                if (!result.errors().isEmpty()) {
+                    // В состоянии задачи одно поле ошибки: показываем первую строку и число остальных
+                    ImportResult.RowError first = result.errors().getFirst();
+                    String more = result.failed() > 1 ? " (всего отклонено: " + result.failed() + ")" : "";
+                    job.recordError("Строка " + first.row() + ": " + first.message() + more);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deleteQuietly(tempFile);
+            }
+        });
+    }
+
+    @Override
+    public JobStatus submitDelete(List<Long> friendIds) {
+        checkSize(friendIds.size());
+        User user = currentUser();
+        List<Long> ids = List.copyOf(friendIds);
+        BulkJob job = new BulkJob(JobType.DELETE, user.getId(), ids.size());
+        return submit(job, () -> forEachChunk(ids, chunk -> runChunk(job, chunk.size(), () -> {
+            long deleted = 0;
+            for (Long id : friendRepository.findOwnedIds(user.getId(), chunk)) {
+                try {
+                    friendService.deleteFriend(id);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                deleted++;
+            }
+            return deleted;
+        })));
+    }
+
+    @Override
+    public JobStatus submitUpdate(List<Long> friendIds, String description) {
+        checkSize(friendIds.size());
+        User user = currentUser();
+        List<Long> ids = List.copyOf(friendIds);
+        BulkJob job = new BulkJob(JobType.UPDATE, user.getId(), ids.size());
+        return submit(job, () -> forEachChunk(ids, chunk -> runChunk(job, chunk.size(),
+                () -> (long) friendRepository.updateDescription(user.getId(), chunk, description))));
+    }
+
+    @Override
+    public Optional<JobStatus> getStatus(UUID jobId) {
+        return findOwnJob(jobId).map(BulkJob::snapshot);
+    }
+
+    @Override
+    public boolean subscribe(UUID jobId, Consumer<JobStatus> listener) {
+        Optional<BulkJob> job = findOwnJob(jobId);
+        job.ifPresent(j -> j.subscribe(listener));
+        return job.isPresent();
+    }
+
+    @Override
+    public void unsubscribe(UUID jobId, Consumer<JobStatus> listener) {
+        BulkJob job = jobs.get(jobId);
+        if (job != null) {
+            job.unsubscribe(listener);
+        }
+    }
+
+    /**
+     * Регистрирует задачу и запускает ее на виртуальном потоке с контекстом безопасности вызывающего.
+     * Поток ждет свободного разрешения, поэтому одновременно работает не больше bulk-jobs.max-concurrent задач
+     */
+    private JobStatus submit(BulkJob job, Runnable work) {
+        removeExpiredJobs();
+        jobs.put(job.getId(), job);
+        executor.execute(new DelegatingSecurityContextRunnable(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.recordError("Задача прервана");
+                job.finish(JobState.FAILED);
+                return;
+            }
+            try {
+                job.start();
+                work.run();
+                job.finish(JobState.COMPLETED);
+            } catch (RuntimeException e) {
+                log.error("Фоновая задача {} завершилась ошибкой", job.getId(), e);
+                job.recordError(e.getMessage());
+                job.finish(JobState.FAILED);
+            } finally {
+                permits.release();
+            }
+        }));
+        return job.snapshot();
+    }
+
+    /**
+     * Выполняет пакет в отдельной транзакции. Ошибка откатывает только этот пакет,
+     * его элементы считаются необработанными, а задача продолжается со следующего
+     */
+    private void runChunk(BulkJob job, int size, ChunkAction action) {
+        try {
+            Long done = transactionTemplate.execute(status -> action.run());
+            long processed = done != null ? done : 0;
+            job.advance(processed, size - processed);
+        } catch (RuntimeException e) {
+            job.recordError(e.getMessage());
+            job.advance(0, size);
+        }
+    }
+
+    private void forEachChunk(List<Long> ids, Consumer<List<Long>> chunkConsumer) {
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            chunkConsumer.accept(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+    }
+
+    private Optional<BulkJob> findOwnJob(UUID jobId) {
+        Long userId = userService.getAuthUser().map(User::getId).orElse(null);
+        BulkJob job = jobs.get(jobId);
+        if (job == null || userId == null || !job.getOwnerId().equals(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    private User currentUser() {
+        return userService.getAuthUser().orElseThrow(() ->
+                new AuthenticationCredentialsNotFoundException("Пользователь не авторизован"));
+    }
+
+    private void removeExpiredJobs() {
+        Instant threshold = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.getState().isFinished()
+                && job.getFinishedAt() != null
+                && job.getFinishedAt().isBefore(threshold));
+    }
+
+    private void checkSize(int count) {
+        if (count <= 0 || count > maxItems) {
+            throw new IllegalArgumentException("Количество элементов должно быть от 1 до " + maxItems);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить временный файл {}: {}", file, e.getMessage());
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction {
+        Long run();
+    }
+}
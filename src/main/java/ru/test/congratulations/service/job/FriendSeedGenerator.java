@@ -0,0 +1,88 @@
+package ru.test.congratulations.service.job;
+
+import ru.test.congratulations.entity.request.WriteFriendRequest;
+
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Генератор тестовых друзей для заполнения базы
+ */
+class FriendSeedGenerator {
+
+    /**
+     * Генерирует уникальный запрос на создание друга
+     */
+    WriteFriendRequest generateUniqueFriendRequest(
+            LocalDate minDate,
+            LocalDate maxDate,
+            Set<String> usedEmails,
+            Set<String> usedNames) {
+
+        String[] firstNames = {"Александр", "Михаил", "Дмитрий", "Андрей", "Сергей",
+                "Иван", "Алексей", "Евгений", "Владимир", "Николай"};
+        String[] lastNames = {"Иванов", "Петров", "Сидоров", "Смирнов", "Кузнецов",
+                "Попов", "Васильев", "Павлов", "Семенов", "Голубев"};
+
+        String name;
+        String email;
+        int attempts = 0;
+
+        do {
+            String firstName = firstNames[ThreadLocalRandom.current().nextInt(firstNames.length)];
+            String lastName = lastNames[ThreadLocalRandom.current().nextInt(lastNames.length)];
+            name = firstName + " " + lastName;
+            email = generateEmail(firstName.toLowerCase(), lastName.toLowerCase());
+            attempts++;
+
+            if (attempts > 50) {
+                String uuid = UUID.randomUUID().toString().substring(0, 8);
+                name = name + " " + uuid;
+                email = uuid + "@example.com";
+                break;
+            }
+        } while (usedNames.contains(name) || usedEmails.contains(email));
+
+        long minEpochDay = minDate.toEpochDay();
+        long maxEpochDay = maxDate.toEpochDay();
+        long randomEpochDay = ThreadLocalRandom.current().nextLong(minEpochDay, maxEpochDay + 1);
+        LocalDate randomDate = LocalDate.ofEpochDay(randomEpochDay);
+
+        String[] descriptions = {
+                "Старый школьный друг",
+                "Коллега по работе",
+                "Знакомый из университета",
+                "Сосед",
+                "Друг по спортивной секции",
+                "Знакомый через общих друзей",
+                null
+        };
+        String description = descriptions[ThreadLocalRandom.current().nextInt(descriptions.length)];
+
+        WriteFriendRequest request = new WriteFriendRequest();
+        request.setFIO(name);
+        request.setEmail(email);
+        request.setDateOfBirth(randomDate);
+        request.setDescription(description);
+
+        return request;
+    }
+
+    /**
+     * Генерирует email на основе имени и фамилии
+     */
+    private String generateEmail(String firstName, String lastName) {
+        String[] domains = {"gmail.com", "yandex.ru", "mail.ru", "outlook.com", "yahoo.com"};
+        String domain = domains[ThreadLocalRandom.current().nextInt(domains.length)];
+
+        int variant = ThreadLocalRandom.current().nextInt(3);
+        return switch (variant) {
+            case 0 -> firstName + "." + lastName + "@" + domain;
+            case 1 -> firstName.charAt(0) + lastName + "@" + domain;
+            case 2 -> firstName + lastName + "@" + domain;
+            default -> firstName + lastName + ThreadLocalRandom.current().nextInt(100) + "@" + domain;
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package ru.test.congratulations.service.job;
+
+public enum JobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
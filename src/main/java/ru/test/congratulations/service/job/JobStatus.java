@@ -0,0 +1,21 @@
+package ru.test.congratulations.service.job;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Снимок состояния фоновой задачи
+ *
+ * @param id         идентификатор задачи
+ * @param type       вид операции
+ * @param state      текущее состояние
+ * @param total      общее количество элементов или -1, если заранее неизвестно
+ * @param processed  количество успешно обработанных элементов
+ * @param failed     количество элементов, обработать которые не удалось
+ * @param error      последняя ошибка или null
+ * @param createdAt  время постановки задачи
+ * @param finishedAt время завершения или null
+ */
+public record JobStatus(UUID id, JobType type, JobState state, long total, long processed, long failed,
+                        String error, Instant createdAt, Instant finishedAt) {
+}
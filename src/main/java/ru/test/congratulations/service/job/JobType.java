@@ -0,0 +1,11 @@
+package ru.test.congratulations.service.job;
+
+/**
+ * Виды массовых операций над друзьями
+ */
+public enum JobType {
+    SEED,
+    IMPORT,
+    DELETE,
+    UPDATE
+}
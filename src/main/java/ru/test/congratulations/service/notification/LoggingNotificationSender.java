@@ -0,0 +1,20 @@
+package ru.test.congratulations.service.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Записывает уведомления в лог вместо отправки. Для локальной разработки без SMTP-сервера
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.sender", havingValue = "log")
+public class LoggingNotificationSender implements NotificationSender {
+    private static final Logger log = LoggerFactory.getLogger(LoggingNotificationSender.class);
+
+    @Override
+    public void send(Notification notification) {
+        log.info("Уведомление для {}: {} - {}", notification.recipient(), notification.subject(), notification.text());
+    }
+}
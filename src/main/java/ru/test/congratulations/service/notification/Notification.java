@@ -0,0 +1,7 @@
+package ru.test.congratulations.service.notification;
+
+/**
+ * Готовое к отправке уведомление
+ */
+public record Notification(String recipient, String subject, String text) {
+}
@@ -0,0 +1,87 @@
+package ru.test.congratulations.service.notification;
+
+import org.springframework.stereotype.Component;
+import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.entity.OutboxMessage;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.repository.UserRepository;
+
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * Собирает тексты уведомлений для пакета сообщений outbox.
+ * Друзья и пользователи пакета загружаются двумя запросами, а не по одному на сообщение
+ */
+@Component
+public class NotificationComposer {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final FriendRepository friendRepository;
+    private final UserRepository userRepository;
+
+    public NotificationComposer(FriendRepository friendRepository, UserRepository userRepository) {
+        this.friendRepository = friendRepository;
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * Уведомления по идентификаторам сообщений. Сообщений, которые некому или не о ком отправлять,
+     * в результате нет
+     */
+    public Map<Long, Notification> compose(List<OutboxMessage> messages) {
+        Set<Long> friendIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (OutboxMessage message : messages) {
+            userIds.add(message.getUserId());
+            if (message.getFriendId() != null) {
+                friendIds.add(message.getFriendId());
+            }
+        }
+        Map<Long, Friend> friends = new HashMap<>();
+        friendRepository.findAllById(friendIds).forEach(friend -> friends.put(friend.getId(), friend));
+        Map<Long, User> users = new HashMap<>();
+        userRepository.findAllById(userIds).forEach(user -> users.put(user.getId(), user));
+
+        Map<Long, Notification> result = new HashMap<>();
+        for (OutboxMessage message : messages) {
+            Friend friend = friends.get(message.getFriendId());
+            User user = users.get(message.getUserId());
+            if (friend == null || user == null) {
+                continue;
+            }
+            Notification notification = switch (message.getType()) {
+                case BIRTHDAY_REMINDER -> reminder(message, friend, user);
+                case CONGRATULATION -> congratulation(friend, user);
+            };
+            if (notification != null) {
+                result.put(message.getId(), notification);
+            }
+        }
+        return result;
+    }
+
+    private Notification reminder(OutboxMessage message, Friend friend, User user) {
+        if (isBlank(user.getEmail())) {
+            return null;
+        }
+        return new Notification(user.getEmail(),
+                "День рождения: " + friend.getFio(),
+                "Напоминаем: " + message.getEventDate().format(DATE_FORMATTER) + " день рождения у "
+                        + friend.getFio() + ". Не забудьте поздравить!");
+    }
+
+    private Notification congratulation(Friend friend, User user) {
+        if (isBlank(friend.getEmail())) {
+            return null;
+        }
+        return new Notification(friend.getEmail(),
+                "С днем рождения!",
+                friend.getFio() + ", поздравляем с днем рождения!\n\n" + user.getLogin());
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,9 @@
+package ru.test.congratulations.service.notification;
+
+/**
+ * Канал доставки уведомлений. Реализация выбирается свойством notifications.sender.
+ * Любое исключение считается временной ошибкой: сообщение будет отправлено повторно
+ */
+public interface NotificationSender {
+    void send(Notification notification);
+}
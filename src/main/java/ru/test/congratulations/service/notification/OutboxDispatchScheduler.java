@@ -0,0 +1,38 @@
+package ru.test.congratulations.service.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Периодически отправляет уведомления из outbox и удаляет давно обработанные сообщения.
+ * Диспетчеры нескольких узлов делят сообщения через SKIP LOCKED
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxDispatchScheduler {
+    private final OutboxDispatcher outboxDispatcher;
+    private final OutboxService outboxService;
+    private final Duration retention;
+
+    public OutboxDispatchScheduler(OutboxDispatcher outboxDispatcher, OutboxService outboxService,
+                                   @Value("${outbox.retention:14d}") Duration retention) {
+        this.outboxDispatcher = outboxDispatcher;
+        this.outboxService = outboxService;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.poll-interval:5s}")
+    public void dispatch() {
+        outboxDispatcher.dispatchPending();
+    }
+
+    @Scheduled(cron = "${outbox.cleanup-cron:0 30 3 * * *}")
+    public void purge() {
+        outboxService.purgeFinishedBefore(LocalDateTime.now().minus(retention));
+    }
+}
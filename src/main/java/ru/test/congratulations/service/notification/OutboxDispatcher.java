@@ -0,0 +1,10 @@
+package ru.test.congratulations.service.notification;
+
+public interface OutboxDispatcher {
+
+    /**
+     * Отправляет накопившиеся в outbox уведомления пакетами, пока готовые к отправке не закончатся.
+     * Возвращает количество обработанных сообщений, включая отложенные для повтора
+     */
+    int dispatchPending();
+}
@@ -0,0 +1,184 @@
+package ru.test.congratulations.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.entity.OutboxMessage;
+import ru.test.congratulations.entity.OutboxStatus;
+import ru.test.congratulations.repository.OutboxMessageRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+@Service
+public class OutboxDispatcherImpl implements OutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(OutboxDispatcherImpl.class);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final OutboxMessageRepository outboxMessageRepository;
+    private final NotificationComposer notificationComposer;
+    private final NotificationSender notificationSender;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int parallelism;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final Duration lease;
+    private final Counter sentCounter;
+    private final Counter retryCounter;
+    private final Counter failedCounter;
+    private final Counter discardedCounter;
+    private final Timer sendTimer;
+
+    public OutboxDispatcherImpl(OutboxMessageRepository outboxMessageRepository,
+                                NotificationComposer notificationComposer,
+                                NotificationSender notificationSender,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${outbox.batch-size:100}") int batchSize,
+                                @Value("${outbox.parallelism:8}") int parallelism,
+                                @Value("${outbox.max-attempts:8}") int maxAttempts,
+                                @Value("${outbox.retry-backoff:30s}") Duration retryBackoff,
+                                @Value("${outbox.max-retry-backoff:6h}") Duration maxRetryBackoff,
+                                @Value("${outbox.lease:5m}") Duration lease) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.notificationComposer = notificationComposer;
+        this.notificationSender = notificationSender;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.parallelism = Math.max(1, parallelism);
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.maxRetryBackoff = maxRetryBackoff;
+        this.lease = lease;
+        this.sentCounter = deliveredCounter(meterRegistry, "sent");
+        this.retryCounter = deliveredCounter(meterRegistry, "retry");
+        this.failedCounter = deliveredCounter(meterRegistry, "failed");
+        this.discardedCounter = deliveredCounter(meterRegistry, "discarded");
+        this.sendTimer = Timer.builder("outbox.send")
+                .description("Время отправки одного уведомления")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public int dispatchPending() {
+        int processed = 0;
+        List<OutboxMessage> batch;
+        do {
+            batch = claimBatch();
+            if (!batch.isEmpty()) {
+                deliver(batch);
+                processed += batch.size();
+            }
+        } while (batch.size() == batchSize);
+        return processed;
+    }
+
+    /**
+     * Забирает пакет готовых сообщений и продлевает их аренду на время отправки.
+     * Транзакция короткая: сама отправка идет уже после ее фиксации
+     */
+    private List<OutboxMessage> claimBatch() {
+        List<OutboxMessage> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> ids = outboxMessageRepository.lockDueIds(now, batchSize);
+            if (ids.isEmpty()) {
+                return List.<OutboxMessage>of();
+            }
+            outboxMessageRepository.lease(ids, now.plus(lease));
+            List<OutboxMessage> messages = new ArrayList<>(ids.size());
+            outboxMessageRepository.findAllById(ids).forEach(messages::add);
+            return messages;
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    /**
+     * Отправляет пакет не более чем в parallelism потоков и одной транзакцией записывает результаты.
+     * Неудачные сообщения откладываются с экспоненциальной задержкой, после max-attempts попыток
+     * помечаются FAILED
+     */
+    private void deliver(List<OutboxMessage> batch) {
+        Map<Long, Notification> notifications = notificationComposer.compose(batch);
+        Queue<OutboxMessage> queue = new ConcurrentLinkedQueue<>(batch);
+        Queue<Long> sent = new ConcurrentLinkedQueue<>();
+        Queue<Long> discarded = new ConcurrentLinkedQueue<>();
+        Map<Long, String> errors = new ConcurrentHashMap<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < Math.min(parallelism, batch.size()); i++) {
+                executor.execute(() -> {
+                    OutboxMessage message;
+                    while ((message = queue.poll()) != null) {
+                        Notification notification = notifications.get(message.getId());
+                        if (notification == null) {
+                            discarded.add(message.getId());
+                            continue;
+                        }
+                        try {
+                            sendTimer.record(() -> notificationSender.send(notification));
+                            sent.add(message.getId());
+                        } catch (RuntimeException e) {
+                            errors.put(message.getId(), String.valueOf(e.getMessage()));
+                        }
+                    }
+                });
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            if (!sent.isEmpty()) {
+                outboxMessageRepository.complete(sent, OutboxStatus.SENT, now);
+            }
+            if (!discarded.isEmpty()) {
+                outboxMessageRepository.complete(discarded, OutboxStatus.DISCARDED, now);
+            }
+            for (OutboxMessage message : batch) {
+                String error = errors.get(message.getId());
+                if (error != null) {
+                    recordFailure(message, error, now);
+                }
+            }
+        });
+        sentCounter.increment(sent.size());
+        discardedCounter.increment(discarded.size());
+    }
+
+    private void recordFailure(OutboxMessage message, String error, LocalDateTime now) {
+        String trimmed = error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error;
+        if (message.getAttempts() >= maxAttempts) {
+            outboxMessageRepository.fail(message.getId(), OutboxStatus.FAILED, now, trimmed);
+            failedCounter.increment();
+            log.warn("Уведомление {} не отправлено после {} попыток: {}", message.getId(), message.getAttempts(), error);
+        } else {
+            Duration delay = backoff(message.getAttempts(), retryBackoff, maxRetryBackoff);
+            outboxMessageRepository.fail(message.getId(), OutboxStatus.PENDING, now.plus(delay), trimmed);
+            retryCounter.increment();
+        }
+    }
+
+    /**
+     * Задержка перед повтором: base, 2 * base, 4 * base... но не больше max
+     */
+    static Duration backoff(int attempts, Duration base, Duration max) {
+        int shift = Math.min(Math.max(attempts - 1, 0), 30);
+        Duration delay = base.multipliedBy(1L << shift);
+        return delay.compareTo(max) > 0 ? max : delay;
+    }
+
+    private static Counter deliveredCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("outbox.delivered")
+                .description("Обработанные уведомления outbox по результату")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
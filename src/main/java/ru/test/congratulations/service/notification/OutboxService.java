@@ -0,0 +1,20 @@
+package ru.test.congratulations.service.notification;
+
+import ru.test.congratulations.entity.NotificationType;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public interface OutboxService {
+
+    /**
+     * Добавляет событие для отправки уведомления. Вызывается только внутри транзакции
+     * изменения, которое его породило: событие фиксируется или откатывается вместе с ним
+     */
+    void enqueue(NotificationType type, Long userId, Long friendId, LocalDate eventDate);
+
+    /**
+     * Удаляет отправленные и отброшенные сообщения, созданные раньше threshold
+     */
+    int purgeFinishedBefore(LocalDateTime threshold);
+}
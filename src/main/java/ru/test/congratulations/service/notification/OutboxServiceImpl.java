@@ -0,0 +1,34 @@
+package ru.test.congratulations.service.notification;
+
+import jakarta.transaction.Transactional;
+import org.springframework.stereotype.Service;
+import ru.test.congratulations.entity.NotificationType;
+import ru.test.congratulations.entity.OutboxMessage;
+import ru.test.congratulations.entity.OutboxStatus;
+import ru.test.congratulations.repository.OutboxMessageRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Service
+public class OutboxServiceImpl implements OutboxService {
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    public OutboxServiceImpl(OutboxMessageRepository outboxMessageRepository) {
+        this.outboxMessageRepository = outboxMessageRepository;
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    public void enqueue(NotificationType type, Long userId, Long friendId, LocalDate eventDate) {
+        outboxMessageRepository.save(new OutboxMessage(type, userId, friendId, eventDate));
+    }
+
+    @Override
+    @Transactional
+    public int purgeFinishedBefore(LocalDateTime threshold) {
+        return outboxMessageRepository.deleteFinishedBefore(List.of(OutboxStatus.SENT, OutboxStatus.DISCARDED),
+                threshold);
+    }
+}
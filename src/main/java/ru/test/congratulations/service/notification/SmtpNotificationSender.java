@@ -0,0 +1,33 @@
+package ru.test.congratulations.service.notification;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+/**
+ * Отправка уведомлений письмами через SMTP-сервер из настроек spring.mail.*
+ */
+@Component
+@ConditionalOnProperty(name = "notifications.sender", havingValue = "smtp", matchIfMissing = true)
+public class SmtpNotificationSender implements NotificationSender {
+    private final JavaMailSender mailSender;
+    private final String from;
+
+    public SmtpNotificationSender(JavaMailSender mailSender,
+                                  @Value("${notifications.mail.from}") String from) {
+        this.mailSender = mailSender;
+        this.from = from;
+    }
+
+    @Override
+    public void send(Notification notification) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(notification.recipient());
+        message.setSubject(notification.subject());
+        message.setText(notification.text());
+        mailSender.send(message);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.test.congratulations.service.reminder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Запускает создание напоминаний по расписанию reminders.cron.
+ * Запуск идемпотентен, поэтому по умолчанию он повторяется в течение дня: узел, пропустивший
+ * утренний запуск, и друзья, добавленные днем, обрабатываются следующим запуском.
+ * Несколько узлов могут работать одновременно - пакеты распределяются через SKIP LOCKED
+ */
+@Component
+@ConditionalOnProperty(name = "reminders.enabled", havingValue = "true", matchIfMissing = true)
+public class BirthdayReminderScheduler {
+    private final BirthdayReminderService reminderService;
+    private final ZoneId zone;
+
+    public BirthdayReminderScheduler(BirthdayReminderService reminderService,
+                                     @Value("${reminders.zone:}") String zone) {
+        this.reminderService = reminderService;
+        this.zone = zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone);
+    }
+
+    @Scheduled(cron = "${reminders.cron:0 0/15 7-22 * * *}", zone = "${reminders.zone:}")
+    public void createTodayReminders() {
+        reminderService.createReminders(LocalDate.now(zone));
+    }
+}
@@ -0,0 +1,13 @@
+package ru.test.congratulations.service.reminder;
+
+import java.time.LocalDate;
+
+public interface BirthdayReminderService {
+
+    /**
+     * Создает напоминания обо всех днях рождения на указанную дату у всех пользователей.
+     * Повторный вызов и одновременные вызовы на нескольких узлах не создают дубликатов.
+     * Возвращает количество напоминаний, созданных этим вызовом
+     */
+    long createReminders(LocalDate date);
+}
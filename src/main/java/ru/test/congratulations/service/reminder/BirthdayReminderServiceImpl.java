@@ -0,0 +1,107 @@
+package ru.test.congratulations.service.reminder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.repository.BirthdayReminderRepository;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+@Service
+public class BirthdayReminderServiceImpl implements BirthdayReminderService {
+    private static final Logger log = LoggerFactory.getLogger(BirthdayReminderServiceImpl.class);
+    private static final int LEAP_DAY = 229;
+
+    private final BirthdayReminderRepository reminderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int workers;
+    private final Counter createdCounter;
+    private final Timer scanTimer;
+
+    public BirthdayReminderServiceImpl(BirthdayReminderRepository reminderRepository,
+                                       TransactionTemplate transactionTemplate,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${reminders.batch-size:1000}") int batchSize,
+                                       @Value("${reminders.workers:2}") int workers) {
+        this.reminderRepository = reminderRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.workers = Math.max(1, workers);
+        this.createdCounter = Counter.builder("reminders.created")
+                .description("Созданные напоминания о днях рождения")
+                .baseUnit("reminders")
+                .register(meterRegistry);
+        this.scanTimer = Timer.builder("reminders.scan")
+                .description("Длительность обхода дней рождения на дату")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Несколько обработчиков на виртуальных потоках забирают пакеты, пока очередной пакет не окажется пустым.
+     * Каждый пакет создается отдельной транзакцией, поэтому сбой теряет не больше одного пакета,
+     * а следующий запуск планировщика доделает оставшееся
+     */
+    @Override
+    public long createReminders(LocalDate date) {
+        List<Integer> monthDays = dueMonthDays(date);
+        long start = System.nanoTime();
+        List<Callable<Long>> tasks = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            tasks.add(() -> claimUntilEmpty(monthDays, date));
+        }
+
+        long created = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<Long> future : executor.invokeAll(tasks)) {
+                created += future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Обход дней рождения прерван", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Ошибка при создании напоминаний на " + date, e.getCause());
+        } finally {
+            scanTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Напоминания на {}: создано {} за {} мс ({} в секунду)",
+                date, created, millis, millis > 0 ? created * 1000 / millis : created);
+        return created;
+    }
+
+    private long claimUntilEmpty(List<Integer> monthDays, LocalDate date) {
+        long created = 0;
+        int claimed;
+        do {
+            Integer result = transactionTemplate.execute(status ->
+                    reminderRepository.claimDue(monthDays, date, batchSize));
+            claimed = result != null ? result : 0;
+            createdCounter.increment(claimed);
+            created += claimed;
+        } while (claimed > 0);
+        return created;
+    }
+
+    /**
+     * Дни рождения, о которых напоминаем в указанную дату.
+     * В невисокосный год родившиеся 29 февраля получают напоминание 28 февраля
+     */
+    static List<Integer> dueMonthDays(LocalDate date) {
+        int monthDay = date.getMonthValue() * 100 + date.getDayOfMonth();
+        if (!date.isLeapYear() && date.getMonth() == Month.FEBRUARY && date.getDayOfMonth() == 28) {
+            return List.of(monthDay, LEAP_DAY);
+        }
+        return List.of(monthDay);
+    }
+}
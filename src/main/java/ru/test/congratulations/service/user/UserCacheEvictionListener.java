@@ -0,0 +1,27 @@
+package ru.test.congratulations.service.user;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import ru.test.congratulations.entity.User;
+
+/**
+ * Сбрасывает кэш входа при изменении или удалении пользователя через JPA,
+ * в том числе через REST-репозиторий. Сброс выполняется после фиксации транзакции
+ * (см. {@link UserLookupCache#invalidate(Long)}). Массовые JPQL-обновления мимо сущности
+ * должны сбрасывать кэш сами
+ */
+@Component
+public class UserCacheEvictionListener {
+    private final UserLookupCache userLookupCache;
+
+    public UserCacheEvictionListener(UserLookupCache userLookupCache) {
+        this.userLookupCache = userLookupCache;
+    }
+
+    @PostUpdate
+    @PostRemove
+    void evict(User user) {
+        userLookupCache.invalidate(user.getId());
+    }
+}
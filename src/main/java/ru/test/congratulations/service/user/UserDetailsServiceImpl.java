@@ -2,28 +2,51 @@ package ru.test.congratulations.service.user;
 
 import jakarta.transaction.Transactional;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import ru.test.congratulations.entity.User;
 import ru.test.congratulations.repository.UserRepository;
 
 @Service
-@Transactional
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
     private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
 
-    public UserDetailsServiceImpl(UserRepository userRepository) {
+    public UserDetailsServiceImpl(UserRepository userRepository, UserLookupCache userLookupCache) {
         this.userRepository = userRepository;
+        this.userLookupCache = userLookupCache;
     }
 
+    /**
+     * Ищет пользователя по email, если строка содержит "@", иначе по логину.
+     * Сначала проверяется кэш, при промахе выполняется один запрос по обоим столбцам
+     */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        if (username.contains("@")) {
-            return userRepository.findByEmail(username)
+        return userLookupCache.get(username).orElseGet(() -> {
+            boolean byEmail = username.contains("@");
+            User user = userRepository.findAllByLoginOrEmail(username).stream()
+                    .filter(candidate -> username.equals(byEmail ? candidate.getEmail() : candidate.getLogin()))
+                    .findFirst()
                     .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден: " + username));
-        } else {
-            return userRepository.findByLogin(username)
-                    .orElseThrow(() -> new UsernameNotFoundException("Пользователь не найден: " + username));
-        }
+            userLookupCache.put(user);
+            return user;
+        });
+    }
+
+    /**
+     * Сохраняет пересчитанный хэш пароля. Spring Security вызывает метод после успешного входа,
+     * если стоимость сохраненного хэша меньше настроенной security.password.bcrypt-strength
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        User entity = (User) user;
+        userRepository.updatePassword(entity.getId(), newPassword);
+        userLookupCache.invalidate(entity.getId());
+        entity.setPassword(newPassword);
+        return entity;
     }
 }
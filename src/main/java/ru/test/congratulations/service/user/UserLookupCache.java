@@ -0,0 +1,94 @@
+package ru.test.congratulations.service.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.test.congratulations.entity.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Кэш пользователей для входа, ключ - логин или email.
+ * <p>
+ * Одна запись доступна по обоим ключам. Хранится снимок полей, а наружу каждый раз отдается новый
+ * объект User, поэтому разные сессии не делят один изменяемый principal. Записи живут не дольше
+ * {@code security.user-cache.ttl} и сбрасываются при изменении пользователя
+ * (см. {@link UserCacheEvictionListener}). Попадания и промахи публикуются в метриках
+ * cache.gets с тегом cache=userPrincipals
+ */
+@Component
+public class UserLookupCache {
+    private final Cache<String, CachedUser> cache;
+
+    public UserLookupCache(@Value("${security.user-cache.max-size:10000}") long maxSize,
+                           @Value("${security.user-cache.ttl:5m}") Duration ttl,
+                           MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userPrincipals");
+    }
+
+    public Optional<User> get(String username) {
+        return Optional.ofNullable(cache.getIfPresent(username)).map(CachedUser::toUser);
+    }
+
+    /**
+     * Кэширует пользователя по email и по логину. Логин с "@" вход ищет как email,
+     * поэтому такой ключ не сохраняется, чтобы не подменить чужую запись
+     */
+    public void put(User user) {
+        CachedUser cached = CachedUser.of(user);
+        cache.put(user.getEmail(), cached);
+        if (!user.getLogin().contains("@")) {
+            cache.put(user.getLogin(), cached);
+        }
+    }
+
+    /**
+     * Сбрасывает все записи пользователя, в том числе по старым логину и email.
+     * Внутри транзакции сброс выполняется после ее фиксации: до нее параллельный вход
+     * прочитал бы из БД старые данные и снова положил их в кэш
+     */
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+
+    private void evict(Long userId) {
+        cache.asMap().values().removeIf(cached -> cached.id().equals(userId));
+    }
+
+    private record CachedUser(Long id, String login, String email, String password, LocalDateTime createdAt) {
+
+        static CachedUser of(User user) {
+            return new CachedUser(user.getId(), user.getLogin(), user.getEmail(), user.getPassword(),
+                    user.getCreatedAt());
+        }
+
+        User toUser() {
+            User user = new User(email, login, password);
+            user.setId(id);
+            user.setCreatedAt(createdAt);
+            return user;
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package ru.test.congratulations.service.user;
 
+import io.micrometer.observation.annotation.Observed;
 import jakarta.transaction.Transactional;
 import jakarta.validation.ValidationException;
+import org.hibernate.exception.ConstraintViolationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -14,12 +17,14 @@ import ru.test.congratulations.repository.UserRepository;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
+@Observed(name = "app.service")
 @Transactional
 @Service
 public class UserServiceImpl implements UserService {
     private static final Pattern PASSWORD_PATTERN = Pattern.compile(
             "^(?=.*[a-z])(?=.*[A-Z])(?=.*\\d)(?=.*[!$%^()_+\\-=\\[\\]{};:'\",.<>])[A-Za-z\\d!$%^()_+\\-=\\[\\]{};:'\",.<>]{8,}$"
     );
+    private static final String UNIQUE_VIOLATION = "23505";
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
 
@@ -30,9 +35,15 @@ public class UserServiceImpl implements UserService {
         this.passwordEncoder = passwordEncoder;
     }
 
+    /**
+     * Регистрирует пользователя одной вставкой. Уникальность email и логина проверяет БД
+     * (ограничения tbl_user), поэтому одновременные регистрации с одинаковыми данными не проходят.
+     * Хэширование пароля выполняется до транзакции и не удерживает соединение с БД
+     */
     @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
     public void registerUser(RegistrationRequest request) {
-        validateUserData(request.getEmail(), request.getPassword(), request.getLogin());
+        validateUserData(request.getEmail(), request.getPassword());
 
         User user = new User(
                 request.getEmail(),
@@ -40,22 +51,56 @@ public class UserServiceImpl implements UserService {
                 passwordEncoder.encode(request.getPassword())
         );
 
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            throw duplicateUser(e, request.getEmail(), request.getLogin());
+        }
     }
 
-    private void validateUserData(String email, String password, String login) {
+    private void validateUserData(String email, String password) {
         if (email == null || !email.contains("@")) {
             throw new ValidationException("Некорректный формат email");
         }
         if (password == null || !PASSWORD_PATTERN.matcher(password).matches()) {
             throw new ValidationException("Пароль должен содержать минимум 8 символов, включая заглавные и строчные буквы латинского алфавита, цифры и специальные символы (кроме @/|\\*#&?)");
         }
-        if (userRepository.existsByEmail(email)) {
-            throw new ValidationException("Пользователь с email " + email + " уже существует");
+    }
+
+    /**
+     * Переводит нарушение ограничения уникальности tbl_user в сообщение для пользователя.
+     * В базах, созданных до явного именования ограничений, у них остались имена, сгенерированные
+     * Hibernate; для них поле определяется одной проверкой email по коду нарушения уникальности 23505
+     */
+    private RuntimeException duplicateUser(DataIntegrityViolationException e, String email, String login) {
+        ConstraintViolationException violation = null;
+        for (Throwable cause = e; cause != null && violation == null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException found) {
+                violation = found;
+            }
+        }
+        if (violation == null) {
+            return e;
+        }
+        String constraint = violation.getConstraintName();
+        if (User.EMAIL_CONSTRAINT.equalsIgnoreCase(constraint)) {
+            return duplicateEmail(email);
         }
-        if (userRepository.existsByLogin(login)) {
-            throw new ValidationException("Пользователь с логином " + login + " уже существует");
+        if (User.LOGIN_CONSTRAINT.equalsIgnoreCase(constraint)) {
+            return duplicateLogin(login);
         }
+        if (UNIQUE_VIOLATION.equals(violation.getSQLState())) {
+            return userRepository.existsByEmail(email) ? duplicateEmail(email) : duplicateLogin(login);
+        }
+        return e;
+    }
+
+    private static ValidationException duplicateEmail(String email) {
+        return new ValidationException("Пользователь с email " + email + " уже существует");
+    }
+
+    private static ValidationException duplicateLogin(String login) {
+        return new ValidationException("Пользователь с логином " + login + " уже существует");
     }
 
     @Override
@@ -2,13 +2,18 @@ class FriendsApp {
     constructor() {
         this.allFriends = [];
         this.filteredFriends = [];
+        // Друзья подгружаются порциями в порядке ближайшего дня рождения
+        this.scrollSize = 100;
+        this.nextCursor = null;
+        this.totalItems = 0;
         this.currentPage = 1;
         this.pageSize = 12;
         this.currentSort = {
-            column: 'name',
+            column: null,
             direction: 'asc'
         };
         this.searchTimeout = null;
+        this.searchController = null;
         this.deletingFriendId = null;
         this.editingFriendId = null;
         this.imageChanged = false;
@@ -44,6 +49,8 @@ class FriendsApp {
         this.todayBirthdaysCount = document.getElementById('todayBirthdaysCount');
         this.shownCount = document.getElementById('shownCount');
         this.totalCount = document.getElementById('totalCount');
+        this.loadMoreContainer = document.getElementById('loadMoreContainer');
+        this.loadMoreBtn = document.getElementById('loadMoreBtn');
     }
 
     setupEventListeners() {
@@ -69,6 +76,7 @@ class FriendsApp {
 
         this.prevPageBtn.addEventListener('click', () => this.changePage(-1));
         this.nextPageBtn.addEventListener('click', () => this.changePage(1));
+        this.loadMoreBtn.addEventListener('click', () => this.loadMoreFriends());
 
         document.getElementById('friendForm').addEventListener('submit', (e) => this.handleFormSubmit(e));
 
@@ -96,26 +104,11 @@ class FriendsApp {
                 </tr>
             `;
 
-            const response = await fetch('/api/friends/upcoming?page=1&size=1000');
-            if (!response.ok) throw new Error('Ошибка загрузки данных');
-
-            const data = await response.json();
-            let friends = [];
-
-            if (data.content && Array.isArray(data.content)) {
-                friends = data.content;
-            } else if (data.friends && Array.isArray(data.friends)) {
-                friends = data.friends;
-            }
-
-            this.allFriends = friends.map(friend => ({
-                id: friend.id,
-                fio: friend.fio || friend.name || 'Неизвестно',
-                email: friend.email || '',
-                birthDate: friend.birthDate,
-                age: this.calculateAge(this.parseDate(friend.birthDate)),
-                imageUrl: friend.imageUrl
-            }));
+            // Загружается только первая порция, остальные - по кнопке "Показать ещё"
+            this.allFriends = [];
+            this.nextCursor = null;
+            this.currentPage = 1;
+            await this.fetchFriendsPage(null);
 
             this.filteredFriends = [...this.allFriends];
             this.updateStats();
@@ -123,6 +116,7 @@ class FriendsApp {
             this.updatePaginationControls();
             this.checkPaginationNeeded();
             this.checkEmptyState();
+            this.updateLoadMore();
         } catch (error) {
             console.error('Error loading friends:', error);
             this.friendsTableBody.innerHTML = `
@@ -139,42 +133,123 @@ class FriendsApp {
         }
     }
 
-    updateStats() {
-        const today = new Date();
-        today.setHours(0, 0, 0, 0);
+    async fetchFriendsPage(cursor) {
+        const params = new URLSearchParams({ size: String(this.scrollSize) });
+        if (cursor) params.set('cursor', cursor);
 
-        const upcomingBirthdays = this.allFriends.filter(friend => {
-            const birthDate = this.parseDate(friend.birthDate);
-            if (!birthDate) return false;
+        const response = await fetch(`/api/friends/upcoming/scroll?${params}`);
+        if (!response.ok) throw new Error('Ошибка загрузки данных');
 
-            const nextBirthday = this.getNextBirthday(birthDate);
-            const daysUntil = Math.ceil((nextBirthday - today) / (1000 * 60 * 60 * 24));
-            return daysUntil <= 7;
-        });
+        const data = await response.json();
+        if (data.content && Array.isArray(data.content)) {
+            this.allFriends = this.allFriends.concat(data.content.map(friend => this.toFriendRow(friend)));
+        }
+        this.nextCursor = data.nextCursor;
+        this.totalItems = Number(data.totalItems) || this.allFriends.length;
+    }
 
-        const todayBirthdays = this.allFriends.filter(friend => {
-            const birthDate = this.parseDate(friend.birthDate);
-            if (!birthDate) return false;
+    async loadMoreFriends() {
+        if (!this.nextCursor) return;
 
-            const nextBirthday = this.getNextBirthday(birthDate);
-            const daysUntil = Math.ceil((nextBirthday - today) / (1000 * 60 * 60 * 24));
-            return daysUntil === 0;
-        });
+        this.loadMoreBtn.disabled = true;
+        try {
+            await this.fetchFriendsPage(this.nextCursor);
+            if (!this.isSearching()) {
+                this.filteredFriends = [...this.allFriends];
+            }
+            this.applySortingAndPagination();
+            this.updatePaginationControls();
+            this.checkPaginationNeeded();
+        } catch (error) {
+            console.error('Error loading friends:', error);
+            this.showNotification('Не удалось загрузить данные', 'error');
+        } finally {
+            this.loadMoreBtn.disabled = false;
+            this.updateLoadMore();
+        }
+    }
 
-        this.totalFriendsCount.textContent = this.allFriends.length;
-        this.upcomingBirthdaysCount.textContent = upcomingBirthdays.length;
-        this.todayBirthdaysCount.textContent = todayBirthdays.length;
+    isSearching() {
+        return this.searchInput.value.trim() !== '';
     }
 
-    performSearch(searchTerm) {
+    updateLoadMore() {
+        this.loadMoreContainer.style.display = this.nextCursor && !this.isSearching() ? 'flex' : 'none';
+    }
+
+    async updateStats() {
+        this.totalFriendsCount.textContent = this.totalItems;
+
+        // Загружена только часть друзей, поэтому количество именинников берем из агрегатов календаря
+        const today = new Date();
+        const weekLater = new Date(today);
+        weekLater.setDate(today.getDate() + 7);
+        const todayStr = this.toIsoDate(today);
+        try {
+            const params = new URLSearchParams({ startDate: todayStr, endDate: this.toIsoDate(weekLater) });
+            const response = await fetch(`/api/calendar/day-data?${params}`);
+            if (!response.ok) throw new Error(`HTTP ${response.status}`);
+
+            const data = await response.json();
+            const dates = Array.isArray(data.keysFriends) ? data.keysFriends : [];
+            const counts = Array.isArray(data.required) ? data.required : [];
+            let upcoming = 0;
+            let todayCount = 0;
+            dates.forEach((date, index) => {
+                const count = Number(counts[index]) || 0;
+                upcoming += count;
+                if (date === todayStr) {
+                    todayCount = count;
+                }
+            });
+            this.upcomingBirthdaysCount.textContent = upcoming;
+            this.todayBirthdaysCount.textContent = todayCount;
+        } catch (error) {
+            console.error('Error loading birthday counts:', error);
+            this.upcomingBirthdaysCount.textContent = '—';
+            this.todayBirthdaysCount.textContent = '—';
+        }
+    }
+
+    toFriendRow(friend) {
+        return {
+            id: friend.id,
+            fio: friend.fio || friend.name || 'Неизвестно',
+            email: friend.email || '',
+            birthDate: friend.birthDate,
+            age: this.calculateAge(this.parseDate(friend.birthDate)),
+            imageUrl: friend.imageUrl
+        };
+    }
+
+    async performSearch(searchTerm) {
+        // Ответ на устаревший запрос не должен перезаписать результаты нового
+        if (this.searchController) {
+            this.searchController.abort();
+            this.searchController = null;
+        }
+
         if (searchTerm === '') {
             this.filteredFriends = [...this.allFriends];
         } else {
-            const searchLower = searchTerm.toLowerCase();
-            this.filteredFriends = this.allFriends.filter(friend =>
-                friend.fio.toLowerCase().includes(searchLower) ||
-                (friend.email && friend.email.toLowerCase().includes(searchLower))
-            );
+            const controller = new AbortController();
+            this.searchController = controller;
+            try {
+                const params = new URLSearchParams({ q: searchTerm, limit: '50' });
+                const response = await fetch(`/api/friends/search?${params}`, { signal: controller.signal });
+                if (!response.ok) throw new Error('Ошибка поиска');
+
+                const friends = await response.json();
+                this.filteredFriends = friends.map(friend => this.toFriendRow(friend));
+            } catch (error) {
+                if (error.name === 'AbortError') return;
+                console.error('Error searching friends:', error);
+                this.filteredFriends = [];
+            } finally {
+                if (this.searchController === controller) {
+                    this.searchController = null;
+                }
+            }
         }
 
         this.currentPage = 1;
@@ -182,6 +257,7 @@ class FriendsApp {
         this.updatePaginationControls();
         this.checkPaginationNeeded();
         this.checkEmptyState();
+        this.updateLoadMore();
     }
 
     sortTable(column) {
@@ -206,6 +282,10 @@ class FriendsApp {
     }
 
     sortFriends(friends) {
+        // Без выбранной колонки сохраняется порядок сервера: ближайшие дни рождения первыми
+        if (!this.currentSort.column) {
+            return [...friends];
+        }
         return [...friends].sort((a, b) => {
             const aValue = this.getFriendValue(a, this.currentSort.column);
             const bValue = this.getFriendValue(b, this.currentSort.column);
@@ -259,7 +339,7 @@ class FriendsApp {
                     <td class="avatar-cell">
                         <div class="friend-name-with-avatar">
                             ${friend.imageUrl ? `
-                                <img src="${friend.imageUrl}"
+                                <img src="${friend.imageUrl}?size=64"
                                      alt="${this.escapeHtml(friend.fio)}"
                                      class="avatar-table"
                                      onerror="this.onerror=null; this.style.display='none'; this.nextElementSibling.style.display='flex'">
@@ -302,7 +382,7 @@ class FriendsApp {
         const endIndex = Math.min(this.currentPage * this.pageSize, this.filteredFriends.length);
 
         this.shownCount.textContent = this.filteredFriends.length > 0 ? `${startIndex}-${endIndex}` : '0';
-        this.totalCount.textContent = this.filteredFriends.length;
+        this.totalCount.textContent = this.isSearching() ? this.filteredFriends.length : this.totalItems;
     }
 
     updatePaginationControls() {
@@ -436,7 +516,7 @@ class FriendsApp {
             const imagePreview = document.getElementById('imagePreview');
 
             if (friend.imageUrl) {
-                currentImageSrc.src = friend.imageUrl;
+                currentImageSrc.src = `${friend.imageUrl}?size=256`;
                 currentImage.style.display = 'block';
                 imagePreview.style.display = 'none';
             } else {
@@ -775,30 +855,6 @@ class FriendsApp {
         return null;
     }
 
-    getNextBirthday(birthDate) {
-        if (!birthDate) return null;
-
-        const today = new Date();
-        today.setHours(0, 0, 0, 0);
-
-        const currentYear = today.getFullYear();
-        const birthdayThisYear = new Date(
-            currentYear,
-            birthDate.getMonth(),
-            birthDate.getDate()
-        );
-
-        if (birthdayThisYear >= today) {
-            return birthdayThisYear;
-        } else {
-            return new Date(
-                currentYear + 1,
-                birthDate.getMonth(),
-                birthDate.getDate()
-            );
-        }
-    }
-
     calculateAge(birthDate, referenceDate = new Date()) {
         if (!birthDate) return 0;
 
@@ -812,6 +868,13 @@ class FriendsApp {
         return age;
     }
 
+    toIsoDate(date) {
+        const year = date.getFullYear();
+        const month = String(date.getMonth() + 1).padStart(2, '0');
+        const day = String(date.getDate()).padStart(2, '0');
+        return `${year}-${month}-${day}`;
+    }
+
     formatDateShort(date) {
         return date.toLocaleDateString('ru-RU', {
             day: '2-digit',
@@ -431,7 +431,7 @@ class MainApp {
             html += `
                 <div class="friend-item" data-friend-id="${friend.id}">
                     ${friend.imageUrl ? `
-                        <img src="${friend.imageUrl}"
+                        <img src="${friend.imageUrl}?size=64"
                              alt="${displayName}"
                              class="friend-avatar"
                              onerror="this.onerror=null; this.style.display='none'; this.parentElement.querySelector('.friend-avatar-placeholder').style.display='flex'">
@@ -549,7 +549,7 @@ class MainApp {
                     <td class="friend-name-cell">
                         <div class="friend-name-with-avatar">
                             ${friend.imageUrl ? `
-                                <img src="${friend.imageUrl}"
+                                <img src="${friend.imageUrl}?size=64"
                                      alt="${displayName}"
                                      class="avatar-small"
                                      onerror="this.onerror=null; this.style.display='none'; this.parentElement.querySelector('.avatar-placeholder-small').style.display='flex'">
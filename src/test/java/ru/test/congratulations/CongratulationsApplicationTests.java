@@ -2,10 +2,18 @@ package ru.test.congratulations;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
 
 @SpringBootTest
 class CongratulationsApplicationTests {
 
+	@DynamicPropertySource
+	static void database(DynamicPropertyRegistry registry) {
+		EmbeddedPostgresSupport.register(registry, "context_loads");
+	}
+
 	@Test
 	void contextLoads() {
 	}
@@ -0,0 +1,47 @@
+package ru.test.congratulations.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.test.congratulations.entity.response.FriendResponse;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Календарь: счетчики дней рождения по диапазону и списки именинников по дням.
+ * getByDateRange включает преобразование в FriendResponse и сортировку именинников каждого дня
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class CalendarBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int friendCount;
+
+    @Param({"7", "31", "365"})
+    public int rangeDays;
+
+    private FriendServiceFixture fixture;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new FriendServiceFixture(friendCount);
+        endDate = FriendServiceFixture.START_DATE.plusDays(rangeDays - 1);
+    }
+
+    @Benchmark
+    public Map<String, Long> countByDateRange() {
+        return fixture.friendService.countByDateRange(FriendServiceFixture.START_DATE, endDate);
+    }
+
+    @Benchmark
+    public Map<String, ArrayList<FriendResponse>> getByDateRange() {
+        return fixture.friendService.getByDateRange(FriendServiceFixture.START_DATE, endDate);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.test.congratulations.benchmark;
+
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.entity.request.RegistrationRequest;
+import ru.test.congratulations.service.user.UserService;
+
+import java.util.Optional;
+
+/**
+ * UserService, всегда возвращающий одного авторизованного пользователя
+ */
+class FixedUserService implements UserService {
+    private final User user;
+
+    FixedUserService(User user) {
+        this.user = user;
+    }
+
+    @Override
+    public Optional<User> findByLogin(String login) {
+        return user.getLogin().equals(login) ? Optional.of(user) : Optional.empty();
+    }
+
+    @Override
+    public void registerUser(RegistrationRequest request) {
+        throw new UnsupportedOperationException("Не используется в бенчмарках");
+    }
+
+    @Override
+    public Optional<User> getAuthUser() {
+        return Optional.of(user);
+    }
+
+    @Override
+    public boolean existsUserByEmail(String email) {
+        return user.getEmail().equals(email);
+    }
+}
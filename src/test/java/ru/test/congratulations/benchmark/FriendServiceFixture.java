@@ -0,0 +1,58 @@
+package ru.test.congratulations.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.test.congratulations.config.FriendSearchIndexRunner;
+import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.service.FriendServiceImpl;
+import ru.test.congratulations.service.birthday.BirthdayIndex;
+import ru.test.congratulations.service.calendar.CalendarAggregateServiceImpl;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Собирает FriendServiceImpl поверх хранилищ в памяти с заданным количеством друзей.
+ * Данные генерируются с фиксированным зерном, чтобы результаты разных прогонов были сравнимы
+ */
+final class FriendServiceFixture {
+    static final Long USER_ID = 1L;
+    static final LocalDate START_DATE = LocalDate.of(2025, 1, 1);
+
+    private static final String[] DESCRIPTIONS = {
+            "Старый школьный друг", "Коллега по работе", "Сосед", null
+    };
+
+    final InMemoryFriendRepository friendRepository = new InMemoryFriendRepository();
+    final FriendServiceImpl friendService;
+
+    FriendServiceFixture(int friendCount) {
+        User user = new User("bench@example.com", "bench_user", "password");
+        user.setId(USER_ID);
+
+        Random random = new Random(42);
+        long minEpochDay = LocalDate.of(1950, 1, 1).toEpochDay();
+        long maxEpochDay = LocalDate.of(2015, 12, 31).toEpochDay();
+        for (long id = 1; id <= friendCount; id++) {
+            LocalDate dateOfBirth = LocalDate.ofEpochDay(minEpochDay + random.nextLong(maxEpochDay - minEpochDay + 1));
+            Friend friend = new Friend("Друг Номер " + id, "friend" + id + "@example.com", dateOfBirth,
+                    DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]);
+            friend.setId(id);
+            friend.setUser(user);
+            friendRepository.save(friend);
+        }
+
+        BirthdayIndex birthdayIndex = new BirthdayIndex(friendRepository, 10, Duration.ofMinutes(10), new SimpleMeterRegistry());
+        // Поздравления в измеряемых методах не используются
+        CalendarAggregateServiceImpl calendarAggregateService = new CalendarAggregateServiceImpl(
+                InMemoryBirthdayCountRepository.of(friendRepository.findByUserId(USER_ID)), null);
+
+        // Изображения и поиск в измеряемых методах не используются
+        friendService = new FriendServiceImpl(friendRepository, new FixedUserService(user), birthdayIndex,
+                null, null, null, calendarAggregateService, new FriendSearchIndexRunner(null, false));
+
+        // Индекс строится лениво, прогреваем его до начала измерений
+        birthdayIndex.size(USER_ID);
+    }
+}
@@ -0,0 +1,163 @@
+package ru.test.congratulations.benchmark;
+
+import ru.test.congratulations.entity.BirthdayCount;
+import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.repository.BirthdayCountRepository;
+
+import java.util.*;
+
+/**
+ * Агрегат дней рождения в памяти. Строки упорядочены по дню года,
+ * поэтому выборка по диапазону ведет себя как просмотр диапазона индекса
+ */
+class InMemoryBirthdayCountRepository implements BirthdayCountRepository {
+    private final TreeMap<Integer, List<BirthdayCount>> rowsByMonthDay = new TreeMap<>();
+    private int rowCount;
+
+    /**
+     * Строит агрегат по друзьям так же, как BirthdayCountRepository.rebuildForUser
+     */
+    static InMemoryBirthdayCountRepository of(Collection<Friend> friends) {
+        Map<Integer, Map<Integer, Long>> counts = new HashMap<>();
+        Long userId = null;
+        for (Friend friend : friends) {
+            userId = friend.getUser().getId();
+            counts.computeIfAbsent(friend.getBirthMonthDay(), md -> new HashMap<>())
+                    .merge(friend.getDateOfBirth().getYear(), 1L, Long::sum);
+        }
+        InMemoryBirthdayCountRepository repository = new InMemoryBirthdayCountRepository();
+        for (Map.Entry<Integer, Map<Integer, Long>> day : counts.entrySet()) {
+            for (Map.Entry<Integer, Long> year : day.getValue().entrySet()) {
+                repository.rowsByMonthDay.computeIfAbsent(day.getKey(), md -> new ArrayList<>())
+                        .add(new BirthdayCount(userId, day.getKey(), year.getKey(), year.getValue()));
+                repository.rowCount++;
+            }
+        }
+        return repository;
+    }
+
+    @Override
+    public List<BirthdayCount> findInRange(Long userId, int fromMonthDay, int toMonthDay) {
+        List<BirthdayCount> result = new ArrayList<>();
+        for (List<BirthdayCount> rows : rowsByMonthDay.subMap(fromMonthDay, true, toMonthDay, true).values()) {
+            result.addAll(rows);
+        }
+        return result;
+    }
+
+    @Override
+    public List<BirthdayCount> findInWrappedRange(Long userId, int fromMonthDay, int toMonthDay) {
+        List<BirthdayCount> result = findInRange(userId, fromMonthDay, 1231);
+        result.addAll(findInRange(userId, 101, toMonthDay));
+        return result;
+    }
+
+    @Override
+    public long count() {
+        return rowCount;
+    }
+
+    @Override
+    public void increment(Long userId, int monthDay, int birthYear, long delta) {
+        throw unsupported();
+    }
+
+    @Override
+    public int deleteIfEmpty(Long userId, int monthDay, int birthYear) {
+        throw unsupported();
+    }
+
+    @Override
+    public int lockUserShared(Long userId) {
+        throw unsupported();
+    }
+
+    @Override
+    public int lockUser(Long userId) {
+        throw unsupported();
+    }
+
+    @Override
+    public int lockAll() {
+        throw unsupported();
+    }
+
+    @Override
+    public int deleteByUserId(Long userId) {
+        throw unsupported();
+    }
+
+    @Override
+    public int rebuildForUser(Long userId) {
+        throw unsupported();
+    }
+
+    @Override
+    public int deleteAllRows() {
+        throw unsupported();
+    }
+
+    @Override
+    public int rebuildAll() {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends BirthdayCount> S save(S entity) {
+        throw unsupported();
+    }
+
+    @Override
+    public <S extends BirthdayCount> Iterable<S> saveAll(Iterable<S> entities) {
+        throw unsupported();
+    }
+
+    @Override
+    public Optional<BirthdayCount> findById(BirthdayCount.Key key) {
+        throw unsupported();
+    }
+
+    @Override
+    public boolean existsById(BirthdayCount.Key key) {
+        throw unsupported();
+    }
+
+    @Override
+    public Iterable<BirthdayCount> findAll() {
+        return findInRange(null, 101, 1231);
+    }
+
+    @Override
+    public Iterable<BirthdayCount> findAllById(Iterable<BirthdayCount.Key> keys) {
+        throw unsupported();
+    }
+
+    @Override
+    public void deleteById(BirthdayCount.Key key) {
+        throw unsupported();
+    }
+
+    @Override
+    public void delete(BirthdayCount entity) {
+        throw unsupported();
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends BirthdayCount.Key> keys) {
+        throw unsupported();
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends BirthdayCount> entities) {
+        throw unsupported();
+    }
+
+    @Override
+    public void deleteAll() {
+        throw unsupported();
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Не используется в бенчмарках");
+    }
+}
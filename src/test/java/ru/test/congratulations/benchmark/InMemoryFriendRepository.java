@@ -0,0 +1,201 @@
+package ru.test.congratulations.benchmark;
+
+import org.springframework.data.domain.Limit;
+import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.entity.response.FriendResponse;
+import ru.test.congratulations.entity.response.FriendWithCongResponse;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.repository.projection.FriendBirthday;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * FriendRepository в памяти для бенчмарков: поддерживает только выборки,
+ * через которые проходят измеряемые методы сервиса
+ */
+class InMemoryFriendRepository implements FriendRepository {
+    private final Map<Long, Friend> friends = new HashMap<>();
+
+    @Override
+    public <S extends Friend> S save(S friend) {
+        friends.put(friend.getId(), friend);
+        return friend;
+    }
+
+    @Override
+    public <S extends Friend> Iterable<S> saveAll(Iterable<S> entities) {
+        entities.forEach(this::save);
+        return entities;
+    }
+
+    @Override
+    public Optional<Friend> findById(Long id) {
+        return Optional.ofNullable(friends.get(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return friends.containsKey(id);
+    }
+
+    @Override
+    public Iterable<Friend> findAll() {
+        return new ArrayList<>(friends.values());
+    }
+
+    @Override
+    public Iterable<Friend> findAllById(Iterable<Long> ids) {
+        List<Friend> result = new ArrayList<>();
+        for (Long id : ids) {
+            Friend friend = friends.get(id);
+            if (friend != null) {
+                result.add(friend);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Optional<FriendResponse> findResponseById(Long id) {
+        return findById(id).map(InMemoryFriendRepository::toResponse);
+    }
+
+    @Override
+    public List<FriendResponse> findResponsesByIds(Collection<Long> ids) {
+        List<FriendResponse> result = new ArrayList<>(ids.size());
+        for (Friend friend : findAllById(ids)) {
+            result.add(toResponse(friend));
+        }
+        return result;
+    }
+
+    @Override
+    public long count() {
+        return friends.size();
+    }
+
+    @Override
+    public List<FriendBirthday> findBirthdaysByUserId(Long userId) {
+        List<FriendBirthday> result = new ArrayList<>(friends.size());
+        for (Friend friend : friends.values()) {
+            if (friend.getUser().getId().equals(userId)) {
+                result.add(new Birthday(friend.getId(), friend.getDateOfBirth()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Friend> findByUserId(Long userId) {
+        return friends.values().stream().filter(friend -> friend.getUser().getId().equals(userId)).toList();
+    }
+
+    @Override
+    public List<String> findFioByUserId(Long userId) {
+        return findByUserId(userId).stream().map(Friend::getFio).toList();
+    }
+
+    @Override
+    public List<Long> findOwnedIds(Long userId, List<Long> ids) {
+        return ids.stream()
+                .filter(id -> friends.containsKey(id) && friends.get(id).getUser().getId().equals(userId))
+                .toList();
+    }
+
+    @Override
+    public Optional<Friend> findByEmail(String email) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<Friend> findByDateOfBirthAndUserId(int month, int day, int year, Long userId) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<FriendWithCongResponse> findWithCongratulationByDate(LocalDate date, int monthDay, int year,
+                                                                     Long userId) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<FriendResponse> findUpcomingPage(Long userId, int fromMonthDay, int toMonthDay, int afterMonthDay,
+                                                 long afterId, Limit limit) {
+        throw unsupported();
+    }
+
+    @Override
+    public int updateDescription(Long userId, List<Long> ids, String description) {
+        throw unsupported();
+    }
+
+    @Override
+    public int fillMissingBirthMonthDay() {
+        throw unsupported();
+    }
+
+    @Override
+    public List<Friend> searchByPrefix(Long userId, String prefixFrom, String prefixTo, int limit) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<Friend> searchBySimilarity(Long userId, String query, int limit) {
+        throw unsupported();
+    }
+
+    @Override
+    public List<Friend> searchByContaining(Long userId, String contains, int limit) {
+        throw unsupported();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        friends.remove(id);
+    }
+
+    @Override
+    public void delete(Friend friend) {
+        friends.remove(friend.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(friends::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends Friend> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        friends.clear();
+    }
+
+    /**
+     * Повторяет конструктор проекции JPQL: ответ создается из колонок без промежуточной сущности
+     */
+    private static FriendResponse toResponse(Friend friend) {
+        return new FriendResponse(friend.getId(), friend.getFio(), friend.getEmail(), friend.getDateOfBirth(),
+                friend.getDescription(), friend.getImageName());
+    }
+
+    private static UnsupportedOperationException unsupported() {
+        return new UnsupportedOperationException("Не используется в бенчмарках");
+    }
+
+    private record Birthday(Long id, LocalDate dateOfBirth) implements FriendBirthday {
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public LocalDate getDateOfBirth() {
+            return dateOfBirth;
+        }
+    }
+}
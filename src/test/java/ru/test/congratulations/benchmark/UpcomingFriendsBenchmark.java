@@ -0,0 +1,48 @@
+package ru.test.congratulations.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.test.congratulations.entity.response.FriendResponse;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Постраничный список ближайших дней рождения и преобразование одного друга в FriendResponse
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UpcomingFriendsBenchmark {
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "100000", "1000000"})
+    public int friendCount;
+
+    /** Номер страницы: первая или середина списка */
+    @Param({"first", "middle"})
+    public String page;
+
+    private FriendServiceFixture fixture;
+    private int pageNumber;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = new FriendServiceFixture(friendCount);
+        pageNumber = "first".equals(page) ? 1 : Math.max(1, friendCount / PAGE_SIZE / 2);
+    }
+
+    @Benchmark
+    public Map<String, Object> getFriendsWithPaginate() {
+        return fixture.friendService.getFriendsWithPaginate(pageNumber, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public FriendResponse getFriendResponse() {
+        long id = ThreadLocalRandom.current().nextLong(1, friendCount + 1);
+        return fixture.friendService.getFriendResponse(id);
+    }
+}
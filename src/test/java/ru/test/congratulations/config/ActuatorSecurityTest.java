@@ -0,0 +1,62 @@
+package ru.test.congratulations.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Доступ к actuator: health открыт, метрики - только учетной записи сборщика
+ */
+@SpringBootTest(properties = {
+        "metrics.scrape.username=scraper",
+        "metrics.scrape.password=scrape-secret",
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@AutoConfigureMockMvc
+class ActuatorSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "actuator_security");
+    }
+
+    @Test
+    void healthIsPublic() throws Exception {
+        // Статус зависит от внешних проверок (например, почтового сервера), важно лишь отсутствие запрета доступа
+        int health = mockMvc.perform(get("/actuator/health")).andReturn().getResponse().getStatus();
+        assertThat(health).isNotIn(401, 403);
+    }
+
+    @Test
+    void prometheusRequiresScrapeAccount() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("scraper", "wrong")))
+                .andExpect(status().isUnauthorized());
+
+        User appUser = new User("user@example.com", "app_user", "hash");
+        appUser.setId(1L);
+        mockMvc.perform(get("/actuator/prometheus").with(user(appUser)))
+                .andExpect(status().isForbidden());
+
+        int scraped = mockMvc.perform(get("/actuator/prometheus").with(httpBasic("scraper", "scrape-secret")))
+                .andReturn().getResponse().getStatus();
+        assertThat(scraped).isNotIn(401, 403);
+    }
+}
@@ -0,0 +1,52 @@
+package ru.test.congratulations.config.password;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+
+/**
+ * Хэш, созданный с меньшей стоимостью BCrypt, пересчитывается при успешном входе
+ */
+@SpringBootTest(properties = {
+        "security.password.bcrypt-strength=5",
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@AutoConfigureMockMvc
+class PasswordUpgradeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "password_upgrade");
+    }
+
+    @Test
+    void weakHashIsUpgradedOnLogin() throws Exception {
+        userRepository.save(new User("upgrade@example.com", "upgrade",
+                new BCryptPasswordEncoder(4).encode("secret")));
+
+        mockMvc.perform(formLogin("/login").user("upgrade").password("secret"))
+                .andExpect(authenticated());
+
+        String stored = userRepository.findByLogin("upgrade").orElseThrow().getPassword();
+        assertThat(stored).startsWith("$2a$05$");
+        assertThat(new BCryptPasswordEncoder().matches("secret", stored)).isTrue();
+    }
+}
@@ -0,0 +1,110 @@
+package ru.test.congratulations.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.config.SequenceAligner;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.service.image.ImageStorageService;
+import ru.test.congratulations.service.image.ThumbnailService;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.QueryBudget;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.time.LocalDate;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Бюджеты JDBC-запросов горячих эндпоинтов. Падает, если изменение добавило запросы
+ * (например, N+1 при сериализации или лишнюю проверку владельца), даже когда ответ не изменился
+ */
+@SpringBootTest(properties = {
+        "query-count.header-enabled=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointQueryBudgetTest {
+    private static final int FRIENDS_PER_USER = 300;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private ImageStorageService imageStorageService;
+    @Autowired
+    private ThumbnailService thumbnailService;
+    @Autowired
+    private CalendarAggregateService calendarAggregateService;
+    @Autowired
+    private SequenceAligner sequenceAligner;
+
+    private TestDataSeeder.SeededData data;
+    private RequestPostProcessor owner;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "query_budget");
+    }
+
+    @BeforeAll
+    void seed() {
+        data = new TestDataSeeder(jdbcTemplate, transactionTemplate, passwordEncoder, imageStorageService,
+                thumbnailService, calendarAggregateService, sequenceAligner).seed(2, FRIENDS_PER_USER, 2);
+        owner = user(userRepository.findByEmail(data.userEmails().getFirst()).orElseThrow());
+    }
+
+    @Test
+    void dayDataUsesTwoStatementsForAnyRange() throws Exception {
+        LocalDate monthStart = LocalDate.now().withDayOfMonth(1);
+        expectBudget("/api/calendar/day-data?startDate=" + monthStart + "&endDate=" + monthStart.plusDays(6), 2);
+        expectBudget("/api/calendar/day-data?startDate=" + monthStart.minusDays(6)
+                + "&endDate=" + monthStart.plusDays(35), 2);
+        expectBudget("/api/calendar/day-data?startDate=" + LocalDate.of(2030, 12, 20)
+                + "&endDate=" + LocalDate.of(2031, 1, 10), 2);
+        expectBudget("/api/calendar/day-data?startDate=" + monthStart
+                + "&endDate=" + monthStart.plusYears(1), 2);
+    }
+
+    @Test
+    void friendListsStayWithinBudget() throws Exception {
+        expectBudget("/api/friends/by-date?date=" + LocalDate.now(), 2);
+        expectBudget("/api/friends/upcoming?page=2&size=20", 2);
+        expectBudget("/api/friends/upcoming/scroll?size=50", 3);
+    }
+
+    @Test
+    void singleFriendAndImageUseOneStatement() throws Exception {
+        long friendId = data.imageFriendIds().getFirst();
+        expectBudget("/api/friends/" + friendId, 1);
+        expectBudget("/api/friends/" + friendId + "/image", 1);
+    }
+
+    private void expectBudget(String url, int maxStatements) throws Exception {
+        mockMvc.perform(get(url).with(owner))
+                .andExpect(status().isOk())
+                .andExpect(QueryBudget.atMost(maxStatements));
+    }
+}
@@ -0,0 +1,152 @@
+package ru.test.congratulations.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Выгрузка друзей с историей поздравлений: форматы, сжатие и изоляция между пользователями
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FriendExportApiTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private JsonMapper jsonMapper;
+
+    private RequestPostProcessor owner;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "friend_export");
+    }
+
+    @BeforeAll
+    void seed() {
+        User first = userRepository.save(new User("export@example.com", "export", "hash"));
+        User second = userRepository.save(new User("other@example.com", "other", "hash"));
+        owner = user(first);
+
+        insertFriend(1, "Иванов Иван", "ivanov@mail.ru", "Коллега, \"лучший\" друг", first);
+        insertFriend(2, "Петров Сергей", "sergey@mail.ru", null, first);
+        insertFriend(3, "Чужой Друг", "alien@mail.ru", "Друг другого пользователя", second);
+        insertCongratulation(1, "2024-05-17", 1, first);
+        insertCongratulation(2, "2023-05-17", 1, first);
+        insertCongratulation(3, "2024-05-17", 3, second);
+    }
+
+    @Test
+    void ndjsonContainsFriendsWithCongratulationHistory() throws Exception {
+        MvcResult result = export(get("/api/friends/export"));
+        assertThat(result.getResponse().getContentType()).startsWith("application/x-ndjson");
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION))
+                .contains("attachment", "friends.ndjson");
+
+        List<String> lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(2);
+        JsonNode first = jsonMapper.readTree(lines.get(0));
+        assertThat(first.get("fio").asString()).isEqualTo("Иванов Иван");
+        assertThat(first.get("description").asString()).isEqualTo("Коллега, \"лучший\" друг");
+        assertThat(first.get("dateOfBirth").asString()).isEqualTo("1990-05-17");
+        assertThat(first.get("congratulations").values()).extracting(JsonNode::asString)
+                .containsExactly("2023-05-17", "2024-05-17");
+        JsonNode second = jsonMapper.readTree(lines.get(1));
+        assertThat(second.get("fio").asString()).isEqualTo("Петров Сергей");
+        assertThat(second.get("description").isNull()).isTrue();
+        assertThat(second.get("congratulations").isEmpty()).isTrue();
+    }
+
+    @Test
+    void csvUsesImportColumns() throws Exception {
+        MvcResult result = export(get("/api/friends/export").param("format", "csv"));
+        assertThat(result.getResponse().getContentType()).startsWith("text/csv");
+
+        assertThat(result.getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList()).containsExactly(
+                "fio,email,dateOfBirth,description,congratulations",
+                "Иванов Иван,ivanov@mail.ru,1990-05-17,\"Коллега, \"\"лучший\"\" друг\",2023-05-17;2024-05-17",
+                "Петров Сергей,sergey@mail.ru,1990-05-17,,");
+    }
+
+    @Test
+    void exportIsCompressedWhenClientAcceptsGzip() throws Exception {
+        String plain = export(get("/api/friends/export")).getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        MvcResult result = export(get("/api/friends/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"));
+        assertThat(result.getResponse().getHeader(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gunzip(result.getResponse().getContentAsByteArray())).isEqualTo(plain);
+    }
+
+    @Test
+    void unknownFormatIsRejected() throws Exception {
+        mockMvc.perform(get("/api/friends/export").param("format", "xml").with(owner))
+                .andExpect(status().isBadRequest());
+    }
+
+    private MvcResult export(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult started = mockMvc.perform(request.with(owner))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.CONTENT_DISPOSITION))
+                .andReturn();
+    }
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private void insertFriend(long id, String fio, String email, String description, User user) {
+        jdbcTemplate.update("INSERT INTO tbl_friends (id, fio, email, date_of_birth, birth_month_day, description, " +
+                        "created_at, user_id) VALUES (?, ?, ?, DATE '1990-05-17', 517, ?, now(), ?)",
+                id, fio, email, description, user.getId());
+    }
+
+    private void insertCongratulation(long id, String date, long friendId, User user) {
+        jdbcTemplate.update("INSERT INTO tbl_congratulation (id, congratulation_date, created_at, friend_id, user_id) " +
+                "VALUES (?, CAST(? AS date), now(), ?, ?)", id, date, friendId, user.getId());
+    }
+}
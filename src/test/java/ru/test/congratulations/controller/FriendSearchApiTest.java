@@ -0,0 +1,128 @@
+package ru.test.congratulations.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.support.QueryBudget;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Поиск друзей для автодополнения: префикс, подстрока, опечатки и изоляция между пользователями
+ */
+@SpringBootTest(properties = {
+        "query-count.header-enabled=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FriendSearchApiTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private RequestPostProcessor owner;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "friend_search");
+    }
+
+    @BeforeAll
+    void seed() {
+        User first = userRepository.save(new User("search@example.com", "search", "hash"));
+        User second = userRepository.save(new User("stranger@example.com", "stranger", "hash"));
+        owner = user(first);
+
+        insertFriend(1, "Иванов Иван", "ivanov@mail.ru", "Коллега по работе", first);
+        insertFriend(2, "Иваненко Ольга", "olga@mail.ru", "Соседка", first);
+        insertFriend(3, "Петров Сергей", "sergey@mail.ru", "Брат Ивана", first);
+        insertFriend(4, "Смирнова Анна", "anna@mail.ru", "Подруга из спортзала", first);
+        insertFriend(5, "Скидка 100%", "percent@mail.ru", null, first);
+        insertFriend(6, "Иванов Чужой", "alien@mail.ru", "Друг другого пользователя", second);
+    }
+
+    @Test
+    void fioPrefixMatchesComeFirst() throws Exception {
+        // Совпадения fio по началу по алфавиту, затем совпадение в описании.
+        // Префиксов меньше лимита, поэтому выполняются все три ступени поиска
+        mockMvc.perform(get("/api/friends/search").param("q", "иван").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].fio", contains("Иваненко Ольга", "Иванов Иван", "Петров Сергей")))
+                .andExpect(QueryBudget.atMost(3));
+    }
+
+    @Test
+    void shortQueryMatchesPrefixOnly() throws Exception {
+        mockMvc.perform(get("/api/friends/search").param("q", "Ив").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].fio", contains("Иваненко Ольга", "Иванов Иван")));
+    }
+
+    @Test
+    void findsWithTyposAndInDescription() throws Exception {
+        mockMvc.perform(get("/api/friends/search").param("q", "смирнава").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].fio").value("Смирнова Анна"));
+        mockMvc.perform(get("/api/friends/search").param("q", "спортзал").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].fio", contains("Смирнова Анна")));
+    }
+
+    @Test
+    void likeWildcardsAreLiteral() throws Exception {
+        mockMvc.perform(get("/api/friends/search").param("q", "100%").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].fio", contains("Скидка 100%")));
+        mockMvc.perform(get("/api/friends/search").param("q", "%%%").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", empty()));
+    }
+
+    @Test
+    void limitBoundsResults() throws Exception {
+        mockMvc.perform(get("/api/friends/search").param("q", "mail").param("limit", "2").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+        mockMvc.perform(get("/api/friends/search").param("q", "mail").param("limit", "51").with(owner))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchIndexesAreCreated() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "SELECT indexname FROM pg_indexes WHERE tablename = 'tbl_friends'", String.class);
+        assertThat(indexes).contains("idx_friends_fio_prefix", "idx_friends_email_prefix", "idx_friends_search_trgm");
+    }
+
+    private void insertFriend(long id, String fio, String email, String description, User user) {
+        jdbcTemplate.update("INSERT INTO tbl_friends (id, fio, email, date_of_birth, birth_month_day, description, " +
+                        "created_at, user_id) VALUES (?, ?, ?, DATE '1990-05-17', 517, ?, now(), ?)",
+                id, fio, email, description, user.getId());
+    }
+}
@@ -0,0 +1,90 @@
+package ru.test.congratulations.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import ru.test.congratulations.config.FriendSearchIndexRunner;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.QueryBudget;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Поиск друзей в базе без pg_trgm: остаются совпадения по началу fio и email, остальные ступени пропускаются
+ */
+@SpringBootTest(properties = {
+        "friends.search.create-indexes=false",
+        "query-count.header-enabled=true",
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FriendSearchWithoutTrigramTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private FriendSearchIndexRunner friendSearchIndexRunner;
+
+    private RequestPostProcessor owner;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "friend_search_plain");
+    }
+
+    @BeforeAll
+    void seed() {
+        User first = userRepository.save(new User("plain@example.com", "plain", "hash"));
+        owner = user(first);
+        jdbcTemplate.update("INSERT INTO tbl_friends (id, fio, email, date_of_birth, birth_month_day, description, " +
+                "created_at, user_id) VALUES (1, 'Иванов Иван', 'ivanov@mail.ru', DATE '1990-05-17', 517, " +
+                "'Коллега по работе', now(), ?)", first.getId());
+    }
+
+    @Test
+    void extensionIsMissing() {
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_extension WHERE extname = 'pg_trgm'", Integer.class)).isZero();
+        assertThat(friendSearchIndexRunner.isTrigramSearchAvailable()).isFalse();
+    }
+
+    @Test
+    void prefixSearchStillWorks() throws Exception {
+        mockMvc.perform(get("/api/friends/search").param("q", "иван").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].fio", contains("Иванов Иван")))
+                .andExpect(QueryBudget.atMost(1));
+    }
+
+    @Test
+    void similarityAndSubstringTiersAreSkipped() throws Exception {
+        mockMvc.perform(get("/api/friends/search").param("q", "иваноф").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", empty()));
+        mockMvc.perform(get("/api/friends/search").param("q", "коллега").with(owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", empty()));
+    }
+}
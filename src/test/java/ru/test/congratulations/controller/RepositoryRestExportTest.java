@@ -0,0 +1,119 @@
+package ru.test.congratulations.controller;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+import ru.test.congratulations.entity.Congratulation;
+import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.CongratulationRepository;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+
+import java.time.LocalDate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Служебные репозитории и методы записи не публикуются через Spring Data REST
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class RepositoryRestExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private FriendRepository friendRepository;
+    @Autowired
+    private CongratulationRepository congratulationRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private RequestPostProcessor owner;
+    private Friend friend;
+    private Long congratulationId;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "repository_rest");
+    }
+
+    @BeforeAll
+    void seed() {
+        User user = userRepository.save(new User("rest@example.com", "rest", "hash"));
+        owner = user(user);
+        friend = new Friend("Друг", "friend@example.com", LocalDate.of(1990, 5, 1), null);
+        friend.setUser(user);
+        friend = friendRepository.save(friend);
+        Congratulation congratulation = new Congratulation(LocalDate.of(2025, 5, 1), friend);
+        congratulation.setUser(user);
+        congratulationRepository.save(congratulation);
+        congratulationId = jdbcTemplate.queryForObject("SELECT id FROM tbl_congratulation", Long.class);
+    }
+
+    @Test
+    void imageBlobsAreNotExported() throws Exception {
+        mockMvc.perform(get("/imageBlobs").with(owner))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/imageBlobs/0123456789abcdef").with(owner))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(delete("/imageBlobs/0123456789abcdef").with(owner).with(csrf()))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void friendWritesAreNotExported() throws Exception {
+        String body = "{\"fio\":\"Чужой\",\"email\":\"other@example.com\",\"dateOfBirth\":\"1990-05-01\"}";
+        mockMvc.perform(post("/friend").with(owner).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isMethodNotAllowed());
+        // Тело PUT и PATCH разбирается раньше проверки метода, поэтому ответ может быть и 400
+        mockMvc.perform(put("/friend/" + friend.getId()).with(owner).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(patch("/friend/" + friend.getId()).with(owner).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(delete("/friend/" + friend.getId()).with(owner).with(csrf()))
+                .andExpect(status().isMethodNotAllowed());
+
+        assertThat(friendRepository.findById(friend.getId())).get()
+                .extracting(Friend::getEmail).isEqualTo("friend@example.com");
+    }
+
+    @Test
+    void congratulationWritesAreNotExported() throws Exception {
+        mockMvc.perform(post("/congratulation").with(owner).with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"congratulationDate\":\"2025-05-02\"}"))
+                .andExpect(status().isMethodNotAllowed());
+        mockMvc.perform(delete("/congratulation/" + congratulationId).with(owner).with(csrf()))
+                .andExpect(status().isMethodNotAllowed());
+
+        assertThat(congratulationRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,224 @@
+package ru.test.congratulations.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.test.congratulations.config.SequenceAligner;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный тест выгрузки: аккаунт с миллионом друзей выгружается в NDJSON, CSV и NDJSON со сжатием.
+ * <p>
+ * Во время выгрузки раз в 10 мс снимается заполнение старого поколения кучи: если бы выгрузка копила строки
+ * в памяти, они пережили бы сборки молодого поколения и попали туда. Для каждого формата выводит время,
+ * объем, скорость и прирост старого поколения; отчет сохраняется в target/friend-export-report.json.
+ * <p>
+ * Запускается только в профиле loadtest: {@code ./mvnw -Ploadtest test -Dtest=FriendExportLoadTest}
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.root=WARN",
+        "logging.level.org.springframework.security=WARN",
+        "logging.level.org.springframework.web=WARN",
+        "logging.level.ru.test.congratulations=WARN"
+})
+class FriendExportLoadTest {
+    private static final int FRIENDS = Integer.getInteger("loadtest.exportFriends", 1_000_000);
+    private static final long MAX_OLD_GEN_GROWTH_BYTES = 64L * 1024 * 1024;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ApplicationContext context;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private SequenceAligner sequenceAligner;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "export_loadtest");
+    }
+
+    @Test
+    void exportOfLargeAccountKeepsHeapFlat() throws Exception {
+        TestDataSeeder.SeededData data = TestDataSeeder.of(context).seed(1, 0, 0);
+        insertFriends();
+
+        LoadTestSession session = LoadTestSession.login("http://localhost:" + port,
+                data.userEmails().getFirst(), TestDataSeeder.PASSWORD);
+
+        List<ExportResult> results = new ArrayList<>();
+        results.add(export(session, "ndjson", "/api/friends/export?format=ndjson", false));
+        results.add(export(session, "csv", "/api/friends/export?format=csv", false));
+        results.add(export(session, "ndjson-gzip", "/api/friends/export?format=ndjson", true));
+        report(results);
+
+        for (ExportResult result : results) {
+            assertThat(result.rows()).as("строки в выгрузке " + result.name()).isEqualTo(FRIENDS);
+            assertThat(result.oldGenGrowthBytes()).as("прирост старого поколения в " + result.name())
+                    .isLessThan(MAX_OLD_GEN_GROWTH_BYTES);
+        }
+    }
+
+    /**
+     * Друзья вставляются одним запросом на стороне БД; у каждого третьего два поздравления
+     */
+    private void insertFriends() {
+        jdbcTemplate.execute("INSERT INTO tbl_friends (id, fio, email, date_of_birth, birth_month_day, description, " +
+                "created_at, user_id) " +
+                "SELECT g, 'Друг ' || g, 'friend' || g || '@example.com', d, " +
+                "EXTRACT(MONTH FROM d) * 100 + EXTRACT(DAY FROM d), 'Описание друга ' || g, now(), 1 " +
+                "FROM generate_series(1, " + FRIENDS + ") g, LATERAL (SELECT DATE '1960-01-01' + g % 18000 AS d) b");
+        jdbcTemplate.execute("INSERT INTO tbl_congratulation (id, congratulation_date, created_at, friend_id, user_id) " +
+                "SELECT row_number() OVER (), DATE '2020-01-01' + y * 365 + f % 365, now(), f, 1 " +
+                "FROM generate_series(3, " + FRIENDS + ", 3) f, generate_series(1, 2) y");
+        jdbcTemplate.execute("ANALYZE tbl_friends");
+        jdbcTemplate.execute("ANALYZE tbl_congratulation");
+        sequenceAligner.align();
+    }
+
+    private ExportResult export(LoadTestSession session, String name, String path, boolean gzip)
+            throws IOException, InterruptedException {
+        System.gc();
+        MemoryPoolMXBean oldGen = oldGenerationPool();
+        long baseline = oldGen.getUsage().getUsed();
+        AtomicLong peak = new AtomicLong(baseline);
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (running.get()) {
+                peak.accumulateAndGet(oldGen.getUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        long startNanos = System.nanoTime();
+        HttpResponse<InputStream> response = gzip
+                ? session.stream(path, "Accept-Encoding", "gzip")
+                : session.stream(path);
+        assertThat(response.statusCode()).as("код ответа " + name).isEqualTo(200);
+        long transferred;
+        long lines;
+        try (CountingInputStream counting = new CountingInputStream(response.body());
+             InputStream body = gzip ? new GZIPInputStream(counting, 65536) : counting) {
+            lines = countLines(body);
+            transferred = counting.count;
+        }
+        long wallNanos = System.nanoTime() - startNanos;
+        running.set(false);
+        sampler.join();
+
+        // В CSV первая строка - заголовок
+        long rows = name.startsWith("csv") ? lines - 1 : lines;
+        return new ExportResult(name, rows, transferred, wallNanos, baseline, peak.get());
+    }
+
+    private static long countLines(InputStream inputStream) throws IOException {
+        byte[] buffer = new byte[65536];
+        long lines = 0;
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static MemoryPoolMXBean oldGenerationPool() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .filter(pool -> pool.getName().contains("Old") || pool.getName().contains("Tenured"))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Не найдено старое поколение кучи"));
+    }
+
+    private void report(List<ExportResult> results) throws IOException {
+        System.out.printf("Выгрузка: %d друзей у пользователя%n", FRIENDS);
+        System.out.println("format          rows        MB    seconds     rows/s   old gen +MB");
+        results.forEach(result -> System.out.printf("%-12s %8d %9.1f %10.2f %10.0f %13.1f%n",
+                result.name(), result.rows(), result.transferredBytes() / 1048576.0, result.seconds(),
+                result.rows() / result.seconds(), result.oldGenGrowthBytes() / 1048576.0));
+
+        new LoadTestReport("friend-export-report.json")
+                .parameter("friends", FRIENDS)
+                .write("formats", LoadTestReport.jsonArray(results.stream().map(ExportResult::toJson).toList()));
+    }
+
+    private record ExportResult(String name, long rows, long transferredBytes, long wallNanos,
+                                long oldGenBaselineBytes, long oldGenPeakBytes) {
+        double seconds() {
+            return wallNanos / 1e9;
+        }
+
+        long oldGenGrowthBytes() {
+            return oldGenPeakBytes - oldGenBaselineBytes;
+        }
+
+        String toJson() {
+            return String.format(Locale.ROOT, "{\"format\":\"%s\",\"rows\":%d,\"transferredBytes\":%d," +
+                            "\"seconds\":%.3f,\"oldGenBaselineBytes\":%d,\"oldGenPeakBytes\":%d}",
+                    name, rows, transferredBytes, seconds(), oldGenBaselineBytes, oldGenPeakBytes);
+        }
+    }
+
+    /**
+     * Считает байты, пришедшие по сети, до распаковки
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package ru.test.congratulations.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.config.SequenceAligner;
+import ru.test.congratulations.loadtest.LoadDriver.Request;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный тест автодополнения на аккаунте со 100 тысячами друзей.
+ * <p>
+ * Заполняет БД правдоподобными ФИО, email и описаниями, затем отправляет запросы поиска:
+ * короткие префиксы, префиксы фамилий, фамилии с опечаткой и фрагменты email.
+ * Для каждого вида запросов выводит p50/p95/p99 и план одного запроса;
+ * отчет сохраняется в target/friend-search-report.json.
+ * <p>
+ * Запускается только в профиле loadtest: {@code ./mvnw -Ploadtest test -Dtest=FriendSearchLoadTest}
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.root=WARN",
+        "logging.level.org.springframework.security=WARN",
+        "logging.level.org.springframework.web=WARN",
+        "logging.level.ru.test.congratulations=WARN"
+})
+class FriendSearchLoadTest {
+    private static final int FRIENDS = Integer.getInteger("loadtest.searchFriends", 100_000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 4);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 2000);
+    private static final int WARMUP_REQUESTS = Integer.getInteger("loadtest.warmup", 300);
+    private static final String[] SURNAMES = {"Иванов", "Смирнов", "Кузнецов", "Попов", "Васильев", "Петров",
+            "Соколов", "Михайлов", "Новиков", "Федоров", "Морозов", "Волков", "Алексеев", "Лебедев", "Семенов",
+            "Егоров", "Павлов", "Козлов", "Степанов", "Николаев", "Орлов", "Андреев", "Макаров", "Никитин",
+            "Захаров", "Зайцев", "Соловьев", "Борисов", "Яковлев", "Григорьев", "Романов", "Воробьев"};
+    private static final String[] NAMES = {"Александр", "Дмитрий", "Максим", "Сергей", "Андрей", "Алексей",
+            "Артем", "Илья", "Кирилл", "Михаил", "Анна", "Мария", "Елена", "Ольга", "Наталья", "Татьяна",
+            "Ирина", "Екатерина", "Светлана", "Юлия"};
+    private static final String[] DESCRIPTIONS = {"Коллега по работе", "Однокурсник", "Сосед по даче",
+            "Друг детства", "Подруга из спортзала", "Родственник", "Знакомый по путешествиям", "Партнер по теннису"};
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ApplicationContext context;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private SequenceAligner sequenceAligner;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "search_loadtest");
+    }
+
+    @Test
+    void autocompleteOnLargeAccount() throws Exception {
+        TestDataSeeder.SeededData data = TestDataSeeder.of(context).seed(2, 0, 0);
+        insertFriends(1, FRIENDS);
+        insertFriends(2, FRIENDS / 10);
+        // VACUUM переносит строки из списка ожидания GIN-индекса в сам индекс, как autovacuum в работающей БД
+        jdbcTemplate.execute("VACUUM ANALYZE tbl_friends");
+
+        LoadTestSession session = LoadTestSession.login("http://localhost:" + port,
+                data.userEmails().getFirst(), TestDataSeeder.PASSWORD);
+
+        List<ScenarioResult> results = new ArrayList<>();
+        results.add(run("prefix-1-2", random -> search(session, randomSurname(random).substring(0, 1 + random.nextInt(2)))));
+        results.add(run("prefix-3-6", random -> {
+            String surname = randomSurname(random);
+            return search(session, surname.substring(0, Math.min(surname.length(), 3 + random.nextInt(4))));
+        }));
+        results.add(run("typo", random -> search(session, withTypo(randomSurname(random), random))));
+        results.add(run("email", random -> search(session, "user" + random.nextInt(FRIENDS))));
+        results.add(run("description", random -> search(session, DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)]
+                .split(" ")[0])));
+
+        System.out.printf("Поиск: %d друзей у пользователя, %d потоков, %d запросов на сценарий%n",
+                FRIENDS, CONCURRENCY, REQUESTS);
+        new LoadTestReport("friend-search-report.json")
+                .parameter("friends", FRIENDS)
+                .parameter("concurrency", CONCURRENCY)
+                .parameter("requestsPerScenario", REQUESTS)
+                .writeScenarios(results);
+        printPlan("searchByPrefix", 1L, "ив", "иг", 10);
+        printPlan("searchBySimilarity", 1L, "смирнав", 10);
+        printPlan("searchByContaining", 1L, "%смирнав%", 10);
+        for (ScenarioResult result : results) {
+            assertThat(result.errors()).as("ошибки в сценарии " + result.name()).isZero();
+        }
+    }
+
+    private ScenarioResult run(String name, Function<ThreadLocalRandom, Request> requests) throws InterruptedException {
+        LoadDriver driver = new LoadDriver(CONCURRENCY);
+        driver.execute(WARMUP_REQUESTS, requests);
+        LoadDriver.Measurement measurement = driver.execute(REQUESTS, requests);
+        return measurement.toResult(name, 0);
+    }
+
+    private void insertFriends(long userId, int count) {
+        Random random = new Random(userId);
+        long firstId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tbl_friends", Long.class) + 1;
+        List<Object[]> rows = new ArrayList<>(1000);
+        for (int i = 0; i < count; i++) {
+            LocalDate dateOfBirth = LocalDate.of(1950 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(28));
+            String surname = SURNAMES[random.nextInt(SURNAMES.length)];
+            String name = NAMES[random.nextInt(NAMES.length)];
+            if (name.endsWith("а") || name.endsWith("я")) {
+                surname = surname + "а";
+            }
+            rows.add(new Object[]{firstId + i, surname + " " + name + " " + i, "user" + i + "@example" + userId + ".com",
+                    Date.valueOf(dateOfBirth), dateOfBirth.getMonthValue() * 100 + dateOfBirth.getDayOfMonth(),
+                    DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)], userId});
+            if (rows.size() == 1000) {
+                flush(rows);
+            }
+        }
+        flush(rows);
+        sequenceAligner.align();
+    }
+
+    private void flush(List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("INSERT INTO tbl_friends (id, fio, email, date_of_birth, birth_month_day, " +
+                "description, created_at, user_id) VALUES (?, ?, ?, ?, ?, ?, now(), ?)", rows);
+        rows.clear();
+    }
+
+    /**
+     * Выводит план поискового запроса репозитория для первого пользователя
+     */
+    private void printPlan(String methodName, Object... args) {
+        System.out.println("План " + methodName + Arrays.toString(args) + ":");
+        // EXECUTE не принимает параметры привязки, поэтому значения подставляются литералами
+        String literals = Arrays.stream(args)
+                .map(arg -> arg instanceof String value ? "'" + value.replace("'", "''") + "'" : String.valueOf(arg))
+                .collect(Collectors.joining(", "));
+        transactionTemplate.executeWithoutResult(status -> {
+            // Общий план, как у подготовленного запроса драйвера после нескольких выполнений
+            jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+            jdbcTemplate.execute("PREPARE friend_search AS " + positionalSql(methodName));
+            jdbcTemplate.queryForList("EXPLAIN (ANALYZE, BUFFERS) EXECUTE friend_search(" + literals + ")",
+                    String.class).forEach(System.out::println);
+            jdbcTemplate.execute("DEALLOCATE friend_search");
+        });
+    }
+
+    /**
+     * Текст запроса метода FriendRepository, в котором именованные параметры заменены позиционными для PREPARE
+     */
+    private static String positionalSql(String methodName) {
+        Method method = Arrays.stream(FriendRepository.class.getMethods())
+                .filter(m -> m.getName().equals(methodName))
+                .findFirst()
+                .orElseThrow();
+        String sql = method.getAnnotation(Query.class).value();
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            sql = sql.replace(":" + parameters[i].getAnnotation(Param.class).value(), "$" + (i + 1));
+        }
+        return sql;
+    }
+
+    private static Request search(LoadTestSession session, String query) {
+        return new Request(session, "/api/friends/search?limit=10&q=" + URLEncoder.encode(query, StandardCharsets.UTF_8));
+    }
+
+    private static String randomSurname(ThreadLocalRandom random) {
+        return SURNAMES[random.nextInt(SURNAMES.length)];
+    }
+
+    /**
+     * Заменяет одну букву в середине слова, как при опечатке
+     */
+    private static String withTypo(String word, ThreadLocalRandom random) {
+        int position = 1 + random.nextInt(word.length() - 2);
+        return word.substring(0, position) + "о" + word.substring(position + 1);
+    }
+}
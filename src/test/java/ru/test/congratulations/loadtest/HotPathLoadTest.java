@@ -0,0 +1,161 @@
+package ru.test.congratulations.loadtest;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.test.congratulations.loadtest.LoadDriver.Request;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный тест горячих путей чтения на встроенном PostgreSQL.
+ * <p>
+ * Поднимает приложение целиком, заполняет БД пользователями, друзьями и поздравлениями за несколько лет,
+ * затем по очереди нагружает календарь, именинников дня, список ближайших дней рождения и аватары.
+ * Для каждого сценария выводит p50/p95/p99, пропускную способность и число SQL-запросов
+ * на HTTP-запрос по статистике Hibernate; отчет сохраняется в target/loadtest-report.json.
+ * <p>
+ * Запускается только в профиле loadtest: {@code ./mvnw -Ploadtest test}
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "metrics.scrape.password=" + HotPathLoadTest.SCRAPE_PASSWORD,
+        "logging.level.root=WARN",
+        "logging.level.org.springframework.security=WARN",
+        "logging.level.org.springframework.web=WARN",
+        "logging.level.ru.test.congratulations=WARN",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=OFF"
+})
+class HotPathLoadTest {
+    static final String SCRAPE_PASSWORD = "loadtest-scrape";
+    private static final int USERS = Integer.getInteger("loadtest.users", 20);
+    private static final int FRIENDS_PER_USER = Integer.getInteger("loadtest.friendsPerUser", 2000);
+    private static final int CONGRATULATION_YEARS = Integer.getInteger("loadtest.congratulationYears", 3);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 2000);
+    private static final int WARMUP_REQUESTS = Integer.getInteger("loadtest.warmup", 200);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ApplicationContext context;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "loadtest");
+    }
+
+    @Test
+    void hotPaths() throws Exception {
+        long seedStart = System.nanoTime();
+        TestDataSeeder.SeededData data = TestDataSeeder.of(context)
+                .seed(USERS, FRIENDS_PER_USER, CONGRATULATION_YEARS);
+        System.out.printf("Данные: %d пользователей, %d друзей, %d поздравлений за %.1f с%n",
+                USERS, data.friendCount(), data.congratulationCount(), (System.nanoTime() - seedStart) / 1e9);
+
+        String baseUrl = "http://localhost:" + port;
+        List<LoadTestSession> sessions = LoadTestSession.loginAll(baseUrl, data.userEmails());
+
+        int year = LocalDate.now().getYear();
+        List<ScenarioResult> results = new ArrayList<>();
+        results.add(run("day-data", random -> {
+            LocalDate monthStart = LocalDate.of(year, 1 + random.nextInt(12), 1);
+            return new Request(sessions.get(random.nextInt(USERS)), "/api/calendar/day-data?startDate="
+                    + monthStart.minusDays(6) + "&endDate=" + monthStart.plusDays(35));
+        }));
+        results.add(run("by-date", random -> new Request(sessions.get(random.nextInt(USERS)),
+                "/api/friends/by-date?date=" + LocalDate.ofYearDay(year, 1 + random.nextInt(365)))));
+        results.add(run("upcoming", random -> new Request(sessions.get(random.nextInt(USERS)),
+                "/api/friends/upcoming?page=" + (1 + random.nextInt(5)) + "&size=20")));
+        if (!data.imageFriendIds().isEmpty()) {
+            results.add(run("image", random -> {
+                long friendId = data.imageFriendIds().get(random.nextInt(data.imageFriendIds().size()));
+                int owner = (int) ((friendId - 1) / FRIENDS_PER_USER);
+                return new Request(sessions.get(owner), "/api/friends/" + friendId + "/image?size=64");
+            }));
+        }
+
+        System.out.printf("Нагрузка: %d потоков, %d запросов на сценарий%n", CONCURRENCY, REQUESTS);
+        new LoadTestReport("loadtest-report.json")
+                .parameter("users", USERS)
+                .parameter("friendsPerUser", FRIENDS_PER_USER)
+                .parameter("congratulationYears", CONGRATULATION_YEARS)
+                .parameter("concurrency", CONCURRENCY)
+                .parameter("requestsPerScenario", REQUESTS)
+                .writeScenarios(results);
+        reportRepositoryTime();
+        for (ScenarioResult result : results) {
+            assertThat(result.errors()).as("ошибки в сценарии " + result.name()).isZero();
+        }
+
+        HttpResponse<String> scrape = HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/prometheus"))
+                        .header("Authorization", "Basic " + Base64.getEncoder().encodeToString(
+                                ("prometheus:" + SCRAPE_PASSWORD).getBytes(StandardCharsets.UTF_8)))
+                        .GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertThat(scrape.statusCode()).isEqualTo(200);
+        assertThat(scrape.body()).contains("app_service_seconds", "spring_data_repository_invocations_seconds",
+                "hikaricp_connections", "image_storage_io_bytes_total");
+    }
+
+    /**
+     * Выводит запросы репозиториев, занявшие больше всего времени за весь прогон
+     */
+    private void reportRepositoryTime() {
+        System.out.println("Запросы репозиториев по суммарному времени:");
+        meterRegistry.find("spring.data.repository.invocations").timers().stream()
+                .sorted(Comparator.comparingDouble((Timer timer) -> timer.totalTime(TimeUnit.MILLISECONDS)).reversed())
+                .limit(10)
+                .forEach(timer -> System.out.printf(Locale.ROOT, "%-28s %-36s %8d calls %10.1f ms%n",
+                        timer.getId().getTag("repository"), timer.getId().getTag("method"),
+                        timer.count(), timer.totalTime(TimeUnit.MILLISECONDS)));
+    }
+
+    /**
+     * Прогревает сценарий, затем выполняет REQUESTS запросов в CONCURRENCY потоков
+     */
+    private ScenarioResult run(String name, Function<ThreadLocalRandom, Request> requests) throws InterruptedException {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        LoadDriver driver = new LoadDriver(CONCURRENCY);
+        driver.execute(WARMUP_REQUESTS, requests);
+
+        statistics.clear();
+        LoadDriver.Measurement measurement = driver.execute(REQUESTS, requests);
+        return measurement.toResult(name, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,81 @@
+package ru.test.congratulations.loadtest;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Выполняет запросы сценария заданным числом одновременных клиентов и замеряет задержку каждого.
+ * Клиенты работают на виртуальных потоках, чтобы высокая конкурентность не упиралась
+ * в потоки самого теста
+ */
+class LoadDriver {
+    private final int concurrency;
+
+    LoadDriver(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * HTTP-запросы сессий; ошибкой считается любой ответ, кроме 200
+     */
+    Measurement execute(int count, Function<ThreadLocalRandom, Request> requests) throws InterruptedException {
+        return perform(count, index -> {
+            Request request = requests.apply(ThreadLocalRandom.current());
+            return request.session().get(request.path()) == 200;
+        });
+    }
+
+    /**
+     * Произвольные операции с номерами от 0 до count - 1; ошибкой считается false или исключение
+     */
+    Measurement perform(int count, Operation operation) throws InterruptedException {
+        long[] latencies = new long[count];
+        AtomicInteger errors = new AtomicInteger();
+        AtomicInteger next = new AtomicInteger();
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        for (int worker = 0; worker < concurrency; worker++) {
+            executor.execute(() -> {
+                int index;
+                while ((index = next.getAndIncrement()) < count) {
+                    long startNanos = System.nanoTime();
+                    try {
+                        if (!operation.run(index)) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    latencies[index] = System.nanoTime() - startNanos;
+                }
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(30, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Сценарий не завершился за 30 минут");
+        }
+        return new Measurement(latencies, errors.get(), System.nanoTime() - start);
+    }
+
+    @FunctionalInterface
+    interface Operation {
+        boolean run(int index) throws IOException, InterruptedException;
+    }
+
+    record Request(LoadTestSession session, String path) {
+    }
+
+    record Measurement(long[] latencies, int errors, long wallNanos) {
+        ScenarioResult toResult(String name, long statements) {
+            return ScenarioResult.of(name, latencies, errors, wallNanos, statements);
+        }
+    }
+}
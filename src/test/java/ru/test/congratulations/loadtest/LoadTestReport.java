@@ -0,0 +1,60 @@
+package ru.test.congratulations.loadtest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отчет нагрузочного теста: таблица сценариев в консоли и JSON в каталоге target.
+ * JSON состоит из параметров прогона в порядке добавления и одного раздела с результатами
+ */
+final class LoadTestReport {
+    private static final String TABLE_HEADER =
+            "scenario       requests errors   p50, ms   p95, ms   p99, ms   max, ms    req/s   sql/req";
+
+    private final Path path;
+    private final Map<String, Object> parameters = new LinkedHashMap<>();
+
+    LoadTestReport(String fileName) {
+        this.path = Path.of("target", fileName);
+    }
+
+    LoadTestReport parameter(String name, Object value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    static void printTable(List<ScenarioResult> results) {
+        System.out.println(TABLE_HEADER);
+        results.forEach(result -> System.out.println(result.toTableRow()));
+    }
+
+    static String jsonArray(List<String> items) {
+        return "[" + String.join(",", items) + "]";
+    }
+
+    /**
+     * Печатает таблицу сценариев и сохраняет их в разделе scenarios
+     */
+    void writeScenarios(List<ScenarioResult> results) throws IOException {
+        printTable(results);
+        write("scenarios", jsonArray(results.stream().map(ScenarioResult::toJson).toList()));
+    }
+
+    /**
+     * Сохраняет параметры прогона и раздел section с готовым JSON-значением
+     */
+    void write(String section, String json) throws IOException {
+        StringBuilder report = new StringBuilder("{");
+        parameters.forEach((name, value) -> report.append('"').append(name).append("\":")
+                .append(value instanceof Number || value instanceof Boolean ? value : "\"" + value + "\"")
+                .append(','));
+        report.append('"').append(section).append("\":").append(json).append("}\n");
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, report);
+        System.out.println("Отчет сохранен в " + path.toAbsolutePath());
+    }
+}
@@ -0,0 +1,103 @@
+package ru.test.congratulations.loadtest;
+
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HTTP-сессия пользователя: проходит вход через форму /login с CSRF-токеном
+ * и дальше отправляет запросы с сессионной cookie
+ */
+class LoadTestSession {
+    private static final Pattern CSRF_PATTERN = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    private final String baseUrl;
+    private final HttpClient client;
+
+    private LoadTestSession(String baseUrl) {
+        this.baseUrl = baseUrl;
+        this.client = HttpClient.newBuilder()
+                .cookieHandler(new CookieManager())
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    static LoadTestSession login(String baseUrl, String username, String password)
+            throws IOException, InterruptedException {
+        LoadTestSession session = new LoadTestSession(baseUrl);
+
+        HttpResponse<String> loginPage = session.client.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/login")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        Matcher matcher = CSRF_PATTERN.matcher(loginPage.body());
+        if (!matcher.find()) {
+            throw new IllegalStateException("На странице входа нет CSRF-токена");
+        }
+
+        String form = "username=" + encode(username) + "&password=" + encode(password) + "&_csrf=" + encode(matcher.group(1));
+        HttpResponse<Void> response = session.client.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/login"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        String location = response.headers().firstValue("Location").orElse("");
+        if (response.statusCode() != 302 || location.contains("error")) {
+            throw new IllegalStateException("Не удалось войти как " + username + ": " + response.statusCode() + " " + location);
+        }
+        return session;
+    }
+
+    /**
+     * Входит под каждым из пользователей с паролем TestDataSeeder.PASSWORD
+     */
+    static List<LoadTestSession> loginAll(String baseUrl, List<String> usernames)
+            throws IOException, InterruptedException {
+        List<LoadTestSession> sessions = new ArrayList<>(usernames.size());
+        for (String username : usernames) {
+            sessions.add(login(baseUrl, username, TestDataSeeder.PASSWORD));
+        }
+        return sessions;
+    }
+
+    /**
+     * Выполняет GET и дочитывает тело ответа
+     * @return код ответа
+     */
+    int get(String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        return response.statusCode();
+    }
+
+    /**
+     * Выполняет GET и возвращает тело ответа потоком, не загружая его в память
+     * @param headers пары имя-значение заголовков запроса
+     */
+    HttpResponse<InputStream> stream(String path, String... headers) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path)).GET();
+        if (headers.length > 0) {
+            request.headers(headers);
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
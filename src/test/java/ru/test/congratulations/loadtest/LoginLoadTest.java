@@ -0,0 +1,134 @@
+package ru.test.congratulations.loadtest;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.test.congratulations.loadtest.LoadDriver.Request;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочный тест входа: проверяет, что всплеск логинов не вытесняет чтение календаря.
+ * <p>
+ * Сначала замеряет календарь без помех, затем повторяет тот же сценарий, пока LOGIN_CLIENTS клиентов
+ * непрерывно входят через форму. Выводит пропускную способность входа и p50/p95/p99 календаря
+ * в обоих режимах; отчет сохраняется в target/login-load-report.json.
+ * Размер пула хэширования задается через -Dloadtest.hashingPoolSize (0 - половина ядер).
+ * <p>
+ * Запускается только в профиле loadtest: {@code ./mvnw -Ploadtest test -Dtest=LoginLoadTest}
+ */
+@Tag("loadtest")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.root=WARN",
+        "logging.level.org.springframework.security=WARN",
+        "logging.level.org.springframework.web=WARN",
+        "logging.level.ru.test.congratulations=WARN"
+})
+class LoginLoadTest {
+    private static final int USERS = Integer.getInteger("loadtest.users", 20);
+    private static final int FRIENDS_PER_USER = Integer.getInteger("loadtest.friendsPerUser", 500);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 8);
+    private static final int LOGIN_CLIENTS = Integer.getInteger("loadtest.loginClients", 32);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 1000);
+    private static final int WARMUP_REQUESTS = Integer.getInteger("loadtest.warmup", 100);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "login_loadtest");
+        registry.add("security.password.hashing.pool-size", () -> Integer.getInteger("loadtest.hashingPoolSize", 0));
+    }
+
+    @Test
+    void loginStormDoesNotStarveReads() throws Exception {
+        TestDataSeeder.SeededData data = TestDataSeeder.of(context).seed(USERS, FRIENDS_PER_USER, 1);
+
+        String baseUrl = "http://localhost:" + port;
+        List<LoadTestSession> sessions = LoadTestSession.loginAll(baseUrl, data.userEmails());
+
+        int year = LocalDate.now().getYear();
+        Function<ThreadLocalRandom, Request> calendar = random -> {
+            LocalDate monthStart = LocalDate.of(year, 1 + random.nextInt(12), 1);
+            return new Request(sessions.get(random.nextInt(USERS)), "/api/calendar/day-data?startDate="
+                    + monthStart.minusDays(6) + "&endDate=" + monthStart.plusDays(35));
+        };
+        LoadDriver driver = new LoadDriver(CONCURRENCY);
+        driver.execute(WARMUP_REQUESTS, calendar);
+
+        LoadDriver.Measurement baseline = driver.execute(REQUESTS, calendar);
+
+        ConcurrentLinkedQueue<Long> loginLatencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger loginErrors = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+        ExecutorService loginClients = Executors.newVirtualThreadPerTaskExecutor();
+        for (int client = 0; client < LOGIN_CLIENTS; client++) {
+            loginClients.execute(() -> {
+                while (!stop.get()) {
+                    String email = data.userEmails().get(ThreadLocalRandom.current().nextInt(USERS));
+                    long start = System.nanoTime();
+                    try {
+                        LoadTestSession.login(baseUrl, email, TestDataSeeder.PASSWORD);
+                        loginLatencies.add(System.nanoTime() - start);
+                    } catch (IOException | IllegalStateException e) {
+                        loginErrors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        long mixedStart = System.nanoTime();
+        LoadDriver.Measurement underLogin;
+        try {
+            underLogin = driver.execute(REQUESTS, calendar);
+        } finally {
+            stop.set(true);
+            loginClients.shutdown();
+            loginClients.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        long mixedNanos = System.nanoTime() - mixedStart;
+
+        List<ScenarioResult> results = List.of(
+                baseline.toResult("calendar", 0),
+                underLogin.toResult("calendar+login", 0),
+                ScenarioResult.of("login", loginLatencies.stream().mapToLong(Long::longValue).toArray(),
+                        loginErrors.get(), mixedNanos, 0));
+        System.out.printf("Нагрузка: %d потоков календаря, %d клиентов входа, %d запросов календаря%n",
+                CONCURRENCY, LOGIN_CLIENTS, REQUESTS);
+        new LoadTestReport("login-load-report.json")
+                .parameter("concurrency", CONCURRENCY)
+                .parameter("loginClients", LOGIN_CLIENTS)
+                .parameter("hashingPoolSize", Integer.getInteger("loadtest.hashingPoolSize", 0))
+                .writeScenarios(results);
+
+        assertThat(baseline.errors()).isZero();
+        assertThat(underLogin.errors()).isZero();
+        assertThat(loginLatencies).isNotEmpty();
+    }
+}
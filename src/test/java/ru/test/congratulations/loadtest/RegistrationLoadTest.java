@@ -0,0 +1,109 @@
+package ru.test.congratulations.loadtest;
+
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.config.querycount.JdbcStatementCounter;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.entity.request.RegistrationRequest;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.service.user.UserService;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение пропускной способности регистрации: прежняя схема "existsByEmail, existsByLogin, save"
+ * против одной вставки с проверкой уникальности ограничениями tbl_user.
+ * Стоимость BCrypt снижена до минимальной, чтобы замер показывал работу с БД, а не хэширование;
+ * отчет сохраняется в target/registration-load-report.json.
+ * <p>
+ * Запускается только в профиле loadtest: {@code ./mvnw -Ploadtest test -Dtest=RegistrationLoadTest}
+ */
+@Tag("loadtest")
+@SpringBootTest(properties = {
+        "security.password.bcrypt-strength=4",
+        "spring.jpa.show-sql=false",
+        "logging.level.root=WARN",
+        "logging.level.ru.test.congratulations=WARN"
+})
+class RegistrationLoadTest {
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.concurrency", 16);
+    private static final int REGISTRATIONS = Integer.getInteger("loadtest.registrations", 3000);
+    private static final String PASSWORD = "Secret-123";
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "registration_loadtest");
+    }
+
+    @Test
+    void singleInsertOutperformsCheckThenInsert() throws Exception {
+        run("warmup", 200, i -> userService.registerUser(request("warmup", i)));
+
+        ScenarioResult checkThenInsert = run("check-insert", REGISTRATIONS, i -> {
+            RegistrationRequest request = request("legacy", i);
+            String hash = passwordEncoder.encode(request.getPassword());
+            transactionTemplate.executeWithoutResult(status -> {
+                if (userRepository.existsByEmail(request.getEmail())) {
+                    throw new ValidationException("Пользователь с email " + request.getEmail() + " уже существует");
+                }
+                if (userRepository.existsByLogin(request.getLogin())) {
+                    throw new ValidationException("Пользователь с логином " + request.getLogin() + " уже существует");
+                }
+                userRepository.save(new User(request.getEmail(), request.getLogin(), hash));
+            });
+        });
+        ScenarioResult singleInsert = run("single-insert", REGISTRATIONS,
+                i -> userService.registerUser(request("single", i)));
+
+        System.out.printf("Нагрузка: %d потоков, %d регистраций на сценарий%n", CONCURRENCY, REGISTRATIONS);
+        new LoadTestReport("registration-load-report.json")
+                .parameter("concurrency", CONCURRENCY)
+                .parameter("registrationsPerScenario", REGISTRATIONS)
+                .writeScenarios(List.of(checkThenInsert, singleInsert));
+        assertThat(checkThenInsert.errors()).isZero();
+        assertThat(singleInsert.errors()).isZero();
+        assertThat(singleInsert.statementsPerRequest()).isLessThan(checkThenInsert.statementsPerRequest());
+    }
+
+    /**
+     * Выполняет регистрации в CONCURRENCY потоков; SQL-запросы считаются по потокам, выполнявшим регистрации
+     */
+    private ScenarioResult run(String name, int count, IntConsumer registration) throws InterruptedException {
+        AtomicLong statements = new AtomicLong();
+        LoadDriver.Measurement measurement = new LoadDriver(CONCURRENCY).perform(count, index -> {
+            long startStatements = JdbcStatementCounter.current();
+            try {
+                registration.accept(index);
+                return true;
+            } finally {
+                statements.addAndGet(JdbcStatementCounter.current() - startStatements);
+            }
+        });
+        return measurement.toResult(name, statements.get());
+    }
+
+    private static RegistrationRequest request(String prefix, int index) {
+        return new RegistrationRequest(prefix + index, prefix + index + "@example.com", PASSWORD);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.test.congratulations.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Итоги одного сценария нагрузки: перцентили задержки, пропускная способность
+ * и среднее число SQL-запросов на HTTP-запрос
+ */
+record ScenarioResult(String name, int requests, int errors, double p50Millis, double p95Millis, double p99Millis,
+                      double maxMillis, double throughput, double statementsPerRequest) {
+
+    static ScenarioResult of(String name, long[] latencyNanos, int errors, long wallNanos, long statements) {
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        int requests = sorted.length;
+        return new ScenarioResult(name, requests, errors,
+                percentile(sorted, 0.50), percentile(sorted, 0.95), percentile(sorted, 0.99),
+                requests == 0 ? 0 : sorted[requests - 1] / 1e6,
+                wallNanos > 0 ? requests * 1e9 / wallNanos : 0,
+                requests == 0 ? 0 : (double) statements / requests);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    String toTableRow() {
+        return String.format(Locale.ROOT, "%-14s %8d %6d %9.2f %9.2f %9.2f %9.2f %10.1f %8.2f",
+                name, requests, errors, p50Millis, p95Millis, p99Millis, maxMillis, throughput, statementsPerRequest);
+    }
+
+    String toJson() {
+        return String.format(Locale.ROOT, "{\"scenario\":\"%s\",\"requests\":%d,\"errors\":%d," +
+                        "\"p50Ms\":%.3f,\"p95Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f," +
+                        "\"throughputRps\":%.2f,\"sqlStatementsPerRequest\":%.3f}",
+                name, requests, errors, p50Millis, p95Millis, p99Millis, maxMillis, throughput, statementsPerRequest);
+    }
+}
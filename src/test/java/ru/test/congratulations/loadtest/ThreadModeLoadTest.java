@@ -0,0 +1,179 @@
+package ru.test.congratulations.loadtest;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.test.congratulations.CongratulationsApplication;
+import ru.test.congratulations.loadtest.LoadDriver.Request;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Сравнение обработки запросов на пуле потоков Tomcat и на виртуальных потоках (профиль vthreads)
+ * при высокой конкурентности для календаря и аватаров.
+ * <p>
+ * Приложение запускается дважды на одной базе с одинаковым размером пула соединений.
+ * В режиме виртуальных потоков через JFR собираются события jdk.VirtualThreadPinned,
+ * чтобы увидеть, где поток-носитель блокируется. Отчет сохраняется в target/thread-mode-report.json.
+ * <p>
+ * Запускается только в профиле loadtest:
+ * {@code ./mvnw -Ploadtest test -Dtest=ThreadModeLoadTest -Dloadtest.highConcurrency=400}
+ */
+@Tag("loadtest")
+class ThreadModeLoadTest {
+    private static final int USERS = Integer.getInteger("loadtest.users", 10);
+    private static final int FRIENDS_PER_USER = Integer.getInteger("loadtest.friendsPerUser", 1000);
+    private static final int CONCURRENCY = Integer.getInteger("loadtest.highConcurrency", 400);
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 4000);
+    private static final int WARMUP_REQUESTS = Integer.getInteger("loadtest.warmup", 400);
+    private static final int TOMCAT_THREADS = Integer.getInteger("loadtest.tomcatThreads", 200);
+    private static final int DB_POOL_SIZE = Integer.getInteger("loadtest.dbPoolSize", 10);
+
+    @Test
+    void compareThreadModes() throws Exception {
+        Map<String, String> database = EmbeddedPostgresSupport.databaseProperties("thread_mode");
+        TestDataSeeder.SeededData data = null;
+        Map<String, List<ScenarioResult>> results = new LinkedHashMap<>();
+        Map<String, Long> pinnedByFrame = new ConcurrentHashMap<>();
+        LongAdder pinned = new LongAdder();
+
+        for (String mode : List.of("platform", "virtual")) {
+            try (ConfigurableApplicationContext context = start(database, mode.equals("virtual"));
+                 RecordingStream pinning = new RecordingStream()) {
+                if (data == null) {
+                    data = TestDataSeeder.of(context).seed(USERS, FRIENDS_PER_USER, 1);
+                }
+                if (mode.equals("virtual")) {
+                    pinning.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1)).withStackTrace();
+                    pinning.onEvent("jdk.VirtualThreadPinned", event -> {
+                        pinned.increment();
+                        pinnedByFrame.merge(firstApplicationFrame(event.getStackTrace() == null
+                                ? List.of() : event.getStackTrace().getFrames()), 1L, Long::sum);
+                    });
+                    pinning.startAsync();
+                }
+                results.put(mode, runScenarios(context, data));
+            }
+        }
+
+        report(results, pinned.sum(), pinnedByFrame);
+        results.values().forEach(scenarios -> scenarios.forEach(result ->
+                assertThat(result.errors()).as("ошибки в сценарии " + result.name()).isZero()));
+    }
+
+    private ConfigurableApplicationContext start(Map<String, String> database, boolean virtualThreads) {
+        List<String> args = new ArrayList<>();
+        database.forEach((name, value) -> args.add("--" + name + "=" + value));
+        args.add("--server.port=0");
+        args.add("--spring.profiles.active=" + (virtualThreads ? "vthreads" : "default"));
+        args.add("--server.tomcat.threads.max=" + TOMCAT_THREADS);
+        args.add("--spring.datasource.hikari.maximum-pool-size=" + DB_POOL_SIZE);
+        args.add("--spring.jpa.show-sql=false");
+        args.add("--reminders.enabled=false");
+        args.add("--outbox.enabled=false");
+        args.add("--logging.level.root=WARN");
+        args.add("--logging.level.org.springframework.security=WARN");
+        args.add("--logging.level.org.springframework.web=WARN");
+        args.add("--logging.level.ru.test.congratulations=WARN");
+        return new SpringApplicationBuilder(CongratulationsApplication.class).run(args.toArray(String[]::new));
+    }
+
+    private List<ScenarioResult> runScenarios(ConfigurableApplicationContext context, TestDataSeeder.SeededData data)
+            throws Exception {
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        List<LoadTestSession> sessions = LoadTestSession.loginAll(baseUrl, data.userEmails());
+
+        int year = LocalDate.now().getYear();
+        List<ScenarioResult> results = new ArrayList<>();
+        results.add(run(context, "day-data", random -> {
+            LocalDate monthStart = LocalDate.of(year, 1 + random.nextInt(12), 1);
+            return new Request(sessions.get(random.nextInt(USERS)), "/api/calendar/day-data?startDate="
+                    + monthStart.minusDays(6) + "&endDate=" + monthStart.plusDays(35));
+        }));
+        if (!data.imageFriendIds().isEmpty()) {
+            results.add(run(context, "image", random -> {
+                long friendId = data.imageFriendIds().get(random.nextInt(data.imageFriendIds().size()));
+                int owner = (int) ((friendId - 1) / FRIENDS_PER_USER);
+                return new Request(sessions.get(owner), "/api/friends/" + friendId + "/image?size=64");
+            }));
+        }
+        return results;
+    }
+
+    private ScenarioResult run(ConfigurableApplicationContext context, String name,
+                               Function<ThreadLocalRandom, Request> requests) throws InterruptedException {
+        LoadDriver driver = new LoadDriver(CONCURRENCY);
+        driver.execute(WARMUP_REQUESTS, requests);
+        double statementsBefore = jdbcStatements(context);
+        LoadDriver.Measurement measurement = driver.execute(REQUESTS, requests);
+        return measurement.toResult(name, Math.round(jdbcStatements(context) - statementsBefore));
+    }
+
+    /**
+     * Всего JDBC-запросов по метрике http.server.jdbc.statements
+     */
+    private static double jdbcStatements(ConfigurableApplicationContext context) {
+        return context.getBean(MeterRegistry.class).find("http.server.jdbc.statements").summaries().stream()
+                .mapToDouble(DistributionSummary::totalAmount)
+                .sum();
+    }
+
+    /**
+     * Первый кадр стека из кода приложения, а если его нет - верхний кадр
+     */
+    private static String firstApplicationFrame(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (type.startsWith("ru.test.congratulations")) {
+                return type + "." + frame.getMethod().getName();
+            }
+        }
+        if (frames.isEmpty()) {
+            return "unknown";
+        }
+        return frames.getFirst().getMethod().getType().getName() + "." + frames.getFirst().getMethod().getName();
+    }
+
+    private void report(Map<String, List<ScenarioResult>> results, long pinned, Map<String, Long> pinnedByFrame)
+            throws IOException {
+        System.out.printf("Нагрузка: %d клиентов, %d запросов на сценарий, Tomcat threads.max=%d, пул БД=%d%n",
+                CONCURRENCY, REQUESTS, TOMCAT_THREADS, DB_POOL_SIZE);
+        List<String> modes = new ArrayList<>();
+        for (Map.Entry<String, List<ScenarioResult>> entry : results.entrySet()) {
+            System.out.println("Режим " + entry.getKey() + ":");
+            LoadTestReport.printTable(entry.getValue());
+            modes.add("\"" + entry.getKey() + "\":"
+                    + LoadTestReport.jsonArray(entry.getValue().stream().map(ScenarioResult::toJson).toList()));
+        }
+
+        System.out.println("Блокировки носителя виртуальными потоками (jdk.VirtualThreadPinned): " + pinned);
+        pinnedByFrame.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(10)
+                .forEach(entry -> System.out.printf("  %6d  %s%n", entry.getValue(), entry.getKey()));
+
+        new LoadTestReport("thread-mode-report.json")
+                .parameter("concurrency", CONCURRENCY)
+                .parameter("requestsPerScenario", REQUESTS)
+                .parameter("tomcatThreads", TOMCAT_THREADS)
+                .parameter("dbPoolSize", DB_POOL_SIZE)
+                .parameter("virtualThreadPinnedEvents", pinned)
+                .write("modes", "{" + String.join(",", modes) + "}");
+    }
+}
@@ -0,0 +1,95 @@
+package ru.test.congratulations.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.QueryBudget;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Подсчет поздравлений по диапазону дат на реальной БД: один запрос к агрегату календаря
+ * на весь диапазон вместо запроса на каждый день, с теми же значениями, что и подсчет по дням
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class CongratulationServiceImplTest {
+
+    @Autowired
+    private CongratulationService congratulationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    private User user;
+    private LocalDate startDate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "congratulation_counts");
+    }
+
+    @BeforeAll
+    void seed() {
+        TestDataSeeder.SeededData data = TestDataSeeder.of(applicationContext).seed(1, 2000, 1);
+        user = userRepository.findByEmail(data.userEmails().getFirst()).orElseThrow();
+        // Поздравления сидера приходятся на прошлый год
+        startDate = LocalDate.now().minusYears(1).withDayOfYear(1);
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {30, 90, 365})
+    void countByDateRangeMatchesPerDayCountsInOneStatement(int days) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        LocalDate endDate = startDate.plusDays(days - 1);
+
+        List<Long> perDayCounts = new ArrayList<>();
+        long perDayStatements = QueryBudget.statementsDuring(() -> startDate.datesUntil(endDate.plusDays(1))
+                .forEach(date -> perDayCounts.add(congratulationService.countByDate(date))));
+        AtomicReference<Map<String, Long>> groupedCounts = new AtomicReference<>();
+        long groupedStatements = QueryBudget.statementsDuring(() ->
+                groupedCounts.set(congratulationService.countByDateRange(startDate, endDate)));
+
+        assertThat(groupedCounts.get()).hasSize(days);
+        assertThat(List.copyOf(groupedCounts.get().values())).isEqualTo(perDayCounts);
+        assertThat(perDayCounts.stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tbl_congratulation " +
+                        "WHERE user_id = ? AND congratulation_date BETWEEN ? AND ?",
+                        Long.class, user.getId(), startDate, endDate))
+                .isPositive();
+        assertThat(perDayStatements).isEqualTo(days);
+        assertThat(groupedStatements).isEqualTo(1);
+    }
+}
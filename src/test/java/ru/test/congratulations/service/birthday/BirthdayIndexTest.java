@@ -0,0 +1,146 @@
+package ru.test.congratulations.service.birthday;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.repository.projection.FriendBirthday;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BirthdayIndexTest {
+    private static final Long USER_ID = 1L;
+    private static final int THREADS = 8;
+    private static final int FRIENDS_PER_THREAD = 200;
+    private static final int EDITS_PER_THREAD = 5_000;
+
+    @Test
+    void countsAndOrdersUpcomingBirthdays() {
+        FriendRepository repository = mock(FriendRepository.class);
+        when(repository.findBirthdaysByUserId(USER_ID)).thenReturn(List.of(
+                birthday(1L, LocalDate.of(1990, 12, 31)),
+                birthday(2L, LocalDate.of(2000, 1, 2)),
+                birthday(3L, LocalDate.of(2030, 1, 2)),
+                birthday(4L, LocalDate.of(1996, 2, 29))));
+        BirthdayIndex index = new BirthdayIndex(repository, 10, Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+        assertThat(index.countByDate(USER_ID, LocalDate.of(2025, 1, 2))).isEqualTo(1);
+        assertThat(index.countByDate(USER_ID, LocalDate.of(2024, 2, 29))).isEqualTo(1);
+        assertThat(index.friendIdsByDate(USER_ID, LocalDate.of(2031, 1, 2))).containsExactlyInAnyOrder(2L, 3L);
+        assertThat(index.upcomingFriendIds(USER_ID, LocalDate.of(2025, 12, 30), 0, 10))
+                .containsExactly(1L, 2L, 3L, 4L);
+        assertThat(index.upcomingFriendIds(USER_ID, LocalDate.of(2025, 12, 30), 1, 2))
+                .containsExactly(2L, 3L);
+        assertThat(index.estimatedMemoryBytes()).isPositive();
+    }
+
+    @Test
+    void reloadsUserAfterExpiration() throws Exception {
+        FriendRepository repository = mock(FriendRepository.class);
+        // Второй друг добавлен в обход индекса, например на другом узле
+        when(repository.findBirthdaysByUserId(USER_ID)).thenReturn(
+                List.of(birthday(1L, LocalDate.of(1990, 5, 1))),
+                List.of(birthday(1L, LocalDate.of(1990, 5, 1)), birthday(2L, LocalDate.of(1991, 5, 1))));
+        BirthdayIndex index = new BirthdayIndex(repository, 10, Duration.ofMillis(50), new SimpleMeterRegistry());
+
+        assertThat(index.friendIdsByDate(USER_ID, LocalDate.of(2025, 5, 1))).containsExactly(1L);
+        assertThat(index.friendIdsByDate(USER_ID, LocalDate.of(2025, 5, 1))).containsExactly(1L);
+        Thread.sleep(100);
+
+        assertThat(index.friendIdsByDate(USER_ID, LocalDate.of(2025, 5, 1))).containsExactlyInAnyOrder(1L, 2L);
+        verify(repository, times(2)).findBirthdaysByUserId(USER_ID);
+    }
+
+    @Test
+    void staysConsistentUnderConcurrentEdits() throws Exception {
+        FriendRepository repository = mock(FriendRepository.class);
+        List<FriendBirthday> initial = new ArrayList<>();
+        for (long id = 0; id < THREADS * FRIENDS_PER_THREAD; id++) {
+            initial.add(birthday(id, LocalDate.of(1980, 1, 1).plusDays(id)));
+        }
+        // Загрузка индекса идет параллельно с правками, чтобы проверить журнал отложенных изменений
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        when(repository.findBirthdaysByUserId(anyLong())).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            Thread.sleep(50);
+            return initial;
+        });
+        BirthdayIndex index = new BirthdayIndex(repository, 10, Duration.ofMinutes(10), new SimpleMeterRegistry());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        Future<?> loader = executor.submit(() -> index.size(USER_ID));
+        loadStarted.await();
+
+        List<Future<Map<Long, LocalDate>>> editors = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            long firstId = (long) thread * FRIENDS_PER_THREAD;
+            editors.add(executor.submit(() -> edit(index, firstId, initial)));
+        }
+
+        Map<Long, LocalDate> expected = new HashMap<>();
+        for (Future<Map<Long, LocalDate>> editor : editors) {
+            expected.putAll(editor.get(30, TimeUnit.SECONDS));
+        }
+        loader.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        assertThat(index.size(USER_ID)).isEqualTo(expected.size());
+        Map<LocalDate, Set<Long>> expectedByDay = new HashMap<>();
+        expected.forEach((id, date) -> expectedByDay
+                .computeIfAbsent(LocalDate.of(2000, date.getMonth(), date.getDayOfMonth()), d -> new HashSet<>())
+                .add(id));
+        for (LocalDate day = LocalDate.of(2000, 1, 1); day.getYear() == 2000; day = day.plusDays(1)) {
+            Set<Long> actual = new HashSet<>();
+            for (long id : index.friendIdsByDate(USER_ID, day.withYear(2400))) {
+                actual.add(id);
+            }
+            assertThat(actual).isEqualTo(expectedByDay.getOrDefault(day, Set.of()));
+        }
+    }
+
+    private Map<Long, LocalDate> edit(BirthdayIndex index, long firstId, List<FriendBirthday> initial) {
+        Map<Long, LocalDate> state = new HashMap<>();
+        for (long id = firstId; id < firstId + FRIENDS_PER_THREAD; id++) {
+            state.put(id, initial.get((int) id).getDateOfBirth());
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < EDITS_PER_THREAD; i++) {
+            long id = firstId + random.nextInt(FRIENDS_PER_THREAD);
+            if (random.nextInt(4) == 0) {
+                index.onFriendDeleted(USER_ID, id);
+                state.remove(id);
+            } else {
+                LocalDate date = LocalDate.of(1950, 1, 1).plusDays(random.nextInt(20_000));
+                index.onFriendSaved(USER_ID, id, date);
+                state.put(id, date);
+            }
+            if (i % 100 == 0) {
+                index.countByDate(USER_ID, LocalDate.now());
+            }
+        }
+        return state;
+    }
+
+    private static FriendBirthday birthday(Long id, LocalDate dateOfBirth) {
+        return new FriendBirthday() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDate getDateOfBirth() {
+                return dateOfBirth;
+            }
+        };
+    }
+}
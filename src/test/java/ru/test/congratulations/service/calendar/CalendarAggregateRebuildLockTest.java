@@ -0,0 +1,76 @@
+package ru.test.congratulations.service.calendar;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Полный пересчет агрегатов календаря на работающем приложении не пересекается с изменениями счетчиков
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+class CalendarAggregateRebuildLockTest {
+
+    @Autowired
+    private CalendarAggregateService calendarAggregateService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "calendar_rebuild_lock");
+    }
+
+    @Test
+    void counterUpdatesWaitForRebuildAll() throws Exception {
+        Long userId = userRepository.save(new User("calendar@example.com", "calendar", "hash")).getId();
+        LocalDate dateOfBirth = LocalDate.of(1990, 5, 1);
+
+        // Пересчет держит транзакцию открытой, пока тест не разрешит ее зафиксировать
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+            calendarAggregateService.rebuildAll();
+            rebuilt.countDown();
+            await(commit);
+        }));
+        assertThat(rebuilt.await(30, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> update = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status ->
+                calendarAggregateService.onFriendCreated(userId, dateOfBirth)));
+        Thread.sleep(300);
+        assertThat(update).isNotDone();
+
+        commit.countDown();
+        rebuild.get(30, TimeUnit.SECONDS);
+        update.get(30, TimeUnit.SECONDS);
+
+        assertThat(calendarAggregateService.countBirthdays(userId, LocalDate.of(2025, 5, 1), LocalDate.of(2025, 5, 1)))
+                .containsEntry(LocalDate.of(2025, 5, 1), 1L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ru.test.congratulations.service.calendar;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.test.congratulations.entity.BirthdayCount;
+import ru.test.congratulations.repository.BirthdayCountRepository;
+import ru.test.congratulations.repository.CongratulationCountRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CalendarAggregateServiceImplTest {
+    private static final Long USER_ID = 1L;
+
+    private BirthdayCountRepository birthdayCountRepository;
+    private CalendarAggregateServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        birthdayCountRepository = mock(BirthdayCountRepository.class);
+        List<BirthdayCount> rows = List.of(
+                new BirthdayCount(USER_ID, 1231, 1990, 2),
+                new BirthdayCount(USER_ID, 102, 2000, 1),
+                new BirthdayCount(USER_ID, 102, 2030, 4),
+                new BirthdayCount(USER_ID, 229, 1996, 1));
+        when(birthdayCountRepository.findInRange(eq(USER_ID), anyInt(), anyInt())).thenAnswer(invocation -> {
+            int from = invocation.getArgument(1);
+            int to = invocation.getArgument(2);
+            return rows.stream().filter(row -> row.getMonthDay() >= from && row.getMonthDay() <= to).toList();
+        });
+        when(birthdayCountRepository.findInWrappedRange(eq(USER_ID), anyInt(), anyInt())).thenAnswer(invocation -> {
+            int from = invocation.getArgument(1);
+            int to = invocation.getArgument(2);
+            return rows.stream().filter(row -> row.getMonthDay() >= from || row.getMonthDay() <= to).toList();
+        });
+        service = new CalendarAggregateServiceImpl(birthdayCountRepository, mock(CongratulationCountRepository.class));
+    }
+
+    @Test
+    void countsBirthdaysAcrossYearBoundary() {
+        Map<LocalDate, Long> counts = service.countBirthdays(USER_ID,
+                LocalDate.of(2030, 12, 30), LocalDate.of(2031, 1, 3));
+
+        assertThat(counts).containsExactly(
+                Map.entry(LocalDate.of(2030, 12, 30), 0L),
+                Map.entry(LocalDate.of(2030, 12, 31), 2L),
+                Map.entry(LocalDate.of(2031, 1, 1), 0L),
+                Map.entry(LocalDate.of(2031, 1, 2), 5L),
+                Map.entry(LocalDate.of(2031, 1, 3), 0L));
+        verify(birthdayCountRepository).findInWrappedRange(USER_ID, 1230, 103);
+        verify(birthdayCountRepository, never()).findInRange(eq(USER_ID), anyInt(), anyInt());
+    }
+
+    @Test
+    void skipsFriendsBornAfterTheYearAndKeepsLeapDay() {
+        Map<LocalDate, Long> counts = service.countBirthdays(USER_ID,
+                LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 1));
+
+        assertThat(counts).hasSize(61);
+        assertThat(counts.get(LocalDate.of(2024, 1, 2))).isEqualTo(1L);
+        assertThat(counts.get(LocalDate.of(2024, 2, 29))).isEqualTo(1L);
+        verify(birthdayCountRepository, times(1)).findInRange(USER_ID, 101, 301);
+    }
+}
@@ -0,0 +1,54 @@
+package ru.test.congratulations.service.image;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ImageFormatTest {
+
+    @Test
+    void detectsFormatsBySignature() throws IOException {
+        assertThat(detect(encode("jpg"))).contains(ImageFormat.JPEG);
+        assertThat(detect(encode("png"))).contains(ImageFormat.PNG);
+        assertThat(detect(encode("gif"))).contains(ImageFormat.GIF);
+        assertThat(detect(encode("bmp"))).contains(ImageFormat.BMP);
+        assertThat(detect("RIFF\0\0\0\0WEBPVP8 ".getBytes(StandardCharsets.US_ASCII))).contains(ImageFormat.WEBP);
+    }
+
+    @Test
+    void rejectsSvgAndTruncatedFiles() {
+        byte[] svg = "<svg xmlns=\"http://www.w3.org/2000/svg\"><script>alert(1)</script></svg>"
+                .getBytes(StandardCharsets.UTF_8);
+        assertThat(detect(svg)).isEmpty();
+        assertThat(detect(new byte[]{(byte) 0xFF, (byte) 0xD8})).isEmpty();
+        assertThat(detect("RIFF\0\0\0\0WAVE".getBytes(StandardCharsets.US_ASCII))).isEmpty();
+    }
+
+    @Test
+    void acceptsOnlyAllowlistedContentTypes() {
+        assertThat(ImageFormat.fromContentType("IMAGE/PNG")).contains(ImageFormat.PNG);
+        assertThat(ImageFormat.fromContentType("image/svg+xml")).isEmpty();
+        assertThat(ImageFormat.fromContentType("image/")).isEmpty();
+        assertThat(ImageFormat.fromContentType(null)).isEmpty();
+    }
+
+    private static Optional<ImageFormat> detect(byte[] bytes) {
+        byte[] header = new byte[ImageFormat.HEADER_LENGTH];
+        int length = Math.min(bytes.length, header.length);
+        System.arraycopy(bytes, 0, header, 0, length);
+        return ImageFormat.detect(header, length);
+    }
+
+    private static byte[] encode(String formatName) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB), formatName, bytes);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,230 @@
+package ru.test.congratulations.service.image;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.config.SequenceAligner;
+import ru.test.congratulations.entity.Friend;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.entity.request.WriteFriendRequest;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.service.FriendService;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Счетчик ссылок на файлы изображений: одинаковое содержимое, замена тем же изображением,
+ * удаление и повторная загрузка файла, ссылка на который снимается в этот момент
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ImageStorageServiceImplTest {
+    private static final AtomicInteger COLOR = new AtomicInteger(1);
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+    @Autowired
+    private FriendService friendService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private ThumbnailService thumbnailService;
+    @Autowired
+    private CalendarAggregateService calendarAggregateService;
+    @Autowired
+    private SequenceAligner sequenceAligner;
+    @Value("${file.upload-dir}")
+    private String uploadDir;
+
+    private User user;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "image_storage");
+    }
+
+    @BeforeAll
+    void seed() {
+        TestDataSeeder.SeededData data = new TestDataSeeder(jdbcTemplate, transactionTemplate, passwordEncoder,
+                imageStorageService, thumbnailService, calendarAggregateService, sequenceAligner)
+                .seed(1, 10, 0);
+        user = userRepository.findByEmail(data.userEmails().getFirst()).orElseThrow();
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void sameContentIsStoredOnceWithTwoReferences() {
+        byte[] image = uniqueImage();
+
+        StoredImage first = saveInTransaction(image);
+        StoredImage second = saveInTransaction(image);
+
+        assertThat(second.name()).isEqualTo(first.name());
+        assertThat(second.contentType()).isEqualTo("image/png");
+        assertThat(refCount(first.name())).isEqualTo(2);
+        assertThat(Files.exists(file(first.name()))).isTrue();
+    }
+
+    @Test
+    void updatingFriendToTheSameImageKeepsTheFile() throws IOException {
+        authenticate();
+        byte[] image = uniqueImage();
+        Friend friend = friendService.createFriend(request("Алексей", image));
+        String name = friend.getImageName();
+
+        friendService.updateFriend(friend.getId(), request("Алексей", image));
+
+        assertThat(refCount(name)).isEqualTo(1);
+        assertThat(Files.exists(file(name))).isTrue();
+        assertThat(friendService.getFriendImage(friend.getId(), ImageVariant.ORIGINAL).contentType())
+                .hasToString("image/png");
+    }
+
+    @Test
+    void fileIsDeletedWithTheLastReference() throws IOException {
+        authenticate();
+        byte[] image = uniqueImage();
+        Friend first = friendService.createFriend(request("Борис", image));
+        Friend second = friendService.createFriend(request("Валентин", image));
+        String name = first.getImageName();
+
+        friendService.deleteFriend(first.getId());
+        assertThat(refCount(name)).isEqualTo(1);
+        assertThat(Files.exists(file(name))).isTrue();
+
+        friendService.deleteFriend(second.getId());
+        assertThat(refCount(name)).isZero();
+        assertThat(Files.exists(file(name))).isFalse();
+    }
+
+    @Test
+    void uploadDuringLastReleaseKeepsTheFile() throws Exception {
+        byte[] image = uniqueImage();
+        String name = saveInTransaction(image).name();
+        CountDownLatch released = new CountDownLatch(1);
+
+        // Первая транзакция снимает последнюю ссылку и держит блокировку хеша,
+        // пока вторая пытается загрузить то же содержимое. Вторая фиксируется с задержкой,
+        // чтобы удаление файла после первой фиксации пришлось на момент, когда ее запись еще не видна
+        CompletableFuture<Void> deletion = CompletableFuture.runAsync(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    try {
+                        imageStorageService.delete(name);
+                        released.countDown();
+                        Thread.sleep(300);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertThat(released.await(10, TimeUnit.SECONDS)).isTrue();
+        StoredImage reuploaded = saveInTransaction(image, 500);
+        deletion.get(10, TimeUnit.SECONDS);
+
+        assertThat(reuploaded.name()).isEqualTo(name);
+        assertThat(refCount(name)).isEqualTo(1);
+        assertThat(Files.exists(file(name))).isTrue();
+    }
+
+    private StoredImage saveInTransaction(byte[] image) {
+        return saveInTransaction(image, 0);
+    }
+
+    private StoredImage saveInTransaction(byte[] image, long commitDelayMillis) {
+        return transactionTemplate.execute(status -> {
+            try {
+                StoredImage stored = imageStorageService.save(
+                        new MockMultipartFile("image", "avatar.png", "image/svg+xml", image));
+                Thread.sleep(commitDelayMillis);
+                return stored;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private WriteFriendRequest request(String fio, byte[] image) {
+        WriteFriendRequest request = new WriteFriendRequest();
+        request.setFIO(fio);
+        request.setEmail(fio.hashCode() + "@example.com");
+        request.setDateOfBirth(LocalDate.of(1990, 4, 12));
+        request.setImage(new MockMultipartFile("image", "avatar.png", "image/png", image));
+        return request;
+    }
+
+    private void authenticate() {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private int refCount(String name) {
+        String hash = name.substring(name.lastIndexOf('/') + 1);
+        Integer count = jdbcTemplate.query("SELECT ref_count FROM tbl_image_blob WHERE hash = ?",
+                rs -> rs.next() ? rs.getInt(1) : 0, hash);
+        return count != null ? count : 0;
+    }
+
+    private Path file(String name) {
+        return Path.of(uploadDir).resolve(name);
+    }
+
+    /**
+     * PNG с уникальным содержимым, чтобы тесты не делили файлы между собой
+     */
+    private static byte[] uniqueImage() {
+        BufferedImage image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, COLOR.getAndIncrement());
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", bytes);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package ru.test.congratulations.service.image;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.multipart.MultipartFile;
+import ru.test.congratulations.config.ImageExecutorConfig;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThumbnailServiceImplTest {
+    private final InMemoryImageStorage storage = new InMemoryImageStorage();
+    private final ThumbnailServiceImpl thumbnailService =
+            new ThumbnailServiceImpl(storage, new SyncTaskExecutor(), 25_000_000);
+
+    @Test
+    void generatesScaledJpegVariants() throws IOException {
+        storage.originals.put("ab/cd/wide", png(600, 300));
+
+        thumbnailService.scheduleVariants("ab/cd/wide");
+
+        BufferedImage small = ImageIO.read(new ByteArrayInputStream(storage.variant("ab/cd/wide", ImageVariant.SMALL)));
+        BufferedImage medium = ImageIO.read(new ByteArrayInputStream(storage.variant("ab/cd/wide", ImageVariant.MEDIUM)));
+        assertThat(small.getWidth()).isEqualTo(64);
+        assertThat(small.getHeight()).isEqualTo(32);
+        assertThat(medium.getWidth()).isEqualTo(256);
+        assertThat(medium.getHeight()).isEqualTo(128);
+    }
+
+    @Test
+    void skipsImagesAboveThePixelLimitWithoutDecoding() throws IOException {
+        // Заголовок PNG на 100 000 x 100 000 пикселей без данных: при декодировании понадобилось бы 40 ГБ
+        storage.originals.put("ab/cd/bomb", pngHeaderOnly(100_000, 100_000));
+        storage.originals.put("ab/cd/limit", png(200, 200));
+        ThumbnailServiceImpl limited = new ThumbnailServiceImpl(storage, new SyncTaskExecutor(), 10_000);
+
+        thumbnailService.scheduleVariants("ab/cd/bomb");
+        limited.scheduleVariants("ab/cd/limit");
+
+        assertThat(storage.variants).isEmpty();
+    }
+
+    @Test
+    void retriesImageRejectedByFullQueue() throws Exception {
+        storage.originals.put("ab/cd/first", png(100, 100));
+        storage.originals.put("ab/cd/second", png(100, 100));
+        ThreadPoolTaskExecutor executor = new ImageExecutorConfig().imageTaskExecutor(1, 1);
+        executor.initialize();
+        ThumbnailServiceImpl queued = new ThumbnailServiceImpl(storage, executor, 25_000_000);
+
+        // Единственный поток занят, первое изображение занимает единственное место в очереди
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        queued.scheduleVariants("ab/cd/first");
+        queued.scheduleVariants("ab/cd/second");
+
+        // После освобождения очереди отклоненное изображение ставится снова, а не считается уже стоящим в ней
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!executor.getThreadPoolExecutor().getQueue().isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        queued.scheduleVariants("ab/cd/second");
+        executor.getThreadPoolExecutor().shutdown();
+        assertThat(executor.getThreadPoolExecutor().awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(storage.variant("ab/cd/first", ImageVariant.SMALL)).isNotNull();
+        assertThat(storage.variant("ab/cd/second", ImageVariant.SMALL)).isNotNull();
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", bytes);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] pngHeaderOnly(int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.write(new byte[]{(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A});
+
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        DataOutputStream ihdr = new DataOutputStream(chunk);
+        ihdr.write("IHDR".getBytes(StandardCharsets.US_ASCII));
+        ihdr.writeInt(width);
+        ihdr.writeInt(height);
+        // 8 бит на канал, RGB, стандартные сжатие, фильтр и без чересстрочности
+        ihdr.write(new byte[]{8, 2, 0, 0, 0});
+        byte[] data = chunk.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        out.writeInt(data.length - 4);
+        out.write(data);
+        out.writeInt((int) crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Хранилище в памяти: оригиналы задаются тестом, копии складываются в отдельную карту
+     */
+    private static class InMemoryImageStorage implements ImageStorageService {
+        private final Map<String, byte[]> originals = new HashMap<>();
+        private final Map<String, byte[]> variants = new HashMap<>();
+
+        byte[] variant(String name, ImageVariant variant) {
+            return variants.get(name + "_" + variant.getSize());
+        }
+
+        @Override
+        public StoredImage save(MultipartFile file) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Resource load(String name) {
+            return new ByteArrayResource(originals.get(name));
+        }
+
+        @Override
+        public Optional<Resource> loadVariant(String name, ImageVariant variant) {
+            return Optional.ofNullable(variant(name, variant)).map(ByteArrayResource::new);
+        }
+
+        @Override
+        public void saveVariant(String name, ImageVariant variant, byte[] jpegBytes) {
+            variants.put(name + "_" + variant.getSize(), jpegBytes);
+        }
+
+        @Override
+        public void delete(String name) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String guessContentType(String name) {
+            return "image/jpeg";
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.test.congratulations.service.importer;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.service.birthday.BirthdayIndex;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.service.user.UserService;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+class FriendImportServiceImplTest {
+    private static final Long USER_ID = 7L;
+
+    @Test
+    void failedBatchIsReportedAndImportContinues() throws IOException {
+        FriendRepository friendRepository = mock(FriendRepository.class);
+        when(friendRepository.findFioByUserId(USER_ID)).thenReturn(List.of());
+        // Второй пакет нарушает ограничение уникальности, например из-за параллельного создания друга
+        AtomicInteger batches = new AtomicInteger();
+        when(friendRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            if (batches.incrementAndGet() == 2) {
+                throw new DataIntegrityViolationException("duplicate key (fio, user_id)");
+            }
+            return invocation.getArgument(0);
+        });
+        BirthdayIndex birthdayIndex = mock(BirthdayIndex.class);
+        List<long[]> progress = new ArrayList<>();
+
+        ImportResult result = service(friendRepository, birthdayIndex).importFriends(csv(5), ImportFormat.CSV,
+                (imported, failed) -> progress.add(new long[]{imported, failed}));
+
+        assertThat(result.imported()).isEqualTo(3);
+        assertThat(result.failed()).isEqualTo(2);
+        assertThat(result.errors()).singleElement().satisfies(error -> {
+            assertThat(error.row()).isEqualTo(4);
+            assertThat(error.message()).startsWith("Строки 4-5 не сохранены");
+        });
+        assertThat(progress).extracting(batch -> batch[0]).containsExactly(2L, 0L, 1L);
+        assertThat(progress).extracting(batch -> batch[1]).containsExactly(0L, 2L, 0L);
+        // Индекс сбрасывается в транзакции каждого сохраненного пакета, а не только в конце файла
+        verify(birthdayIndex, times(2)).evict(USER_ID);
+    }
+
+    private FriendImportServiceImpl service(FriendRepository friendRepository, BirthdayIndex birthdayIndex) {
+        UserService userService = mock(UserService.class);
+        User user = new User("user@example.com", "user_login", "password");
+        user.setId(USER_ID);
+        when(userService.getAuthUser()).thenReturn(Optional.of(user));
+
+        FriendImportServiceImpl service = new FriendImportServiceImpl(friendRepository, userService, birthdayIndex,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), mock(EntityManager.class),
+                mock(CalendarAggregateService.class));
+        ReflectionTestUtils.setField(service, "batchSize", 2);
+        ReflectionTestUtils.setField(service, "maxReportedErrors", 100);
+        return service;
+    }
+
+    private static ByteArrayInputStream csv(int rows) {
+        StringBuilder csv = new StringBuilder("fio,email,dateOfBirth,description\n");
+        String[] names = {"Александр", "Борислав", "Владимир", "Григорий", "Дмитрий"};
+        for (int i = 0; i < rows; i++) {
+            csv.append(names[i]).append(",,1990-01-0").append(i + 1).append(",\n");
+        }
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
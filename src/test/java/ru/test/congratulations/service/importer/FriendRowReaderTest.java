@@ -0,0 +1,99 @@
+package ru.test.congratulations.service.importer;
+
+import org.junit.jupiter.api.Test;
+import ru.test.congratulations.service.exporter.ExportFormat;
+import ru.test.congratulations.service.exporter.ExportRow;
+import ru.test.congratulations.service.exporter.FriendRowWriter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FriendRowReaderTest {
+
+    @Test
+    void readsCsvWithHeaderAndQuotedValues() throws IOException {
+        String csv = """
+                fio,email,dateOfBirth,description
+                Александр,alex@example.com,1990-05-01,"Коллега, ""отдел"" продаж"
+
+                Mikhail,,01.02.1985,
+                """;
+
+        List<ImportRow> rows = readAll(ImportFormat.CSV, csv);
+
+        assertThat(rows).containsExactly(
+                new ImportRow(2, "Александр", "alex@example.com", "1990-05-01", "Коллега, \"отдел\" продаж"),
+                new ImportRow(4, "Mikhail", null, "01.02.1985", null));
+    }
+
+    @Test
+    void csvExportIsReadBackWithMultiLineValuesAndFormulaPrefixes() throws IOException {
+        List<ExportRow> exported = List.of(
+                new ExportRow("Анна", "anna@example.com", LocalDate.of(1991, 3, 8),
+                        "Первая строка\n\"Вторая\", с запятой\n", List.of(LocalDate.of(2024, 3, 8))),
+                new ExportRow("=HYPERLINK(\"http://evil\")", "@mail.example.com", LocalDate.of(1985, 12, 31),
+                        "-1+2", List.of()),
+                new ExportRow("'Кавычка", null, LocalDate.of(2000, 1, 1), "+7 999 000-00-00", List.of()));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (FriendRowWriter writer = FriendRowWriter.of(ExportFormat.CSV, bytes, JsonMapper.builder().build())) {
+            for (ExportRow row : exported) {
+                writer.write(row);
+            }
+        }
+        String csv = bytes.toString(StandardCharsets.UTF_8);
+
+        // Табличный редактор не примет ни одно значение за формулу
+        assertThat(csv).doesNotContain(",=", ",+", ",-", ",@", "\n=");
+
+        List<ImportRow> rows = readAll(ImportFormat.CSV, csv);
+
+        assertThat(rows).containsExactly(
+                new ImportRow(2, "Анна", "anna@example.com", "1991-03-08", "Первая строка\n\"Вторая\", с запятой"),
+                new ImportRow(5, "=HYPERLINK(\"http://evil\")", "@mail.example.com", "1985-12-31", "-1+2"),
+                new ImportRow(6, "'Кавычка", null, "2000-01-01", "+7 999 000-00-00"));
+    }
+
+    @Test
+    void readsVCardsWithFoldedLinesAndParameters() throws IOException {
+        String vcard = """
+                BEGIN:VCARD
+                VERSION:3.0
+                FN:Дмитрий
+                EMAIL;TYPE=work:dmitry@example.com
+                EMAIL;TYPE=home:other@example.com
+                BDAY:19870315
+                NOTE:Старый школьный
+                  друг\\, сосед
+                END:VCARD
+                BEGIN:VCARD
+                VERSION:4.0
+                item1.FN:Sergey
+                END:VCARD
+                """;
+
+        List<ImportRow> rows = readAll(ImportFormat.VCARD, vcard);
+
+        assertThat(rows).containsExactly(
+                new ImportRow(1, "Дмитрий", "dmitry@example.com", "19870315", "Старый школьный друг, сосед"),
+                new ImportRow(2, "Sergey", null, null, null));
+    }
+
+    private List<ImportRow> readAll(ImportFormat format, String content) throws IOException {
+        FriendRowReader reader = FriendRowReader.of(format, new BufferedReader(new StringReader(content)));
+        List<ImportRow> rows = new ArrayList<>();
+        ImportRow row;
+        while ((row = reader.next()) != null) {
+            rows.add(row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,161 @@
+package ru.test.congratulations.service.job;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.FriendRepository;
+import ru.test.congratulations.service.FriendService;
+import ru.test.congratulations.service.importer.FriendImportService;
+import ru.test.congratulations.service.importer.ImportFormat;
+import ru.test.congratulations.service.importer.ImportResult;
+import ru.test.congratulations.service.user.UserService;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BulkJobServiceImplTest {
+    private final FriendRepository friendRepository = mock(FriendRepository.class);
+    private final FriendImportService friendImportService = mock(FriendImportService.class);
+    private final UserService userService = mock(UserService.class);
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        signIn(1L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void failedChunkIsCountedAndJobContinues() throws Exception {
+        when(friendRepository.updateDescription(eq(1L), anyList(), eq("note"))).thenAnswer(invocation -> {
+            List<Long> chunk = invocation.getArgument(1);
+            if (chunk.contains(3L)) {
+                throw new IllegalStateException("Пакет не сохранен");
+            }
+            return chunk.size();
+        });
+
+        BulkJobServiceImpl service = service(4, 60);
+        JobStatus status = awaitFinished(service, service.submitUpdate(List.of(1L, 2L, 3L, 4L, 5L), "note").id());
+
+        assertThat(status.state()).isEqualTo(JobState.COMPLETED);
+        assertThat(status.total()).isEqualTo(5);
+        assertThat(status.processed()).isEqualTo(3);
+        assertThat(status.failed()).isEqualTo(2);
+        assertThat(status.error()).isEqualTo("Пакет не сохранен");
+    }
+
+    @Test
+    void jobsBeyondTheLimitWaitForAPermit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(friendRepository.updateDescription(eq(1L), anyList(), any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return 1;
+        });
+        BulkJobServiceImpl service = service(1, 60);
+
+        UUID first = service.submitUpdate(List.of(1L), "a").id();
+        awaitState(service, first, JobState.RUNNING);
+        UUID second = service.submitUpdate(List.of(2L), "b").id();
+        Thread.sleep(200);
+        assertThat(service.getStatus(second).orElseThrow().state()).isEqualTo(JobState.QUEUED);
+
+        release.countDown();
+        assertThat(awaitFinished(service, first).state()).isEqualTo(JobState.COMPLETED);
+        assertThat(awaitFinished(service, second).state()).isEqualTo(JobState.COMPLETED);
+    }
+
+    @Test
+    void jobIsVisibleOnlyToItsOwner() throws Exception {
+        when(friendRepository.updateDescription(eq(1L), anyList(), any())).thenReturn(1);
+        BulkJobServiceImpl service = service(4, 60);
+        UUID jobId = service.submitUpdate(List.of(1L), "note").id();
+        awaitFinished(service, jobId);
+
+        signIn(2L);
+
+        assertThat(service.getStatus(jobId)).isEmpty();
+        assertThat(service.subscribe(jobId, status -> { })).isFalse();
+    }
+
+    @Test
+    void finishedJobsAreRemovedAfterRetention() throws Exception {
+        when(friendRepository.updateDescription(eq(1L), anyList(), any())).thenReturn(1);
+        BulkJobServiceImpl service = service(4, 0);
+        UUID finished = service.submitUpdate(List.of(1L), "note").id();
+        awaitFinished(service, finished);
+        Thread.sleep(10);
+
+        UUID next = service.submitUpdate(List.of(2L), "note").id();
+
+        assertThat(service.getStatus(finished)).isEmpty();
+        assertThat(service.getStatus(next)).isPresent();
+    }
+
+    @Test
+    void importRowErrorsAreReportedInJobStatus() throws Exception {
+        when(friendImportService.importFriends(any(), eq(ImportFormat.CSV), any())).thenReturn(new ImportResult(
+                1, 2, List.of(new ImportResult.RowError(3, "Дата рождения обязательна"),
+                new ImportResult.RowError(4, "Некорректный формат email")), 1, 3.0));
+        BulkJobServiceImpl service = service(4, 60);
+        MockMultipartFile file = new MockMultipartFile("file", "friends.csv", "text/csv",
+                "fio,email,dateOfBirth\n".getBytes(StandardCharsets.UTF_8));
+
+        JobStatus status = awaitFinished(service, service.submitImport(file, ImportFormat.CSV).id());
+
+        assertThat(status.state()).isEqualTo(JobState.COMPLETED);
+        assertThat(status.error()).isEqualTo("Строка 3: Дата рождения обязательна (всего отклонено: 2)");
+    }
+
+    private BulkJobServiceImpl service(int maxConcurrent, long retentionMinutes) {
+        return new BulkJobServiceImpl(mock(FriendService.class), friendImportService, friendRepository, userService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), executor,
+                maxConcurrent, 2, 1000, retentionMinutes);
+    }
+
+    private void signIn(Long userId) {
+        User user = new User("user" + userId + "@example.com", "user" + userId, "password");
+        user.setId(userId);
+        when(userService.getAuthUser()).thenReturn(Optional.of(user));
+    }
+
+    private static JobStatus awaitFinished(BulkJobServiceImpl service, UUID jobId) throws InterruptedException {
+        return awaitState(service, jobId, null);
+    }
+
+    /**
+     * Ждет нужного состояния задачи; при state = null - любого завершенного
+     */
+    private static JobStatus awaitState(BulkJobServiceImpl service, UUID jobId, JobState state)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            JobStatus status = service.getStatus(jobId).orElseThrow();
+            if (state == null ? status.state().isFinished() : status.state() == state) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Задача " + jobId + " не перешла в состояние " + (state != null ? state : "завершена"));
+    }
+}
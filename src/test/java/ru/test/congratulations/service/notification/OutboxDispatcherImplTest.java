@@ -0,0 +1,174 @@
+package ru.test.congratulations.service.notification;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.config.SequenceAligner;
+import ru.test.congratulations.entity.NotificationType;
+import ru.test.congratulations.entity.OutboxMessage;
+import ru.test.congratulations.entity.OutboxStatus;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.entity.request.CreateCongratulationRequest;
+import ru.test.congratulations.repository.OutboxMessageRepository;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.service.CongratulationService;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.service.image.ImageStorageService;
+import ru.test.congratulations.service.image.ThumbnailService;
+import ru.test.congratulations.service.reminder.BirthdayReminderService;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Доставка уведомлений из outbox через SMTP на локальный сервер GreenMail
+ */
+@SpringBootTest(properties = {
+        "outbox.enabled=false",
+        "reminders.enabled=false",
+        "outbox.batch-size=5",
+        "outbox.parallelism=3",
+        "outbox.retry-backoff=50ms",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class OutboxDispatcherImplTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+    @Autowired
+    private BirthdayReminderService reminderService;
+    @Autowired
+    private CongratulationService congratulationService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private ImageStorageService imageStorageService;
+    @Autowired
+    private ThumbnailService thumbnailService;
+    @Autowired
+    private CalendarAggregateService calendarAggregateService;
+    @Autowired
+    private SequenceAligner sequenceAligner;
+
+    private TestDataSeeder.SeededData data;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "outbox_dispatcher");
+    }
+
+    @BeforeAll
+    void seed() {
+        data = new TestDataSeeder(jdbcTemplate, transactionTemplate, passwordEncoder, imageStorageService,
+                thumbnailService, calendarAggregateService, sequenceAligner).seed(2, 2000, 0);
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void remindersAreMailedToFriendOwners() throws Exception {
+        LocalDate date = LocalDate.now().withMonth(3).withDayOfMonth(10);
+        long reminders = reminderService.createReminders(date);
+        assertThat(reminders).isGreaterThan(5);
+
+        assertThat(outboxDispatcher.dispatchPending()).isEqualTo((int) reminders);
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize((int) reminders);
+        for (MimeMessage message : received) {
+            assertThat(message.getAllRecipients()[0].toString()).isIn(data.userEmails());
+            assertThat(message.getSubject()).startsWith("День рождения");
+        }
+        assertThat(outboxMessageRepository.countByStatus(OutboxStatus.PENDING)).isZero();
+        assertThat(outboxDispatcher.dispatchPending()).isZero();
+    }
+
+    @Test
+    void congratulationIsRetriedUntilSmtpIsBack() throws Exception {
+        User user = userRepository.findByEmail(data.userEmails().getFirst()).orElseThrow();
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        Long friendId = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) FROM tbl_friends WHERE user_id = ?", Long.class, user.getId());
+        CreateCongratulationRequest request = new CreateCongratulationRequest();
+        request.setFriendId(friendId);
+        request.setCongratulationDate(LocalDate.now());
+        congratulationService.createFriendCongratulation(request);
+
+        greenMail.stop();
+        assertThat(outboxDispatcher.dispatchPending()).isEqualTo(1);
+        OutboxMessage retried = findCongratulation(friendId);
+        assertThat(retried.getStatus()).isEqualTo(OutboxStatus.PENDING);
+        assertThat(retried.getAttempts()).isEqualTo(1);
+        assertThat(retried.getLastError()).isNotBlank();
+
+        greenMail.start();
+        Thread.sleep(100);
+        assertThat(outboxDispatcher.dispatchPending()).isEqualTo(1);
+        assertThat(findCongratulation(friendId).getStatus()).isEqualTo(OutboxStatus.SENT);
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(1);
+        assertThat(received[0].getAllRecipients()[0].toString()).isEqualTo("friend" + friendId + "@example.com");
+    }
+
+    @Test
+    void backoffDoublesUpToTheLimit() {
+        Duration base = Duration.ofSeconds(30);
+        Duration max = Duration.ofMinutes(3);
+        List<Duration> delays = Arrays.asList(
+                OutboxDispatcherImpl.backoff(1, base, max),
+                OutboxDispatcherImpl.backoff(2, base, max),
+                OutboxDispatcherImpl.backoff(3, base, max),
+                OutboxDispatcherImpl.backoff(4, base, max),
+                OutboxDispatcherImpl.backoff(40, base, max));
+        assertThat(delays).containsExactly(Duration.ofSeconds(30), Duration.ofMinutes(1), Duration.ofMinutes(2),
+                max, max);
+    }
+
+    private OutboxMessage findCongratulation(Long friendId) {
+        for (OutboxMessage message : outboxMessageRepository.findAll()) {
+            if (friendId.equals(message.getFriendId()) && message.getType() == NotificationType.CONGRATULATION) {
+                return message;
+            }
+        }
+        throw new AssertionError("Нет сообщения о поздравлении друга " + friendId);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.test.congratulations.service.reminder;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.config.SequenceAligner;
+import ru.test.congratulations.repository.BirthdayReminderRepository;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.service.image.ImageStorageService;
+import ru.test.congratulations.service.image.ThumbnailService;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.TestDataSeeder;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Несколько одновременных обходов (как несколько узлов) создают ровно одно напоминание на каждого
+ * именинника, а повторный обход ничего не добавляет
+ */
+@SpringBootTest(properties = {
+        "reminders.enabled=false",
+        "reminders.batch-size=7",
+        "reminders.workers=3",
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+class BirthdayReminderServiceImplTest {
+    private static final int NODES = 3;
+
+    @Autowired
+    private BirthdayReminderService reminderService;
+    @Autowired
+    private BirthdayReminderRepository reminderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private ImageStorageService imageStorageService;
+    @Autowired
+    private ThumbnailService thumbnailService;
+    @Autowired
+    private CalendarAggregateService calendarAggregateService;
+    @Autowired
+    private SequenceAligner sequenceAligner;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "birthday_reminder");
+    }
+
+    @Test
+    void concurrentScansCreateEachReminderOnce() throws Exception {
+        new TestDataSeeder(jdbcTemplate, transactionTemplate, passwordEncoder, imageStorageService,
+                thumbnailService, calendarAggregateService, sequenceAligner).seed(5, 2000, 0);
+        LocalDate date = LocalDate.now().withMonth(6).withDayOfMonth(15);
+        Long expected = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM tbl_friends WHERE birth_month_day = 615 AND date_of_birth <= ?",
+                Long.class, date);
+        assertThat(expected).isPositive();
+
+        List<Future<Long>> scans = new ArrayList<>();
+        try (ExecutorService nodes = Executors.newFixedThreadPool(NODES)) {
+            for (int i = 0; i < NODES; i++) {
+                scans.add(nodes.submit(() -> reminderService.createReminders(date)));
+            }
+        }
+        long created = 0;
+        for (Future<Long> scan : scans) {
+            created += scan.get();
+        }
+
+        assertThat(created).isEqualTo(expected);
+        assertThat(reminderRepository.countByBirthdayDate(date)).isEqualTo(expected);
+        assertThat(reminderService.createReminders(date)).isZero();
+    }
+
+    @Test
+    void leapDayBirthdaysAreRemindedOnFebruary28InCommonYears() {
+        assertThat(BirthdayReminderServiceImpl.dueMonthDays(LocalDate.of(2031, 2, 28))).containsExactly(228, 229);
+        assertThat(BirthdayReminderServiceImpl.dueMonthDays(LocalDate.of(2032, 2, 28))).containsExactly(228);
+        assertThat(BirthdayReminderServiceImpl.dueMonthDays(LocalDate.of(2032, 2, 29))).containsExactly(229);
+    }
+}
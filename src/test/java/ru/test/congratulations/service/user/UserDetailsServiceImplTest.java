@@ -0,0 +1,119 @@
+package ru.test.congratulations.service.user;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.entity.User;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.QueryBudget;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Поиск пользователя для входа через кэш по логину и email
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+class UserDetailsServiceImplTest {
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager entityManager;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "user_lookup");
+    }
+
+    @Test
+    void repeatedLookupsByLoginOrEmailSkipDatabase() {
+        userRepository.save(new User("cached@example.com", "cached", "hash"));
+        double hitsBefore = cacheGets("hit");
+
+        long firstLookup = QueryBudget.statementsDuring(() ->
+                assertThat(userDetailsService.loadUserByUsername("cached").getUsername()).isEqualTo("cached@example.com"));
+        long cachedLookups = QueryBudget.statementsDuring(() -> {
+            userDetailsService.loadUserByUsername("cached");
+            userDetailsService.loadUserByUsername("cached@example.com");
+        });
+
+        assertThat(firstLookup).isEqualTo(1);
+        assertThat(cachedLookups).isZero();
+        assertThat(cacheGets("hit") - hitsBefore).isEqualTo(2);
+        // Каждый вход получает свой объект, изменения одной сессии не видны другим
+        assertThat(userDetailsService.loadUserByUsername("cached"))
+                .isNotSameAs(userDetailsService.loadUserByUsername("cached"));
+    }
+
+    @Test
+    void changedUserIsEvicted() {
+        User user = userRepository.save(new User("rename@example.com", "rename", "hash"));
+        userDetailsService.loadUserByUsername("rename");
+
+        user.setLogin("renamed");
+        userRepository.save(user);
+
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("rename"))
+                .isInstanceOf(UsernameNotFoundException.class);
+        assertThat(userDetailsService.loadUserByUsername("renamed").getUsername()).isEqualTo("rename@example.com");
+    }
+
+    @Test
+    void passwordUpgradeEvictsStaleHash() {
+        userRepository.save(new User("upgrade-cache@example.com", "upgrade-cache", "old"));
+        UserDetails loaded = userDetailsService.loadUserByUsername("upgrade-cache");
+
+        userDetailsService.updatePassword(loaded, "new");
+
+        assertThat(userDetailsService.loadUserByUsername("upgrade-cache@example.com").getPassword()).isEqualTo("new");
+    }
+
+    @Test
+    void loginDuringUpdateDoesNotKeepStaleHash() {
+        Long userId = userRepository.save(new User("commit@example.com", "commit", "old")).getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            User user = userRepository.findById(userId).orElseThrow();
+            user.setPassword("new");
+            entityManager.flush();
+            // Параллельный вход до фиксации читает из БД старый хэш и кладет его в кэш
+            assertThat(CompletableFuture.supplyAsync(() -> userDetailsService.loadUserByUsername("commit"))
+                    .join().getPassword()).isEqualTo("old");
+        });
+
+        assertThat(userDetailsService.loadUserByUsername("commit").getPassword()).isEqualTo("new");
+    }
+
+    @Test
+    void emailLookupIgnoresLoginThatLooksLikeEmail() {
+        userRepository.save(new User("owner@example.com", "owner", "owner-hash"));
+        userRepository.save(new User("other@example.com", "owner@example.com", "other-hash"));
+
+        assertThat(userDetailsService.loadUserByUsername("owner@example.com").getPassword()).isEqualTo("owner-hash");
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "userPrincipals").tag("result", result)
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,135 @@
+package ru.test.congratulations.service.user;
+
+import jakarta.validation.ValidationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.test.congratulations.entity.request.RegistrationRequest;
+import ru.test.congratulations.repository.UserRepository;
+import ru.test.congratulations.support.EmbeddedPostgresSupport;
+import ru.test.congratulations.support.QueryBudget;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Регистрация одной вставкой: уникальность email и логина обеспечивают ограничения tbl_user
+ */
+@SpringBootTest(properties = {
+        "security.password.bcrypt-strength=4",
+        "spring.jpa.show-sql=false",
+        "logging.level.ru.test.congratulations=WARN"
+})
+class UserServiceImplRegistrationTest {
+    private static final String PASSWORD = "Secret-123";
+    private static final int PARALLEL_REGISTRATIONS = 16;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        EmbeddedPostgresSupport.register(registry, "registration");
+    }
+
+    @Test
+    void registrationIsSingleInsert() {
+        // Первая регистрация может дополнительно выбрать блок значений последовательности
+        userService.registerUser(new RegistrationRequest("warmup", "warmup@example.com", PASSWORD));
+
+        long statements = QueryBudget.statementsDuring(() ->
+                userService.registerUser(new RegistrationRequest("single", "single@example.com", PASSWORD)));
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(userRepository.findByLogin("single")).isPresent();
+    }
+
+    @Test
+    void duplicateEmailAndLoginKeepExistingMessages() {
+        userService.registerUser(new RegistrationRequest("taken", "taken@example.com", PASSWORD));
+
+        assertThatThrownBy(() -> userService.registerUser(
+                new RegistrationRequest("other", "taken@example.com", PASSWORD)))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Пользователь с email taken@example.com уже существует");
+        assertThatThrownBy(() -> userService.registerUser(
+                new RegistrationRequest("taken", "other@example.com", PASSWORD)))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Пользователь с логином taken уже существует");
+    }
+
+    @Test
+    void legacyConstraintNamesKeepExistingMessages() {
+        userService.registerUser(new RegistrationRequest("legacy", "legacy@example.com", PASSWORD));
+        // Так выглядят ограничения в базах, созданных Hibernate до их явного именования
+        jdbcTemplate.execute("ALTER TABLE tbl_user RENAME CONSTRAINT uk_user_email TO uk4bgmpi98dylab6qdvf9xyaxu4f");
+        jdbcTemplate.execute("ALTER TABLE tbl_user RENAME CONSTRAINT uk_user_login TO ukhl8fftx66p59oqgkkcfit3eay");
+        try {
+            assertThatThrownBy(() -> userService.registerUser(
+                    new RegistrationRequest("other_legacy", "legacy@example.com", PASSWORD)))
+                    .isInstanceOf(ValidationException.class)
+                    .hasMessage("Пользователь с email legacy@example.com уже существует");
+            assertThatThrownBy(() -> userService.registerUser(
+                    new RegistrationRequest("legacy", "other_legacy@example.com", PASSWORD)))
+                    .isInstanceOf(ValidationException.class)
+                    .hasMessage("Пользователь с логином legacy уже существует");
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE tbl_user RENAME CONSTRAINT uk4bgmpi98dylab6qdvf9xyaxu4f TO uk_user_email");
+            jdbcTemplate.execute("ALTER TABLE tbl_user RENAME CONSTRAINT ukhl8fftx66p59oqgkkcfit3eay TO uk_user_login");
+        }
+    }
+
+    @Test
+    void parallelRegistrationsWithSameDataCreateOneUser() throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(PARALLEL_REGISTRATIONS)) {
+            for (int i = 0; i < PARALLEL_REGISTRATIONS; i++) {
+                // Половина клиентов занимает тот же логин с другим email, половина - тот же email
+                String login = i % 2 == 0 ? "race" : "race" + i;
+                String email = i % 2 == 0 ? "race" + i + "@example.com" : "race@example.com";
+                results.add(executor.submit(() -> {
+                    start.await();
+                    userService.registerUser(new RegistrationRequest(login, email, PASSWORD));
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            int registered = 0;
+            List<String> rejections = new ArrayList<>();
+            for (Future<?> result : results) {
+                try {
+                    result.get();
+                    registered++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(ValidationException.class);
+                    rejections.add(e.getCause().getMessage());
+                }
+            }
+
+            // Успешны ровно одна регистрация логина race и одна - email race@example.com
+            assertThat(registered).isEqualTo(2);
+            assertThat(rejections).hasSize(PARALLEL_REGISTRATIONS - 2)
+                    .allMatch(message -> message.equals("Пользователь с логином race уже существует")
+                            || message.equals("Пользователь с email race@example.com уже существует"));
+        }
+        assertThat(userRepository.findByLogin("race")).isPresent();
+        assertThat(userRepository.findByEmail("race@example.com")).isPresent();
+    }
+}
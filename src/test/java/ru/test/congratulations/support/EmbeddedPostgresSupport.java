@@ -0,0 +1,70 @@
+package ru.test.congratulations.support;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Встроенный PostgreSQL для интеграционных тестов.
+ * Сервер один на JVM и останавливается при ее завершении; каждый тестовый класс получает
+ * собственную базу и каталог загрузок, поэтому данные классов не пересекаются
+ */
+public final class EmbeddedPostgresSupport {
+    private static EmbeddedPostgres postgres;
+
+    private EmbeddedPostgresSupport() {
+    }
+
+    /**
+     * Создает базу databaseName и направляет на нее datasource и file.upload-dir приложения.
+     * Вызывается из метода {@code @DynamicPropertySource} тестового класса
+     */
+    public static void register(DynamicPropertyRegistry registry, String databaseName) {
+        databaseProperties(databaseName).forEach((name, value) -> registry.add(name, () -> value));
+    }
+
+    /**
+     * Создает базу databaseName и возвращает свойства приложения для работы с ней.
+     * Для тестов, которые сами запускают приложение через SpringApplicationBuilder
+     */
+    public static Map<String, String> databaseProperties(String databaseName) {
+        EmbeddedPostgres server = server();
+        try (Connection connection = server.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP DATABASE IF EXISTS " + databaseName);
+            // Как в рабочих базах, регистр и триграммы должны работать для кириллицы,
+            // поэтому локаль базы UTF-8, а не C, как у встроенного сервера по умолчанию
+            statement.execute("CREATE DATABASE " + databaseName + " TEMPLATE template0 ENCODING 'UTF8' " +
+                    "LC_COLLATE 'C.UTF-8' LC_CTYPE 'C.UTF-8'");
+            Path uploadDir = Files.createTempDirectory(databaseName + "-images");
+            return Map.of(
+                    "spring.datasource.url", server.getJdbcUrl("postgres", databaseName),
+                    "spring.datasource.username", "postgres",
+                    "spring.datasource.password", "postgres",
+                    "file.upload-dir", uploadDir + "/");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Не удалось создать базу " + databaseName, e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static synchronized EmbeddedPostgres server() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Не удалось запустить встроенный PostgreSQL", e);
+            }
+        }
+        return postgres;
+    }
+}
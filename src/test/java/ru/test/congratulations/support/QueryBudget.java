@@ -0,0 +1,41 @@
+package ru.test.congratulations.support;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+import ru.test.congratulations.config.querycount.JdbcStatementCounter;
+import ru.test.congratulations.config.querycount.QueryCountFilter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверки бюджета JDBC-запросов.
+ * Для MockMvc бюджет читается из заголовка X-Query-Count, поэтому в тесте должно быть
+ * включено свойство query-count.header-enabled; для кода без HTTP считается разница
+ * счетчика текущего потока
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /**
+     * Ответ выполнен не более чем за maxStatements JDBC-запросов
+     */
+    public static ResultMatcher atMost(int maxStatements) {
+        return result -> {
+            String header = result.getResponse().getHeader(QueryCountFilter.HEADER);
+            assertThat(header).as("заголовок " + QueryCountFilter.HEADER).isNotNull();
+            assertThat(Long.parseLong(header))
+                    .as("JDBC-запросы для " + result.getRequest().getRequestURI())
+                    .isLessThanOrEqualTo(maxStatements);
+        };
+    }
+
+    /**
+     * Количество JDBC-запросов, выполненных текущим потоком во время action
+     */
+    public static long statementsDuring(Runnable action) {
+        long start = JdbcStatementCounter.current();
+        action.run();
+        return JdbcStatementCounter.current() - start;
+    }
+}
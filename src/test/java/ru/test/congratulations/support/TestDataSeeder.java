@@ -0,0 +1,168 @@
+package ru.test.congratulations.support;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.test.congratulations.config.SequenceAligner;
+import ru.test.congratulations.service.calendar.CalendarAggregateService;
+import ru.test.congratulations.service.image.ImageStorageService;
+import ru.test.congratulations.service.image.StoredImage;
+import ru.test.congratulations.service.image.ThumbnailService;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Заполняет БД интеграционных и нагрузочных тестов: пользователи, их друзья с датами рождения
+ * за несколько десятилетий, поздравления за последние годы и общее изображение у каждого десятого друга.
+ * Строки вставляются JDBC-пакетами в обход JPA, после чего пересчитываются агрегаты календаря
+ */
+public class TestDataSeeder {
+    public static final String PASSWORD = "LoadTest1!";
+    private static final int BATCH_SIZE = 1000;
+    private static final int IMAGE_EVERY = 10;
+    private static final double CONGRATULATED_SHARE = 0.7;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder passwordEncoder;
+    private final ImageStorageService imageStorageService;
+    private final ThumbnailService thumbnailService;
+    private final CalendarAggregateService calendarAggregateService;
+    private final SequenceAligner sequenceAligner;
+    private final Random random = new Random(42);
+
+    public TestDataSeeder(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                          PasswordEncoder passwordEncoder, ImageStorageService imageStorageService,
+                          ThumbnailService thumbnailService,
+                          CalendarAggregateService calendarAggregateService,
+                          SequenceAligner sequenceAligner) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.imageStorageService = imageStorageService;
+        this.thumbnailService = thumbnailService;
+        this.calendarAggregateService = calendarAggregateService;
+        this.sequenceAligner = sequenceAligner;
+    }
+
+    /**
+     * Сидер на бинах запущенного приложения
+     */
+    public static TestDataSeeder of(ApplicationContext context) {
+        return new TestDataSeeder(context.getBean(JdbcTemplate.class), context.getBean(TransactionTemplate.class),
+                context.getBean(PasswordEncoder.class), context.getBean(ImageStorageService.class),
+                context.getBean(ThumbnailService.class), context.getBean(CalendarAggregateService.class),
+                context.getBean(SequenceAligner.class));
+    }
+
+    public SeededData seed(int users, int friendsPerUser, int congratulationYears) {
+        StoredImage image = storeImage();
+        thumbnailService.scheduleVariants(image.name());
+        String passwordHash = passwordEncoder.encode(PASSWORD);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDate today = LocalDate.now();
+        long minEpochDay = today.minusYears(70).toEpochDay();
+        long maxEpochDay = today.minusYears(5).toEpochDay();
+
+        List<String> emails = new ArrayList<>(users);
+        List<Long> imageFriendIds = new ArrayList<>();
+        List<Object[]> userRows = new ArrayList<>(users);
+        for (long userId = 1; userId <= users; userId++) {
+            String email = "load" + userId + "@example.com";
+            emails.add(email);
+            userRows.add(new Object[]{userId, "load_user_" + userId, email, passwordHash, Timestamp.valueOf(now)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tbl_user (id, login, email, password, created_at) " +
+                "VALUES (?, ?, ?, ?, ?)", userRows);
+
+        List<Object[]> friendRows = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> congratulationRows = new ArrayList<>(BATCH_SIZE);
+        long friendId = 0;
+        long congratulationId = 0;
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < friendsPerUser; i++) {
+                friendId++;
+                LocalDate dateOfBirth = LocalDate.ofEpochDay(minEpochDay + random.nextLong(maxEpochDay - minEpochDay));
+                boolean withImage = friendId % IMAGE_EVERY == 0;
+                if (withImage) {
+                    imageFriendIds.add(friendId);
+                }
+                friendRows.add(new Object[]{friendId, "Друг " + userId + " " + i, "friend" + friendId + "@example.com",
+                        Date.valueOf(dateOfBirth), dateOfBirth.getMonthValue() * 100 + dateOfBirth.getDayOfMonth(),
+                        "Описание " + i, withImage ? image.name() : null, withImage ? image.contentType() : null,
+                        Timestamp.valueOf(now), userId});
+
+                for (int year = 1; year <= congratulationYears; year++) {
+                    LocalDate birthday = dateOfBirth.withYear(today.getYear() - year);
+                    if (random.nextDouble() < CONGRATULATED_SHARE) {
+                        congratulationRows.add(new Object[]{++congratulationId, Date.valueOf(birthday),
+                                Timestamp.valueOf(now), friendId, userId});
+                    }
+                }
+
+                if (friendRows.size() >= BATCH_SIZE) {
+                    flush(friendRows, congratulationRows);
+                }
+            }
+        }
+        flush(friendRows, congratulationRows);
+
+        jdbcTemplate.update("UPDATE tbl_image_blob SET ref_count = ? WHERE hash = ?",
+                imageFriendIds.size(), image.name().substring(image.name().lastIndexOf('/') + 1));
+        sequenceAligner.align();
+        calendarAggregateService.rebuildAll();
+        jdbcTemplate.execute("ANALYZE");
+
+        return new SeededData(emails, imageFriendIds, friendId, congratulationId);
+    }
+
+    private void flush(List<Object[]> friendRows, List<Object[]> congratulationRows) {
+        jdbcTemplate.batchUpdate("INSERT INTO tbl_friends (id, fio, email, date_of_birth, birth_month_day, " +
+                "description, image_name, image_content_type, created_at, user_id) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", friendRows);
+        jdbcTemplate.batchUpdate("INSERT INTO tbl_congratulation (id, congratulation_date, created_at, friend_id, user_id) " +
+                "VALUES (?, ?, ?, ?, ?)", congratulationRows);
+        friendRows.clear();
+        congratulationRows.clear();
+    }
+
+    private StoredImage storeImage() {
+        BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, 512, 512, Color.BLUE));
+        graphics.fillRect(0, 0, 512, 512);
+        graphics.dispose();
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", bytes);
+            MockMultipartFile file = new MockMultipartFile("image", "avatar.jpg", "image/jpeg", bytes.toByteArray());
+            return transactionTemplate.execute(status -> {
+                try {
+                    return imageStorageService.save(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public record SeededData(List<String> userEmails, List<Long> imageFriendIds, long friendCount, long congratulationCount) {
+    }
+}